@@ -0,0 +1,317 @@
+package giri.apurba.apps.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import giri.apurba.apps.service.api.EmployeeIndex;
+import giri.apurba.apps.service.api.RestAPIExample;
+import giri.apurba.apps.service.core.APIMetrics;
+import giri.apurba.apps.service.core.Compression;
+import giri.apurba.apps.service.core.HostBulkhead;
+import giri.apurba.apps.service.core.HostBulkheads;
+import giri.apurba.apps.service.core.HttpClientRegistry;
+import giri.apurba.apps.service.core.RecordReplay;
+import giri.apurba.apps.service.core.RequestCoalescer;
+import giri.apurba.apps.service.core.RateLimiter;
+import giri.apurba.apps.service.core.RefreshAhead;
+import giri.apurba.apps.service.core.Resilience;
+import giri.apurba.apps.service.core.SSLProfile;
+import giri.apurba.apps.service.core.SSLProfiles;
+import giri.apurba.apps.service.core.UpstreamProtocols;
+import giri.apurba.apps.service.core.UpstreamProtocols.Protocol;
+import giri.apurba.apps.service.core.ResponseCache;
+import giri.apurba.apps.util.JSONUtil;
+import giri.apurba.apps.util.JSONUtil.JSONProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Configures the shared components used by
+ * {@link giri.apurba.apps.service.core.APIService} and releases them when the
+ * Spring context closes.
+ *
+ * @author AGIRI6
+ *
+ */
+@Configuration
+public class APIServiceConfiguration {
+
+	@Value("${api.service.client.max-clients:" + HttpClientRegistry.DEFAULT_MAX_CLIENTS + "}")
+	private int maxClients;
+
+	@Value("${api.service.execution-mode:PLATFORM}")
+	private ExecutionMode executionMode;
+
+	@Value("${api.service.cache.enabled:false}")
+	private boolean cacheEnabled;
+
+	@Value("${api.service.cache.max-entries:" + ResponseCache.DEFAULT_MAX_ENTRIES + "}")
+	private int cacheMaxEntries;
+
+	@Value("${api.service.cache.ttl-seconds:" + ResponseCache.DEFAULT_TTL_SECONDS + "}")
+	private long cacheTtlSeconds;
+
+	@Value("${api.service.coalescing.enabled:false}")
+	private boolean coalescingEnabled;
+
+	@Value("${api.example.employee-index.refresh-seconds:300}")
+	private long employeeIndexRefreshSeconds;
+
+	@Value("${api.json.provider:DEFAULT}")
+	private JSONProvider jsonProvider;
+
+	@Value("${api.service.bulkhead.enabled:false}")
+	private boolean bulkheadEnabled;
+
+	@Value("${api.service.bulkhead.initial-limit:20}")
+	private int bulkheadInitialLimit;
+
+	@Value("${api.service.bulkhead.min-limit:1}")
+	private int bulkheadMinLimit;
+
+	@Value("${api.service.bulkhead.max-limit:200}")
+	private int bulkheadMaxLimit;
+
+	@Value("${api.service.bulkhead.backoff-ratio:0.9}")
+	private double bulkheadBackoffRatio;
+
+	@Value("${api.service.bulkhead.latency-tolerance:2.0}")
+	private double bulkheadLatencyTolerance;
+
+	@Value("${api.service.retry.max-attempts:1}")
+	private int retryMaxAttempts;
+
+	@Value("${api.service.retry.initial-backoff-millis:100}")
+	private long retryInitialBackoffMillis;
+
+	@Value("${api.service.retry.max-backoff-millis:2000}")
+	private long retryMaxBackoffMillis;
+
+	@Value("${api.service.retry.budget-ratio:0.1}")
+	private double retryBudgetRatio;
+
+	@Value("${api.service.retry.budget-min-retries:10}")
+	private int retryBudgetMinRetries;
+
+	@Value("${api.service.hedging.enabled:false}")
+	private boolean hedgingEnabled;
+
+	@Value("${api.service.hedging.min-delay-millis:50}")
+	private long hedgingMinDelayMillis;
+
+	@Value("${api.service.circuit-breaker.enabled:false}")
+	private boolean circuitBreakerEnabled;
+
+	@Value("${api.service.circuit-breaker.failure-threshold:5}")
+	private int circuitBreakerFailureThreshold;
+
+	@Value("${api.service.circuit-breaker.open-millis:10000}")
+	private long circuitBreakerOpenMillis;
+
+	@Value("${api.service.protocol.default:HTTP_2}")
+	private Protocol defaultProtocol;
+
+	@Value("${api.service.protocol.upstreams:}")
+	private String upstreamProtocols;
+
+	@Value("${api.service.protocol.max-concurrent-streams:0}")
+	private int maxConcurrentStreams;
+
+	@Value("${api.service.compression.enabled:false}")
+	private boolean compressionEnabled;
+
+	@Value("${api.service.compression.request-gzip:false}")
+	private boolean compressionRequestGzip;
+
+	@Value("${api.service.compression.request-min-bytes:" + Compression.DEFAULT_REQUEST_MIN_BYTES + "}")
+	private int compressionRequestMinBytes;
+
+	@Value("${api.service.refresh-ahead.jitter:" + RefreshAhead.DEFAULT_JITTER + "}")
+	private double refreshAheadJitter;
+
+	@Value("${api.example.employees.refresh-ahead-seconds:0}")
+	private long employeesRefreshAheadSeconds;
+
+	@Value("${api.service.rate-limit.enabled:false}")
+	private boolean rateLimitEnabled;
+
+	@Value("${api.service.rate-limit.requests-per-second:0}")
+	private double rateLimitRequestsPerSecond;
+
+	@Value("${api.service.rate-limit.burst:10}")
+	private int rateLimitBurst;
+
+	@Value("${api.service.rate-limit.credential-requests-per-second:0}")
+	private double rateLimitCredentialRequestsPerSecond;
+
+	@Value("${api.service.rate-limit.credential-burst:10}")
+	private int rateLimitCredentialBurst;
+
+	@Value("${api.service.rate-limit.max-wait-millis:0}")
+	private long rateLimitMaxWaitMillis;
+
+	@Value("${api.service.rate-limit.upstreams:}")
+	private String rateLimitUpstreams;
+
+	@Value("${api.service.replay.mode:OFF}")
+	private RecordReplay.Mode replayMode;
+
+	@Value("${api.service.replay.file:target/api-recording.bin}")
+	private String replayFile;
+
+	@Value("${api.service.replay.latency:NONE}")
+	private RecordReplay.Distribution replayLatency;
+
+	@Value("${api.service.replay.latency-median-millis:50}")
+	private double replayLatencyMedianMillis;
+
+	@Value("${api.service.replay.latency-spread:0.5}")
+	private double replayLatencySpread;
+
+	@Value("${api.service.ssl.profiles:}")
+	private String sslProfileNames;
+
+	@Value("${api.service.ssl.upstreams:}")
+	private String sslUpstreams;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Environment environment;
+
+	private ExecutorService clientExecutor;
+
+	public APIServiceConfiguration(MeterRegistry meterRegistry, Environment environment) {
+		this.meterRegistry = meterRegistry;
+		this.environment = environment;
+	}
+
+	@PostConstruct
+	public void init() {
+		HttpClientRegistry registry = HttpClientRegistry.getInstance();
+		registry.setMaxClients(maxClients);
+		ResponseCache.getInstance().configure(cacheEnabled, cacheMaxEntries, cacheTtlSeconds);
+		RequestCoalescer.getInstance().setEnabled(coalescingEnabled);
+		JSONUtil.setJSONProvider(jsonProvider);
+		APIMetrics.getInstance().setMeterRegistry(meterRegistry);
+		HostBulkheads.getInstance().configure(bulkheadEnabled,
+				new HostBulkhead.Settings(bulkheadInitialLimit, bulkheadMinLimit, bulkheadMaxLimit,
+						bulkheadBackoffRatio, bulkheadLatencyTolerance,
+						HostBulkhead.Settings.DEFAULT.minLatencyWindow()));
+		Compression.getInstance().configure(compressionEnabled, compressionRequestGzip, compressionRequestMinBytes);
+		UpstreamProtocols.getInstance().configure(defaultProtocol, UpstreamProtocols.parse(upstreamProtocols),
+				maxConcurrentStreams);
+		configureSSLProfiles();
+		RateLimiter.getInstance().configure(rateLimitEnabled,
+				new RateLimiter.Settings(rateLimitRequestsPerSecond, rateLimitBurst,
+						rateLimitCredentialRequestsPerSecond, rateLimitCredentialBurst, rateLimitMaxWaitMillis),
+				RateLimiter.parse(rateLimitUpstreams));
+		Resilience.getInstance().configure(
+				new Resilience.RetrySettings(retryMaxAttempts, retryInitialBackoffMillis, retryMaxBackoffMillis,
+						retryBudgetRatio, retryBudgetMinRetries),
+				new Resilience.HedgeSettings(hedgingEnabled, hedgingMinDelayMillis),
+				new Resilience.CircuitBreakerSettings(circuitBreakerEnabled, circuitBreakerFailureThreshold,
+						circuitBreakerOpenMillis));
+		try {
+			RecordReplay.getInstance().configure(replayMode, Path.of(replayFile),
+					new RecordReplay.Latency(replayLatency, replayLatencyMedianMillis, replayLatencySpread));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open recording " + replayFile, e);
+		}
+		if (executionMode == ExecutionMode.VIRTUAL) {
+			clientExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-client-", 0).factory());
+			registry.setDefaultExecutor(clientExecutor);
+		}
+		RefreshAhead.getInstance().setJitter(refreshAheadJitter);
+		if (employeesRefreshAheadSeconds > 0) {
+			RestAPIExample.enableRefreshAhead(employeesRefreshAheadSeconds);
+		}
+		if (employeeIndexRefreshSeconds > 0) {
+			EmployeeIndex.getInstance().start(employeeIndexRefreshSeconds);
+		}
+	}
+
+	/**
+	 * Builds the default SSL profile and the profiles listed in
+	 * 'api.service.ssl.profiles' from their 'api.service.ssl.profile.NAME.*'
+	 * properties, and assigns them to upstreams
+	 */
+	private void configureSSLProfiles() {
+		Map<String, SSLProfile> profiles = new HashMap<>();
+		profiles.put(SSLProfiles.DEFAULT_PROFILE, buildSSLProfile(SSLProfiles.DEFAULT_PROFILE));
+		for (String name : split(sslProfileNames)) {
+			profiles.putIfAbsent(name, buildSSLProfile(name));
+		}
+		Map<String, SSLProfile> hostProfiles = new HashMap<>();
+		SSLProfiles.parse(sslUpstreams).forEach((host, name) -> {
+			SSLProfile profile = profiles.get(name);
+			if (profile == null) {
+				throw new IllegalArgumentException("Unknown SSL profile '" + name + "' for upstream " + host);
+			}
+			hostProfiles.put(host, profile);
+		});
+		SSLProfiles.getInstance().configure(profiles.get(SSLProfiles.DEFAULT_PROFILE), hostProfiles);
+	}
+
+	private SSLProfile buildSSLProfile(String name) {
+		String prefix = "api.service.ssl.profile." + name + ".";
+		return SSLProfile.build(name, new SSLProfile.Settings(
+				environment.getProperty(prefix + "trust-all", Boolean.class, false),
+				environment.getProperty(prefix + "truststore"), environment.getProperty(prefix + "truststore-password"),
+				environment.getProperty(prefix + "truststore-type"), environment.getProperty(prefix + "keystore"),
+				environment.getProperty(prefix + "keystore-password"), environment.getProperty(prefix + "keystore-type"),
+				split(environment.getProperty(prefix + "protocols")),
+				split(environment.getProperty(prefix + "cipher-suites")),
+				environment.getProperty(prefix + "session-cache-size", Integer.class, 0),
+				environment.getProperty(prefix + "session-timeout-seconds", Integer.class, 0)));
+	}
+
+	private static List<String> split(String values) {
+		if (values == null || values.isBlank()) {
+			return List.of();
+		}
+		return Arrays.stream(values.split(",")).map(String::trim).filter(value -> !value.isEmpty()).toList();
+	}
+
+	/**
+	 * Runs servlet requests on virtual threads instead of the Tomcat worker pool
+	 * when {@link ExecutionMode#VIRTUAL} is selected
+	 * 
+	 * @return {@link TomcatProtocolHandlerCustomizer}
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "api.service.execution-mode", havingValue = "VIRTUAL")
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+		return protocolHandler -> protocolHandler.setExecutor(
+				Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-request-", 0).factory()));
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		APIMetrics.getInstance().setMeterRegistry(null);
+		EmployeeIndex.getInstance().stop();
+		RefreshAhead.getInstance().clear();
+		RecordReplay.getInstance().close();
+		HttpClientRegistry.getInstance().shutdown();
+		ResponseCache.getInstance().clear();
+		if (clientExecutor != null) {
+			clientExecutor.shutdown();
+		}
+	}
+
+}
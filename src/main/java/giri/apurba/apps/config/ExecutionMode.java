@@ -0,0 +1,24 @@
+package giri.apurba.apps.config;
+
+/**
+ * Thread model used for servlet requests and outbound {@link java.net.http.HttpClient}
+ * calls
+ *
+ * @author AGIRI6
+ *
+ */
+public enum ExecutionMode {
+
+	/**
+	 * Pooled platform threads (Tomcat worker pool and HttpClient default
+	 * executor)
+	 */
+	PLATFORM,
+
+	/**
+	 * A new virtual thread per task, so blocking upstream calls don't hold OS
+	 * threads
+	 */
+	VIRTUAL
+
+}
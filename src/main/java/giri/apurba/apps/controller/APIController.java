@@ -1,13 +1,24 @@
 package giri.apurba.apps.controller;
 
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import giri.apurba.apps.entities.Greeting;
 import giri.apurba.apps.model.HttpErrorResponse;
+import giri.apurba.apps.service.api.EmployeeStream;
+import giri.apurba.apps.service.api.EmployeeStream.Format;
 import giri.apurba.apps.service.api.RestAPIExample;
 
 @RestController
@@ -21,14 +32,72 @@ public class APIController {
 		return new Greeting(counter.incrementAndGet(), String.format(template, name));
 	}
 
+	/**
+	 * Returns the employee list, decoded from upstream into
+	 * {@link giri.apurba.apps.entities.EmployeeList}
+	 * 
+	 * @return Employee list, or the error
+	 */
 	@GetMapping(value = "/employees", produces = "application/json")
-	public String employees() {
-		return RestAPIExample.getEmployees();
+	public CompletableFuture<ResponseEntity<?>> employees() {
+		return RestAPIExample.getEmployeeListAsync().thenApply(APIController::toResponseEntity);
 	}
 	
+	/**
+	 * Streams the employee list to the client while it is read from upstream
+	 * 
+	 * @param format - NDJSON, JSON_ARRAY or SSE
+	 * @param fields - Comma separated employee fields to return (e.g.
+	 *               'id,employee_name'), all fields if not set
+	 * @param filter - Comma separated 'field:value' conditions employees must
+	 *               match (e.g. 'employee_age:61')
+	 * 
+	 * @return Streamed employees, or the upstream error
+	 */
+	@GetMapping(value = "/employees/stream")
+	public ResponseEntity<StreamingResponseBody> employeesStream(
+			@RequestParam(value = "format", defaultValue = "NDJSON") Format format,
+			@RequestParam(value = "fields", required = false) String fields,
+			@RequestParam(value = "filter", required = false) String filter) {
+		Set<String> projection;
+		Map<String, String> matches;
+		try {
+			projection = EmployeeStream.parseFields(fields);
+			matches = EmployeeStream.parseFilter(filter);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+					.body(out -> out.write(new HttpErrorResponse(400, e.getMessage()).body().getBytes(StandardCharsets.UTF_8)));
+		}
+		HttpResponse<InputStream> upstream = RestAPIExample.streamEmployees();
+		if (upstream.statusCode() != 200) {
+			return ResponseEntity.status(upstream.statusCode()).contentType(MediaType.APPLICATION_JSON).body(out -> {
+				try (InputStream body = upstream.body()) {
+					body.transferTo(out);
+				}
+			});
+		}
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(format.mediaType()))
+				.body(out -> EmployeeStream.write(upstream.body(), format, projection, matches, out));
+	}
+
 	@GetMapping(value = "/employee", produces = "application/json")
-	public String employee(@RequestParam(value = "id") String id) {
-		return RestAPIExample.getEmployeeById(id);
+	public CompletableFuture<ResponseEntity<?>> employee(@RequestParam(value = "id") String id) {
+		return RestAPIExample.getEmployeeByIdAsync(id).thenApply(APIController::toResponseEntity);
+	}
+
+	/**
+	 * Returns the typed body of a response, or its error JSON if it has no body
+	 * 
+	 * @param response
+	 * 
+	 * @return {@link ResponseEntity}
+	 */
+	private static ResponseEntity<?> toResponseEntity(HttpResponse<?> response) {
+		if (response.body() != null) {
+			return ResponseEntity.status(response.statusCode()).body(response.body());
+		}
+		HttpErrorResponse error = HttpErrorResponse.from(response);
+		return ResponseEntity.status(error.statusCode()).contentType(MediaType.APPLICATION_JSON).body(error.body());
 	}
 	
 }
@@ -0,0 +1,21 @@
+package giri.apurba.apps.entities;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Employee of the upstream employees API. JSON names are kept as upstream
+ * sends them, so an employee is written back in the same shape.
+ *
+ * @param id
+ * @param name
+ * @param salary
+ * @param age
+ * @param profileImage
+ *
+ * @author AGIRI6
+ *
+ */
+public record Employee(@JsonProperty("id") long id, @JsonProperty("employee_name") String name,
+		@JsonProperty("employee_salary") long salary, @JsonProperty("employee_age") int age,
+		@JsonProperty("profile_image") String profileImage) {
+}
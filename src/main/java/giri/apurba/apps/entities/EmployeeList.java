@@ -0,0 +1,16 @@
+package giri.apurba.apps.entities;
+
+import java.util.List;
+
+/**
+ * Response of the upstream employees API
+ *
+ * @param status  - e.g. 'success'
+ * @param data    - Employees
+ * @param message
+ *
+ * @author AGIRI6
+ *
+ */
+public record EmployeeList(String status, List<Employee> data, String message) {
+}
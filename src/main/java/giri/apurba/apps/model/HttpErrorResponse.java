@@ -1,29 +1,259 @@
 package giri.apurba.apps.model;
 
+import java.io.IOException;
+import java.net.ConnectException;
 import java.net.URI;
+import java.net.UnknownHostException;
 import java.net.http.HttpClient.Version;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
+import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSession;
 
+/**
+ * Response returned in place of an upstream response when a call failed or was
+ * rejected before being sent. Errors are classified by {@link Category} and
+ * carry the request and the time it took to fail, so that failures can be
+ * diagnosed. JSON bodies are built once per distinct category and message and
+ * shared, so that an upstream outage, where every call fails the same way,
+ * doesn't build a new body per call.
+ */
 public class HttpErrorResponse implements HttpResponse<String> {
 
-	private int statusCode = 500;
-	private String errorMessage = "Something went wrong while processing the request";
+	/**
+	 * Kind of failure
+	 */
+	public static enum Category {
+		/**
+		 * Upstream or local rejection with an HTTP status
+		 */
+		HTTP_STATUS(500, "Something went wrong while processing the request"),
+		/**
+		 * Request timed out waiting for the response
+		 */
+		TIMEOUT(504, "Request timed out"),
+		/**
+		 * Connection to the upstream couldn't be established
+		 */
+		CONNECT(502, "Unable to connect to upstream"),
+		/**
+		 * Upstream host name couldn't be resolved
+		 */
+		DNS(502, "Unable to resolve upstream host"),
+		/**
+		 * TLS handshake or certificate validation failed
+		 */
+		TLS(502, "TLS handshake with upstream failed"),
+		/**
+		 * Connection failed while the request or response was transferred
+		 */
+		IO(502, "I/O error while calling upstream"),
+		/**
+		 * Calling thread was interrupted
+		 */
+		INTERRUPTED(500, "Request was interrupted"),
+		/**
+		 * Call was cancelled
+		 */
+		CANCELLED(500, "Request was cancelled"),
+		/**
+		 * Any other failure
+		 */
+		INTERNAL(500, "Something went wrong while processing the request");
+
+		private final int statusCode;
+		private final String defaultMessage;
+
+		private Category(int statusCode, String defaultMessage) {
+			this.statusCode = statusCode;
+			this.defaultMessage = defaultMessage;
+		}
+
+		public int statusCode() {
+			return statusCode;
+		}
+
+		public String defaultMessage() {
+			return defaultMessage;
+		}
+	};
+
+	private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Map.of(), (name, value) -> true);
+
+	/**
+	 * Maximum number of shared bodies; bodies of further messages are built per
+	 * error
+	 */
+	private static final int MAX_SHARED_BODIES = 1024;
+
+	private static record BodyKey(Category category, String errorMessage) {
+	}
+
+	private static final ConcurrentHashMap<BodyKey, String> SHARED_BODIES = new ConcurrentHashMap<>();
+
+	private final int statusCode;
+	private final Category category;
+	private final String errorMessage;
+	private final Throwable cause;
+	private final HttpRequest request;
+	private final long elapsedNanos;
+	private String body;
 
 	public HttpErrorResponse(String errorMessage) {
-		this.errorMessage = errorMessage;
+		this(Category.HTTP_STATUS.statusCode(), errorMessage);
+	}
+
+	public HttpErrorResponse(Throwable cause) {
+		this(cause, null, 0);
+	}
+
+	/**
+	 * Error of a failed call
+	 *
+	 * @param cause      - Failure of the call
+	 * @param request    - Request that failed (null if it couldn't be built)
+	 * @param startNanos - {@link System#nanoTime()} when the call started (0 if
+	 *                   unknown)
+	 */
+	public HttpErrorResponse(Throwable cause, HttpRequest request, long startNanos) {
+		this.cause = unwrap(cause);
+		this.category = categorize(this.cause);
+		this.statusCode = category.statusCode();
+		this.errorMessage = this.cause != null ? this.cause.getMessage() : null;
+		this.request = request;
+		this.elapsedNanos = startNanos != 0 ? System.nanoTime() - startNanos : -1;
 	}
 
 	public HttpErrorResponse(int statusCode, String errorMessage) {
+		this(statusCode, errorMessage, null);
+	}
+
+	/**
+	 * Error with an HTTP status, e.g. a call rejected before being sent
+	 *
+	 * @param statusCode   - HTTP status
+	 * @param errorMessage - Message
+	 * @param request      - Request that was rejected (null if none)
+	 */
+	public HttpErrorResponse(int statusCode, String errorMessage, HttpRequest request) {
 		this.statusCode = statusCode;
+		this.category = Category.HTTP_STATUS;
 		this.errorMessage = errorMessage;
+		this.cause = null;
+		this.request = request;
+		this.elapsedNanos = -1;
+	}
+
+	public HttpErrorResponse() {
+		this(Category.HTTP_STATUS.statusCode(), null);
+	}
+
+	/**
+	 * Returns the failure that caused this error
+	 *
+	 * @return {@link Throwable} or null if the error wasn't caused by an
+	 *         exception
+	 */
+	public Throwable getCause() {
+		return cause;
+	}
+
+	/**
+	 * Returns the kind of failure
+	 *
+	 * @return {@link Category}
+	 */
+	public Category getCategory() {
+		return category;
+	}
+
+	/**
+	 * Returns the error message
+	 *
+	 * @return Message, or the default message of the {@link Category} if there
+	 *         is none
+	 */
+	public String getErrorMessage() {
+		return errorMessage != null ? errorMessage : category.defaultMessage();
+	}
+
+	/**
+	 * Returns how long the call took to fail
+	 *
+	 * @return Elapsed nanoseconds, or -1 if unknown
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Classifies a failure
+	 *
+	 * @param failure
+	 *
+	 * @return {@link Category}
+	 */
+	public static Category categorize(Throwable failure) {
+		Throwable cause = unwrap(failure);
+		if (cause == null) {
+			return Category.INTERNAL;
+		}
+		if (isUnresolvedHost(cause)) {
+			return Category.DNS;
+		}
+		if (cause instanceof HttpConnectTimeoutException || cause instanceof ConnectException) {
+			return Category.CONNECT;
+		}
+		if (cause instanceof HttpTimeoutException) {
+			return Category.TIMEOUT;
+		}
+		if (cause instanceof SSLException) {
+			return Category.TLS;
+		}
+		if (cause instanceof InterruptedException) {
+			return Category.INTERRUPTED;
+		}
+		if (cause instanceof CancellationException) {
+			return Category.CANCELLED;
+		}
+		if (cause instanceof IOException) {
+			return Category.IO;
+		}
+		return Category.INTERNAL;
+	}
+
+	private static boolean isUnresolvedHost(Throwable failure) {
+		for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+			if (cause instanceof UnresolvedAddressException || cause instanceof UnknownHostException) {
+				return true;
+			}
+			if (cause.getCause() == cause) {
+				break;
+			}
+		}
+		return false;
+	}
+
+	private static Throwable unwrap(Throwable failure) {
+		Throwable cause = failure;
+		while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+				&& cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause;
 	}
-	
-	public HttpErrorResponse() {}
 
 	@Override
 	public int statusCode() {
@@ -32,42 +262,128 @@ public class HttpErrorResponse implements HttpResponse<String> {
 
 	@Override
 	public HttpRequest request() {
-		return null;
+		return request;
 	}
 
 	@Override
 	public Optional<HttpResponse<String>> previousResponse() {
-		// TODO Auto-generated method stub
 		return Optional.empty();
 	}
 
 	@Override
 	public HttpHeaders headers() {
-		// TODO Auto-generated method stub
-		return null;
+		return NO_HEADERS;
 	}
 
 	@Override
 	public String body() {
-		return "{\"error\": \"" + errorMessage + "\"}";
+		String json = body;
+		if (json == null) {
+			BodyKey key = new BodyKey(category, errorMessage);
+			json = SHARED_BODIES.get(key);
+			if (json == null) {
+				json = toJSON(category, getErrorMessage());
+				if (SHARED_BODIES.size() < MAX_SHARED_BODIES) {
+					SHARED_BODIES.putIfAbsent(key, json);
+				}
+			}
+			body = json;
+		}
+		return json;
+	}
+
+	private static String toJSON(Category category, String errorMessage) {
+		StringBuilder json = new StringBuilder(errorMessage.length() + 48).append("{\"error\": \"");
+		escape(errorMessage, json);
+		json.append('"');
+		if (category != Category.HTTP_STATUS) {
+			json.append(", \"category\": \"").append(category.name()).append('"');
+		}
+		return json.append('}').toString();
+	}
+
+	/**
+	 * Appends given text as JSON string content
+	 */
+	private static void escape(String text, StringBuilder json) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+			case '"' -> json.append("\\\"");
+			case '\\' -> json.append("\\\\");
+			case '\n' -> json.append("\\n");
+			case '\r' -> json.append("\\r");
+			case '\t' -> json.append("\\t");
+			case '\b' -> json.append("\\b");
+			case '\f' -> json.append("\\f");
+			default -> {
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+			}
+		}
 	}
 
 	@Override
 	public Optional<SSLSession> sslSession() {
-		// TODO Auto-generated method stub
 		return Optional.empty();
 	}
 
 	@Override
 	public URI uri() {
-		// TODO Auto-generated method stub
-		return null;
+		return request != null ? request.uri() : null;
 	}
 
 	@Override
 	public Version version() {
-		// TODO Auto-generated method stub
-		return null;
+		return request != null ? request.version().orElse(null) : null;
 	}
-	
+
+	/**
+	 * Returns this error as a response with a different body type (e.g. an
+	 * {@link java.io.InputStream} for streaming calls)
+	 *
+	 * @param <T>        Body type
+	 * @param bodyMapper - Converts the error JSON to the body type
+	 *
+	 * @return {@link HttpResponse} with mapped body
+	 */
+	public <T> HttpResponse<T> mapBody(Function<String, T> bodyMapper) {
+		return MappedResponse.of(this, bodyMapper.apply(body()));
+	}
+
+	/**
+	 * Returns the error of a response that has no usable body, e.g. a typed
+	 * response whose body couldn't be decoded. The body of an upstream error
+	 * status is passed through as received.
+	 *
+	 * @param response
+	 *
+	 * @return {@link HttpErrorResponse} the response was mapped from, or a new
+	 *         error with the status of the response
+	 */
+	public static HttpErrorResponse from(HttpResponse<?> response) {
+		if (response instanceof HttpErrorResponse error) {
+			return error;
+		}
+		if (response instanceof MappedResponse<?> mapped && mapped.source() instanceof HttpErrorResponse error) {
+			return error;
+		}
+		if (response.statusCode() >= 400) {
+			HttpErrorResponse error = new HttpErrorResponse(response.statusCode(),
+					"Upstream responded with status " + response.statusCode(), response.request());
+			Object upstreamBody = response instanceof MappedResponse<?> mapped && mapped.source() != null
+					? mapped.source().body()
+					: response.body();
+			if (upstreamBody instanceof String text && !text.isEmpty()) {
+				error.body = text;
+			}
+			return error;
+		}
+		return new HttpErrorResponse(Category.INTERNAL.statusCode(), null, response.request());
+	}
+
 }
@@ -0,0 +1,111 @@
+package giri.apurba.apps.model;
+
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * Response with the status, headers and request of another response but a
+ * different body, e.g. an upstream JSON response decoded into a record
+ *
+ * @param <T> Body type
+ *
+ * @author AGIRI6
+ *
+ */
+public final class MappedResponse<T> implements HttpResponse<T> {
+
+	private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Map.of(), (name, value) -> true);
+
+	private final int statusCode;
+	private final HttpResponse<?> source;
+	private final T body;
+
+	private MappedResponse(int statusCode, HttpResponse<?> source, T body) {
+		this.statusCode = statusCode;
+		this.source = source;
+		this.body = body;
+	}
+
+	/**
+	 * Returns given response with a different body
+	 *
+	 * @param <T>    Body type
+	 * @param source - Response the body was mapped from
+	 * @param body   - Mapped body
+	 *
+	 * @return {@link MappedResponse}
+	 */
+	public static <T> MappedResponse<T> of(HttpResponse<?> source, T body) {
+		return new MappedResponse<>(source.statusCode(), source, body);
+	}
+
+	/**
+	 * Returns a 200 response of a body that wasn't received from upstream, e.g.
+	 * served from a local index
+	 *
+	 * @param <T>  Body type
+	 * @param body
+	 *
+	 * @return {@link MappedResponse}
+	 */
+	public static <T> MappedResponse<T> ok(T body) {
+		return new MappedResponse<>(200, null, body);
+	}
+
+	/**
+	 * Returns the response the body was mapped from
+	 *
+	 * @return {@link HttpResponse}, or null if there is none
+	 */
+	public HttpResponse<?> source() {
+		return source;
+	}
+
+	@Override
+	public int statusCode() {
+		return statusCode;
+	}
+
+	@Override
+	public HttpRequest request() {
+		return source != null ? source.request() : null;
+	}
+
+	@Override
+	public Optional<HttpResponse<T>> previousResponse() {
+		return Optional.empty();
+	}
+
+	@Override
+	public HttpHeaders headers() {
+		return source != null ? source.headers() : NO_HEADERS;
+	}
+
+	@Override
+	public T body() {
+		return body;
+	}
+
+	@Override
+	public Optional<SSLSession> sslSession() {
+		return source != null ? source.sslSession() : Optional.empty();
+	}
+
+	@Override
+	public URI uri() {
+		return source != null ? source.uri() : null;
+	}
+
+	@Override
+	public Version version() {
+		return source != null ? source.version() : null;
+	}
+
+}
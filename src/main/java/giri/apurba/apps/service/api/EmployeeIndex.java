@@ -0,0 +1,178 @@
+package giri.apurba.apps.service.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import giri.apurba.apps.entities.Employee;
+import giri.apurba.apps.entities.EmployeeList;
+import giri.apurba.apps.util.JSONUtil;
+import giri.apurba.apps.util.LongObjectHashMap;
+
+/**
+ * In-memory index of employees keyed by id, refreshed from the upstream
+ * employee list. Lookups are O(1) and don't need an upstream call.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class EmployeeIndex {
+
+	private static final EmployeeIndex INSTANCE = new EmployeeIndex();
+
+	private volatile LongObjectHashMap<Employee> employees;
+	private ScheduledExecutorService scheduler;
+
+	private EmployeeIndex() {
+	}
+
+	/**
+	 * Builds a new index snapshot, reusing unchanged employees from the current
+	 * snapshot
+	 */
+	private final class IndexBuilder implements Consumer<Employee> {
+
+		private final LongObjectHashMap<Employee> previous = employees;
+		private final LongObjectHashMap<Employee> index;
+
+		IndexBuilder(int expectedSize) {
+			index = new LongObjectHashMap<>(expectedSize);
+		}
+
+		@Override
+		public void accept(Employee employee) {
+			if (employee != null) {
+				Employee existing = previous != null ? previous.get(employee.id()) : null;
+				index.put(employee.id(), employee.equals(existing) ? existing : employee);
+			}
+		}
+	}
+
+	/**
+	 * Returns the shared index instance
+	 *
+	 * @return {@link EmployeeIndex}
+	 */
+	public static EmployeeIndex getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns true once the index has been loaded from upstream
+	 *
+	 * @return true if loaded
+	 */
+	public boolean isLoaded() {
+		return employees != null;
+	}
+
+	/**
+	 * Returns the employee with given id
+	 *
+	 * @param id
+	 * @return {@link Employee} or null if not found (or not loaded)
+	 */
+	public Employee get(long id) {
+		LongObjectHashMap<Employee> snapshot = employees;
+		return snapshot != null ? snapshot.get(id) : null;
+	}
+
+	/**
+	 * Rebuilds the index from an upstream employee list response. Employees that
+	 * didn't change reuse their previous instance. The index is left untouched
+	 * if the response isn't a valid employee list.
+	 *
+	 * @param response - Typed response of the employees API
+	 * @return true if the index was updated
+	 */
+	public boolean update(HttpResponse<EmployeeList> response) {
+		return response.statusCode() == 200 && update(response.body());
+	}
+
+	/**
+	 * Rebuilds the index from an employee list
+	 *
+	 * @param employeeList - Decoded employee list (null if it couldn't be
+	 *                     decoded)
+	 * @return true if the index was updated
+	 */
+	public boolean update(EmployeeList employeeList) {
+		if (employeeList == null || employeeList.data() == null) {
+			return false;
+		}
+		IndexBuilder builder = new IndexBuilder(employeeList.data().size());
+		employeeList.data().forEach(builder);
+		employees = builder.index;
+		return true;
+	}
+
+	/**
+	 * Rebuilds the index from a streamed upstream employee list response, one
+	 * employee at a time, without holding the whole response in memory.
+	 *
+	 * @param response - Streamed response of the employees API, closed by this
+	 *                 method
+	 * @return true if the index was updated
+	 */
+	public boolean updateFromStream(HttpResponse<InputStream> response) {
+		if (response.statusCode() != 200) {
+			try {
+				response.body().close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			return false;
+		}
+		IndexBuilder builder = new IndexBuilder(employees != null ? employees.size() : 16);
+		if (JSONUtil.forEachArrayElement(response.body(), "$.data[*]", Employee.class, builder) < 0) {
+			return false;
+		}
+		employees = builder.index;
+		return true;
+	}
+
+	/**
+	 * Loads the index from upstream, streaming the employee list
+	 *
+	 * @return true if the index was updated
+	 */
+	public boolean refresh() {
+		return updateFromStream(RestAPIExample.streamEmployees());
+	}
+
+	/**
+	 * Starts refreshing the index in background at a fixed interval
+	 *
+	 * @param refreshSeconds - Interval between refreshes
+	 */
+	public synchronized void start(long refreshSeconds) {
+		if (scheduler != null) {
+			return;
+		}
+		scheduler = Executors
+				.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("employee-index").factory());
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				refresh();
+			} catch (RuntimeException e) {
+				// keep serving the previous snapshot and retry on next run
+				e.printStackTrace();
+			}
+		}, 0, refreshSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stops background refreshes
+	 */
+	public synchronized void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+}
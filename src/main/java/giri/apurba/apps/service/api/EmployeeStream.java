@@ -0,0 +1,202 @@
+package giri.apurba.apps.service.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import giri.apurba.apps.util.JSONUtil;
+
+/**
+ * Forwards the upstream employee list to a client as the employees are parsed
+ * from the upstream stream. Employees are written with blocking writes, so the
+ * upstream is read only as fast as the client consumes the output and at most
+ * one employee is held in memory at a time.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class EmployeeStream {
+
+	private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] ARRAY_START = "[".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] ARRAY_SEPARATOR = ",".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] ARRAY_END = "]".getBytes(StandardCharsets.UTF_8);
+
+	/**
+	 * Output format of the stream
+	 */
+	public static enum Format {
+		/**
+		 * Newline delimited JSON, one employee per line
+		 */
+		NDJSON("application/x-ndjson"),
+		/**
+		 * A single JSON array, sent in chunks
+		 */
+		JSON_ARRAY("application/json"),
+		/**
+		 * Server-Sent Events, one 'employee' event per employee followed by an
+		 * 'end' event
+		 */
+		SSE("text/event-stream");
+
+		private final String mediaType;
+
+		private Format(String mediaType) {
+			this.mediaType = mediaType;
+		}
+
+		public String mediaType() {
+			return mediaType;
+		}
+	};
+
+	private EmployeeStream() {
+	}
+
+	/**
+	 * Writes the employees of an upstream employee list response. The output is
+	 * flushed after the first employee, so that clients see data right away, and
+	 * after every event for {@link Format#SSE}. If the upstream body turns out not
+	 * to be a valid employee list, an SSE stream ends with an 'error' event and
+	 * other formats are aborted with an {@link IOException}, as the response
+	 * status has already been sent.
+	 *
+	 * @param upstream - Upstream employee list, closed by this method
+	 * @param format   - Output format
+	 * @param fields   - Employee fields to write (null or empty for all)
+	 * @param matches  - Field values an employee must have to be written (null or
+	 *                 empty for all)
+	 * @param out      - Client output stream
+	 *
+	 * @return Number of employees written
+	 *
+	 * @throws IOException if the client went away or the upstream body is invalid
+	 */
+	public static long write(InputStream upstream, Format format, Set<String> fields, Map<String, String> matches,
+			OutputStream out) throws IOException {
+		if (format == Format.JSON_ARRAY) {
+			out.write(ARRAY_START);
+		}
+		long count;
+		try {
+			count = JSONUtil.forEachArrayElement(upstream, "$.data[*]", fields, matches,
+					new EmployeeWriter(format, out));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		if (count < 0) {
+			if (format != Format.SSE) {
+				throw new IOException("Upstream employee list is not valid");
+			}
+			out.write(event("error", null, "{\"error\": \"Upstream employee list is not valid\"}"));
+		} else if (format == Format.JSON_ARRAY) {
+			out.write(ARRAY_END);
+		} else if (format == Format.SSE) {
+			out.write(event("end", null, "{\"count\": " + count + "}"));
+		}
+		out.flush();
+		return count;
+	}
+
+	/**
+	 * Parses a comma separated list of fields, e.g. 'id,employee_name'
+	 *
+	 * @param fields
+	 *
+	 * @return Field names (empty for all fields)
+	 *
+	 * @throws IllegalArgumentException if a field is repeated
+	 */
+	public static Set<String> parseFields(String fields) {
+		if (fields == null || fields.isBlank()) {
+			return Set.of();
+		}
+		return Set.of(fields.trim().split("\\s*,\\s*"));
+	}
+
+	/**
+	 * Parses a comma separated list of 'field:value' conditions, e.g.
+	 * 'employee_age:61'
+	 *
+	 * @param filter
+	 *
+	 * @return Required field values (empty for no filter)
+	 *
+	 * @throws IllegalArgumentException if a condition is invalid or a field is
+	 *                                  repeated
+	 */
+	public static Map<String, String> parseFilter(String filter) {
+		if (filter == null || filter.isBlank()) {
+			return Map.of();
+		}
+		Map<String, String> matches = new HashMap<>();
+		for (String condition : filter.trim().split("\\s*,\\s*")) {
+			int separator = condition.indexOf(':');
+			if (separator <= 0) {
+				throw new IllegalArgumentException("Filter condition must be 'field:value': " + condition);
+			}
+			String field = condition.substring(0, separator);
+			if (matches.putIfAbsent(field, condition.substring(separator + 1)) != null) {
+				throw new IllegalArgumentException("Duplicate filter field: " + field);
+			}
+		}
+		return Map.copyOf(matches);
+	}
+
+	private static byte[] event(String name, String id, String data) {
+		StringBuilder event = new StringBuilder(data.length() + 32);
+		if (id != null) {
+			event.append("id: ").append(id).append('\n');
+		}
+		event.append("event: ").append(name).append('\n').append("data: ").append(data).append("\n\n");
+		return event.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes streamed employees in the requested format
+	 */
+	private static final class EmployeeWriter implements Consumer<String> {
+
+		private final Format format;
+		private final OutputStream out;
+		private long count;
+
+		private EmployeeWriter(Format format, OutputStream out) {
+			this.format = format;
+			this.out = out;
+		}
+
+		@Override
+		public void accept(String employee) {
+			try {
+				switch (format) {
+				case NDJSON -> {
+					out.write(employee.getBytes(StandardCharsets.UTF_8));
+					out.write(NEWLINE);
+				}
+				case JSON_ARRAY -> {
+					if (count > 0) {
+						out.write(ARRAY_SEPARATOR);
+					}
+					out.write(employee.getBytes(StandardCharsets.UTF_8));
+				}
+				case SSE -> out.write(event("employee", Long.toString(count + 1), employee));
+				}
+				if (count == 0 || format == Format.SSE) {
+					out.flush();
+				}
+				count++;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+}
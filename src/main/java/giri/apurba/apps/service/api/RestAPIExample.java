@@ -1,40 +1,158 @@
 package giri.apurba.apps.service.api;
 
-import java.util.ArrayList;
-import java.util.stream.Collectors;
-
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
 
+import giri.apurba.apps.entities.Employee;
+import giri.apurba.apps.entities.EmployeeList;
 import giri.apurba.apps.model.HttpErrorResponse;
+import giri.apurba.apps.model.MappedResponse;
+import giri.apurba.apps.service.core.APIRequest;
 import giri.apurba.apps.service.core.APIService;
+import giri.apurba.apps.service.core.EndpointTemplate;
+import giri.apurba.apps.service.core.RefreshAhead;
 import giri.apurba.apps.util.JSONUtil;
 
 public class RestAPIExample {
 
-	private static String BASE_SERVICE_URL = "https://dummy.restapiexample.com/api/v1/{apiResourceName}";
+	private static final String BASE_SERVICE_URL = "https://dummy.restapiexample.com/api/v1/{apiResourceName}";
+
+	private static final EndpointTemplate API_RESOURCE = EndpointTemplate.newBuilder(BASE_SERVICE_URL).build();
+
+	private static final String EMPLOYEES_RESOURCE = "employees";
+
+	private static final HttpResponse<Employee> EMPLOYEE_ID_REQUIRED = new HttpErrorResponse(400,
+			"Employee id required").mapBody(body -> null);
+	private static final HttpResponse<Employee> EMPLOYEE_ID_NOT_FOUND = new HttpErrorResponse(404,
+			"Employee id not found").mapBody(body -> null);
+
+	/**
+	 * Last decoded employee list, so that a response served again (by
+	 * {@link RefreshAhead} or the response cache) is decoded once rather than
+	 * per request
+	 */
+	private static volatile MappedResponse<EmployeeList> lastDecoded;
+
+	/**
+	 * Serves the employee list from {@link RefreshAhead}, refreshing it in the
+	 * background instead of calling upstream on the request path
+	 *
+	 * @param refreshSeconds - Refresh interval
+	 */
+	public static void enableRefreshAhead(long refreshSeconds) {
+		RefreshAhead.getInstance().register(EMPLOYEES_RESOURCE, APIRequest.get(API_RESOURCE.expand("employees")),
+				refreshSeconds);
+	}
 
 	public static String getEmployees() {
-		APIService apiService = new APIService();
-		var response = apiService.invokeAPI(BASE_SERVICE_URL.replace("{apiResourceName}", "employees"));
-		return response.body();
+		return fetchEmployees().body();
+	}
+
+	public static CompletableFuture<String> getEmployeesAsync() {
+		return fetchEmployeesAsync().thenApply(HttpResponse::body);
+	}
+
+	/**
+	 * Returns the employee list decoded into {@link EmployeeList}. The list is
+	 * fetched like {@link #getEmployees()}, so it is cached, coalesced and
+	 * retried the same way.
+	 *
+	 * @return Typed response, see {@link HttpErrorResponse#from} if the body is
+	 *         null
+	 */
+	public static HttpResponse<EmployeeList> getEmployeeList() {
+		return decode(fetchEmployees());
+	}
+
+	public static CompletableFuture<HttpResponse<EmployeeList>> getEmployeeListAsync() {
+		return fetchEmployeesAsync().thenApply(RestAPIExample::decode);
+	}
+
+	/**
+	 * Returns the employee with given id from {@link EmployeeIndex}, loading the
+	 * index first if needed
+	 *
+	 * @param id
+	 * @return Typed response, see {@link HttpErrorResponse#from} if the body is
+	 *         null
+	 */
+	public static HttpResponse<Employee> getEmployeeById(String id) {
+		if (id == null || id.trim().isEmpty()) {
+			return EMPLOYEE_ID_REQUIRED;
+		}
+		EmployeeIndex index = EmployeeIndex.getInstance();
+		if (!index.isLoaded()) {
+			HttpResponse<EmployeeList> response = getEmployeeList();
+			if (!index.update(response)) {
+				return HttpErrorResponse.from(response).mapBody(body -> null);
+			}
+		}
+		return findEmployee(index, id);
 	}
 
-	public static String getEmployeeById(String id) {
+	public static CompletableFuture<HttpResponse<Employee>> getEmployeeByIdAsync(String id) {
 		if (id == null || id.trim().isEmpty()) {
-			return new HttpErrorResponse("Employee id required").body();
+			return CompletableFuture.completedFuture(EMPLOYEE_ID_REQUIRED);
+		}
+		EmployeeIndex index = EmployeeIndex.getInstance();
+		if (index.isLoaded()) {
+			return CompletableFuture.completedFuture(findEmployee(index, id));
+		}
+		return getEmployeeListAsync().thenApply(response -> index.update(response) ? findEmployee(index, id)
+				: HttpErrorResponse.from(response).mapBody(body -> null));
+	}
+
+	static HttpResponse<String> fetchEmployees() {
+		HttpResponse<String> refreshed = RefreshAhead.getInstance().get(EMPLOYEES_RESOURCE);
+		if (refreshed != null) {
+			return refreshed;
 		}
 		APIService apiService = new APIService();
-		var response = apiService.invokeAPI(BASE_SERVICE_URL.replace("{apiResourceName}", "employees"));
-		JSONObject responseObj = JSONUtil.getJSONObject(response.body());
+		return apiService.invokeAPI(API_RESOURCE, "employees");
+	}
 
-		ArrayList<JSONObject> filteredObj = (ArrayList<JSONObject>) (((JSONArray) responseObj.get("data")).stream()
-				.filter(emp -> ((JSONObject) emp).get("id") == Long.valueOf(id)).collect(Collectors.toList()));
-		if (filteredObj.size() > 0) {
-			return filteredObj.get(0).toJSONString();
-		} else {
-			return new HttpErrorResponse(404, "Employee id not found").body();
+	static CompletableFuture<HttpResponse<String>> fetchEmployeesAsync() {
+		CompletableFuture<HttpResponse<String>> refreshed = RefreshAhead.getInstance().getAsync(EMPLOYEES_RESOURCE);
+		if (refreshed != null) {
+			return refreshed;
+		}
+		APIService apiService = new APIService();
+		return apiService.invokeAPIAsync(API_RESOURCE, "employees");
+	}
+
+	public static HttpResponse<InputStream> streamEmployees() {
+		APIService apiService = new APIService();
+		return apiService.invokeAPIStream(API_RESOURCE, "employees");
+	}
+
+	private static HttpResponse<EmployeeList> decode(HttpResponse<String> response) {
+		MappedResponse<EmployeeList> decoded = lastDecoded;
+		if (decoded != null && decoded.source() == response) {
+			return decoded;
+		}
+		EmployeeList employees = response.statusCode() == 200
+				? JSONUtil.readValue(response.body(), EmployeeList.class)
+				: null;
+		if (employees == null) {
+			return HttpErrorResponse.from(response).mapBody(body -> null);
 		}
+		decoded = MappedResponse.of(response, employees);
+		lastDecoded = decoded;
+		return decoded;
+	}
 
+	private static HttpResponse<Employee> findEmployee(EmployeeIndex index, String id) {
+		Employee employee;
+		try {
+			employee = index.get(Long.parseLong(id.trim()));
+		} catch (NumberFormatException e) {
+			employee = null;
+		}
+		if (employee != null) {
+			return MappedResponse.ok(employee);
+		} else {
+			return EMPLOYEE_ID_NOT_FOUND;
+		}
 	}
 }
@@ -0,0 +1,411 @@
+package giri.apurba.apps.service.core;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import javax.net.ssl.SSLException;
+
+import giri.apurba.apps.model.HttpErrorResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer instrumentation of outbound calls made through
+ * {@link APIService}. Meters are created once per tag set and cached, so
+ * recording a call costs a map lookup and no meter registration. Nothing is
+ * recorded until a {@link MeterRegistry} is set.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class APIMetrics {
+
+	public static final String REQUESTS = "api.client.requests";
+	public static final String FAILURES = "api.client.failures";
+	public static final String REJECTIONS = "api.client.rejections";
+	public static final String REQUEST_BYTES = "api.client.request.size";
+	public static final String RESPONSE_BYTES = "api.client.response.size";
+	public static final String COMPRESSION_RATIO = "api.client.compression.ratio";
+	public static final String COMPRESSION_TIME = "api.client.compression.time";
+	public static final String REFRESH_DURATION = "api.client.refresh.duration";
+	public static final String REFRESH_STALENESS = "api.client.refresh.staleness";
+	public static final String TLS_HANDSHAKES = "api.client.tls.handshakes";
+	public static final String TLS_RESUMPTION_RATIO = "api.client.tls.resumption.ratio";
+
+	private static final APIMetrics INSTANCE = new APIMetrics();
+
+	/**
+	 * Outcome of an outbound call
+	 */
+	public static enum Outcome {
+		INFORMATIONAL, SUCCESS, REDIRECTION, CLIENT_ERROR, SERVER_ERROR, TIMEOUT, CONNECT_ERROR, SSL_ERROR,
+		IO_ERROR, INTERRUPTED, CANCELLED, UNKNOWN
+	};
+
+	/**
+	 * Direction of a compressed body
+	 */
+	public static enum Direction {
+		REQUEST, RESPONSE
+	};
+
+	/**
+	 * Reason an outbound call was rejected before being sent
+	 */
+	public static enum Rejection {
+		BULKHEAD, CIRCUIT_BREAKER, RATE_LIMIT
+	};
+
+	private static record CompressionKey(String host, Direction direction) {
+	}
+
+	private static record RejectionKey(String host, Rejection reason) {
+	}
+
+	private static record TimerKey(String method, String host, String status, Outcome outcome, String protocol) {
+	}
+
+	private static record HostKey(String method, String host) {
+	}
+
+	private static record FailureKey(String host, Outcome outcome) {
+	}
+
+	private static record RefreshKey(String resource, Outcome outcome) {
+	}
+
+	private static record HandshakeKey(String profile, String host, boolean resumed) {
+	}
+
+	private final ConcurrentHashMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<FailureKey, Counter> failures = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<RejectionKey, Counter> rejections = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<HostKey, DistributionSummary> requestSizes = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<HostKey, DistributionSummary> responseSizes = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<CompressionKey, DistributionSummary> compressionRatios = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<CompressionKey, Timer> compressionTimers = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<RefreshKey, Timer> refreshTimers = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<HandshakeKey, Timer> handshakeTimers = new ConcurrentHashMap<>();
+
+	private volatile MeterRegistry registry;
+
+	private APIMetrics() {
+	}
+
+	/**
+	 * Returns the shared metrics instance
+	 *
+	 * @return {@link APIMetrics}
+	 */
+	public static APIMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Sets the registry meters are registered with. Cached meters of a previous
+	 * registry are dropped.
+	 *
+	 * @param registry - null to disable recording
+	 */
+	public void setMeterRegistry(MeterRegistry registry) {
+		timers.clear();
+		failures.clear();
+		rejections.clear();
+		requestSizes.clear();
+		responseSizes.clear();
+		compressionRatios.clear();
+		compressionTimers.clear();
+		refreshTimers.clear();
+		handshakeTimers.clear();
+		this.registry = registry;
+	}
+
+	/**
+	 * Returns true if calls are recorded
+	 *
+	 * @return true if a registry is set
+	 */
+	public boolean isEnabled() {
+		return registry != null;
+	}
+
+	/**
+	 * Records an outbound call
+	 *
+	 * @param request    - Request sent upstream
+	 * @param response   - Upstream response (null if the call failed)
+	 * @param failure    - Failure of the call (null if a response was received)
+	 * @param startNanos - {@link System#nanoTime()} before the call was sent
+	 */
+	public void record(HttpRequest request, HttpResponse<?> response, Throwable failure, long startNanos) {
+		MeterRegistry meterRegistry = registry;
+		if (meterRegistry == null || request == null) {
+			return;
+		}
+		long elapsed = System.nanoTime() - startNanos;
+		String method = request.method();
+		String host = request.uri().getHost() != null ? request.uri().getHost() : "none";
+		String status;
+		Outcome outcome;
+		String protocol = "none";
+		if (response != null) {
+			status = statusClass(response.statusCode());
+			outcome = outcome(response.statusCode());
+			if (response.version() != null) {
+				protocol = response.version().name();
+			}
+		} else {
+			status = "none";
+			outcome = outcome(failure);
+			failures.computeIfAbsent(new FailureKey(host, outcome),
+					key -> Counter.builder(FAILURES).description("Outbound calls that got no response")
+							.tag("host", key.host()).tag("type", key.outcome().name()).register(meterRegistry))
+					.increment();
+		}
+		timers.computeIfAbsent(new TimerKey(method, host, status, outcome, protocol),
+				key -> Timer.builder(REQUESTS).description("Outbound calls made through APIService")
+						.tag("method", key.method()).tag("host", key.host()).tag("status", key.status())
+						.tag("outcome", key.outcome().name()).tag("protocol", key.protocol())
+						.publishPercentileHistogram().register(meterRegistry))
+				.record(elapsed, TimeUnit.NANOSECONDS);
+
+		HostKey hostKey = new HostKey(method, host);
+		long requestBytes = request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+		if (requestBytes >= 0) {
+			requestSizes.computeIfAbsent(hostKey, key -> summary(REQUEST_BYTES, key, meterRegistry))
+					.record(requestBytes);
+		}
+		long responseBytes = response != null ? responseBytes(response) : -1;
+		if (responseBytes >= 0) {
+			responseSizes.computeIfAbsent(hostKey, key -> summary(RESPONSE_BYTES, key, meterRegistry))
+					.record(responseBytes);
+		}
+	}
+
+	/**
+	 * Records a call rejected before being sent, because its host was saturated,
+	 * its circuit was open or its rate limit was exceeded
+	 *
+	 * @param request - Rejected request
+	 * @param reason  - {@link Rejection}
+	 */
+	public void recordRejection(HttpRequest request, Rejection reason) {
+		MeterRegistry meterRegistry = registry;
+		if (meterRegistry == null) {
+			return;
+		}
+		String host = request.uri().getHost() != null ? request.uri().getHost() : "none";
+		rejections.computeIfAbsent(new RejectionKey(host, reason), key -> Counter.builder(REJECTIONS)
+				.description("Outbound calls rejected before being sent, by host and reason").tag("host", key.host())
+				.tag("reason", key.reason().name().toLowerCase(Locale.ROOT)).register(meterRegistry)).increment();
+	}
+
+	/**
+	 * Records compression of a request body or decompression of a response body
+	 *
+	 * @param host              - Upstream host
+	 * @param direction         - {@link Direction}
+	 * @param compressedBytes   - Size on the wire
+	 * @param uncompressedBytes - Size of the payload
+	 * @param nanos             - Time spent compressing or inflating
+	 */
+	public void recordCompression(String host, Direction direction, long compressedBytes, long uncompressedBytes,
+			long nanos) {
+		MeterRegistry meterRegistry = registry;
+		if (meterRegistry == null) {
+			return;
+		}
+		CompressionKey key = new CompressionKey(host != null ? host : "none", direction);
+		if (compressedBytes > 0) {
+			compressionRatios.computeIfAbsent(key, k -> DistributionSummary.builder(COMPRESSION_RATIO)
+					.description("Uncompressed to compressed body size").tag("host", k.host())
+					.tag("direction", k.direction().name()).register(meterRegistry))
+					.record((double) uncompressedBytes / compressedBytes);
+		}
+		compressionTimers.computeIfAbsent(key, k -> Timer.builder(COMPRESSION_TIME)
+				.description("Time spent compressing request and inflating response bodies").tag("host", k.host())
+				.tag("direction", k.direction().name()).register(meterRegistry)).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records a background refresh of a {@link RefreshAhead} resource
+	 *
+	 * @param resource - Resource name
+	 * @param response - Upstream response ({@link HttpErrorResponse} if the
+	 *                 call failed)
+	 * @param nanos    - Duration of the refresh
+	 */
+	public void recordRefresh(String resource, HttpResponse<?> response, long nanos) {
+		MeterRegistry meterRegistry = registry;
+		if (meterRegistry == null) {
+			return;
+		}
+		Outcome outcome = response instanceof HttpErrorResponse error
+				&& error.getCause() != null ? outcome(error.getCause()) : outcome(response.statusCode());
+		refreshTimers.computeIfAbsent(new RefreshKey(resource, outcome),
+				key -> Timer.builder(REFRESH_DURATION).description("Background refreshes of refresh-ahead resources")
+						.tag("resource", key.resource()).tag("outcome", key.outcome().name())
+						.register(meterRegistry))
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Registers a gauge of the age of the data served for a {@link RefreshAhead}
+	 * resource. The gauge is registered with the current registry only.
+	 *
+	 * @param <T>       State type
+	 * @param resource  - Resource name
+	 * @param state     - Object the staleness is read from
+	 * @param staleness - Returns seconds since the served data was fetched
+	 */
+	public <T> void registerRefreshStaleness(String resource, T state, ToDoubleFunction<T> staleness) {
+		MeterRegistry meterRegistry = registry;
+		if (meterRegistry == null) {
+			return;
+		}
+		Gauge.builder(REFRESH_STALENESS, state, staleness)
+				.description("Age of the data served for a refresh-ahead resource").baseUnit("seconds")
+				.tag("resource", resource).register(meterRegistry);
+	}
+
+	/**
+	 * Removes the staleness gauge of a {@link RefreshAhead} resource, so that a
+	 * resource registered again under the same name gets a gauge of its own
+	 *
+	 * @param resource - Resource name
+	 */
+	public void removeRefreshStaleness(String resource) {
+		MeterRegistry meterRegistry = registry;
+		if (meterRegistry == null) {
+			return;
+		}
+		Gauge gauge = meterRegistry.find(REFRESH_STALENESS).tag("resource", resource).gauge();
+		if (gauge != null) {
+			meterRegistry.remove(gauge);
+		}
+	}
+
+	/**
+	 * Records a TLS handshake of a connection of an {@link SSLProfile}
+	 *
+	 * @param profile - Profile name
+	 * @param host    - Upstream host
+	 * @param resumed - Whether an earlier TLS session was resumed
+	 * @param nanos   - Duration of the handshake
+	 */
+	public void recordHandshake(String profile, String host, boolean resumed, long nanos) {
+		MeterRegistry meterRegistry = registry;
+		if (meterRegistry == null) {
+			return;
+		}
+		handshakeTimers.computeIfAbsent(new HandshakeKey(profile, host != null ? host : "none", resumed),
+				key -> Timer.builder(TLS_HANDSHAKES).description("TLS handshakes of upstream connections")
+						.tag("profile", key.profile()).tag("host", key.host())
+						.tag("resumed", Boolean.toString(key.resumed())).register(meterRegistry))
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Registers a gauge of the share of TLS handshakes of an {@link SSLProfile}
+	 * that resumed an earlier session. The gauge is registered with the current
+	 * registry only.
+	 *
+	 * @param <T>             State type
+	 * @param profile         - Profile name
+	 * @param state           - Object the ratio is read from
+	 * @param resumptionRatio - Returns the ratio from 0 to 1
+	 */
+	public <T> void registerResumptionRatio(String profile, T state, ToDoubleFunction<T> resumptionRatio) {
+		MeterRegistry meterRegistry = registry;
+		if (meterRegistry == null) {
+			return;
+		}
+		Gauge.builder(TLS_RESUMPTION_RATIO, state, resumptionRatio)
+				.description("Share of TLS handshakes that resumed an earlier session").tag("profile", profile)
+				.register(meterRegistry);
+	}
+
+	private static DistributionSummary summary(String name, HostKey key, MeterRegistry meterRegistry) {
+		return DistributionSummary.builder(name).baseUnit("bytes").tag("method", key.method())
+				.tag("host", key.host()).register(meterRegistry);
+	}
+
+	/**
+	 * Returns response size from 'Content-Length'. Chunked responses aren't
+	 * recorded, as measuring their decoded body would mix units with the wire
+	 * size and cost a scan of the body on the calling thread.
+	 *
+	 * @param response
+	 * @return Size in bytes, or -1 if unknown
+	 */
+	private static long responseBytes(HttpResponse<?> response) {
+		return response.headers() != null ? response.headers().firstValueAsLong("Content-Length").orElse(-1) : -1;
+	}
+
+	private static String statusClass(int statusCode) {
+		return switch (statusCode / 100) {
+		case 1 -> "1xx";
+		case 2 -> "2xx";
+		case 3 -> "3xx";
+		case 4 -> "4xx";
+		case 5 -> "5xx";
+		default -> "unknown";
+		};
+	}
+
+	private static Outcome outcome(int statusCode) {
+		return switch (statusCode / 100) {
+		case 1 -> Outcome.INFORMATIONAL;
+		case 2 -> Outcome.SUCCESS;
+		case 3 -> Outcome.REDIRECTION;
+		case 4 -> Outcome.CLIENT_ERROR;
+		case 5 -> Outcome.SERVER_ERROR;
+		default -> Outcome.UNKNOWN;
+		};
+	}
+
+	/**
+	 * Classifies a failed call
+	 *
+	 * @param failure
+	 * @return {@link Outcome}
+	 */
+	public static Outcome outcome(Throwable failure) {
+		Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause()
+				: failure;
+		if (cause instanceof HttpConnectTimeoutException || cause instanceof ConnectException) {
+			return Outcome.CONNECT_ERROR;
+		}
+		if (cause instanceof HttpTimeoutException) {
+			return Outcome.TIMEOUT;
+		}
+		if (cause instanceof SSLException) {
+			return Outcome.SSL_ERROR;
+		}
+		if (cause instanceof InterruptedException) {
+			return Outcome.INTERRUPTED;
+		}
+		if (cause instanceof IOException) {
+			return Outcome.IO_ERROR;
+		}
+		if (cause instanceof CancellationException) {
+			return Outcome.CANCELLED;
+		}
+		return Outcome.UNKNOWN;
+	}
+
+}
@@ -0,0 +1,62 @@
+package giri.apurba.apps.service.core;
+
+import giri.apurba.apps.service.core.APIServiceBase.AuthType;
+import giri.apurba.apps.service.core.APIServiceBase.ContentType;
+import giri.apurba.apps.service.core.APIServiceBase.HttpMethod;
+
+/**
+ * Specification of a single API call, used to submit batches of calls to
+ * {@link APIService#invokeAPIBatch}
+ *
+ * @param httpMethod        - HTTP method to invoke on the API service
+ * @param contentType       - Request body {@link ContentType} (null to not set
+ *                          'Content-Type')
+ * @param serviceUrl        - Service URL for the API service
+ * @param authType          - Authentication type for the API service (null for
+ *                          none)
+ * @param authLiteral       - Authentication value based on {@link AuthType}
+ * @param requestBody       - Request body content (null for none)
+ * @param requestTimeout    - Timeout for this request in seconds (0 for none)
+ * @param connectionTimeout - Connect timeout in seconds (0 for default)
+ *
+ * @author AGIRI6
+ *
+ */
+public record APIRequest(HttpMethod httpMethod, ContentType contentType, String serviceUrl, AuthType authType,
+		String authLiteral, String requestBody, long requestTimeout, long connectionTimeout) {
+
+	/**
+	 * Returns a GET request specification
+	 *
+	 * @param serviceUrl - Service URL for the API service
+	 * @return {@link APIRequest}
+	 */
+	public static APIRequest get(String serviceUrl) {
+		return new APIRequest(HttpMethod.GET, null, serviceUrl, null, null, null, 0, 0);
+	}
+
+	/**
+	 * Returns a GET request specification with authentication
+	 *
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service
+	 * @param authLiteral - Authentication value based on {@link AuthType}
+	 * @return {@link APIRequest}
+	 */
+	public static APIRequest get(String serviceUrl, AuthType authType, String authLiteral) {
+		return new APIRequest(HttpMethod.GET, null, serviceUrl, authType, authLiteral, null, 0, 0);
+	}
+
+	/**
+	 * Returns a POST request specification
+	 *
+	 * @param contentType - Request body {@link ContentType}
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param requestBody - Request body content
+	 * @return {@link APIRequest}
+	 */
+	public static APIRequest post(ContentType contentType, String serviceUrl, String requestBody) {
+		return new APIRequest(HttpMethod.POST, contentType, serviceUrl, null, null, requestBody, 0, 0);
+	}
+
+}
@@ -1,7 +1,22 @@
 package giri.apurba.apps.service.core;
 
+import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import giri.apurba.apps.model.HttpErrorResponse;
+import giri.apurba.apps.model.HttpErrorResponse.Category;
 
 /**
  * Service class to invoke HTTP API services
@@ -175,4 +190,698 @@ public final class APIService extends APIServiceBase {
 				connectionTimeout);
 	}
 
+	/**
+	 * Invoke a precompiled {@link EndpointTemplate} without request body
+	 * 
+	 * @param endpoint  - Endpoint template
+	 * @param variables - Values of the URL variables in template order
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	public HttpResponse<String> invokeAPI(EndpointTemplate endpoint, String... variables) {
+		return invoke(endpoint, null, variables);
+	}
+
+	/**
+	 * Invoke a precompiled {@link EndpointTemplate} with a request body
+	 * 
+	 * @param endpoint    - Endpoint template
+	 * @param requestBody - Request body content
+	 * @param variables   - Values of the URL variables in template order
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	public HttpResponse<String> invokeAPIWithBody(EndpointTemplate endpoint, String requestBody,
+			String... variables) {
+		return invoke(endpoint, requestBody, variables);
+	}
+
+	/**
+	 * Asynchronously invoke HTTP API with GET method
+	 * 
+	 * @param serviceUrl - Service URL for the API service
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIAsync(String serviceUrl) {
+		return invokeAsync(HttpMethod.GET, null, serviceUrl, null, null, null, 0, 0);
+	}
+
+	/**
+	 * Asynchronously invoke HTTP API with POST method
+	 * 
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param requestBody - Request body content
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIAsync(String serviceUrl, String requestBody) {
+		return invokeAsync(HttpMethod.POST, null, serviceUrl, null, null, requestBody, 0, 0);
+	}
+
+	/**
+	 * Asynchronously invoke HTTP API with GET method
+	 * 
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service (e.g.
+	 *                    {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral - Authentication value based on {@link AuthType}
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIAsync(String serviceUrl, AuthType authType,
+			String authLiteral) {
+		return invokeAsync(HttpMethod.GET, null, serviceUrl, authType, authLiteral, null, 0, 0);
+	}
+
+	/**
+	 * Asynchronously invoke HTTP API with POST method
+	 * 
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service (e.g.
+	 *                    {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral - Authentication value based on {@link AuthType}
+	 * @param requestBody - Request body content
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIAsync(String serviceUrl, AuthType authType,
+			String authLiteral, String requestBody) {
+		return invokeAsync(HttpMethod.POST, null, serviceUrl, authType, authLiteral, requestBody, 0, 0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service asynchronously
+	 * 
+	 * @param httpMethod  - HTTP method to invoke on the API service (e.g.
+	 *                    {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                    {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service (e.g.
+	 *                    {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral - Authentication value based on {@link AuthType} (For
+	 *                    BASIC, set to 'username:password' format)
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIAsync(HttpMethod httpMethod, String serviceUrl,
+			AuthType authType, String authLiteral) {
+		return invokeAsync(httpMethod, null, serviceUrl, authType, authLiteral, null, 0, 0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service asynchronously
+	 * 
+	 * @param httpMethod  - HTTP method to invoke on the API service (e.g.
+	 *                    {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                    {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType - Request body {@link ContentType} (e.g.
+	 *                    {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service (e.g.
+	 *                    {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral - Authentication value based on {@link AuthType} (For
+	 *                    BASIC, set to 'username:password' format)
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIAsync(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, AuthType authType, String authLiteral) {
+		return invokeAsync(httpMethod, contentType, serviceUrl, authType, authLiteral, null, 0, 0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service asynchronously
+	 * 
+	 * @param httpMethod  - HTTP method to invoke on the API service (e.g.
+	 *                    {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                    {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType - Request body {@link ContentType} (e.g.
+	 *                    {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service (e.g.
+	 *                    {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral - Authentication value based on {@link AuthType} (For
+	 *                    BASIC, set to 'username:password' format)
+	 * @param requestBody - Request body content
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIAsync(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, AuthType authType, String authLiteral, String requestBody) {
+		return invokeAsync(httpMethod, contentType, serviceUrl, authType, authLiteral, requestBody, 0, 0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service asynchronously
+	 * 
+	 * @param httpMethod     - HTTP method to invoke on the API service (e.g.
+	 *                       {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                       {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType    - Request body {@link ContentType} (e.g.
+	 *                       {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl     - Service URL for the API service
+	 * @param authType       - Authentication type for the API service (e.g.
+	 *                       {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral    - Authentication value based on {@link AuthType} (For
+	 *                       BASIC, set to 'username:password' format)
+	 * @param requestBody    - Request body content
+	 * @param requestTimeout - Sets a timeout for this request.
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIAsync(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, AuthType authType, String authLiteral, String requestBody, long requestTimeout) {
+		return invokeAsync(httpMethod, contentType, serviceUrl, authType, authLiteral, requestBody, requestTimeout,
+				0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service asynchronously
+	 * 
+	 * @param httpMethod        - HTTP method to invoke on the API service (e.g.
+	 *                          {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                          {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType       - Request body {@link ContentType} (e.g.
+	 *                          {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service (e.g.
+	 *                          {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 *                          (For BASIC, set to 'username:password' format)
+	 * @param requestBody       - Request body content
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIAsync(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, AuthType authType, String authLiteral, String requestBody, long requestTimeout,
+			long connectionTimeout) {
+		return invokeAsync(httpMethod, contentType, serviceUrl, authType, authLiteral, requestBody, requestTimeout,
+				connectionTimeout);
+	}
+
+	/**
+	 * Asynchronously invoke a precompiled {@link EndpointTemplate} without
+	 * request body
+	 * 
+	 * @param endpoint  - Endpoint template
+	 * @param variables - Values of the URL variables in template order
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIAsync(EndpointTemplate endpoint, String... variables) {
+		return invokeAsync(endpoint, null, variables);
+	}
+
+	/**
+	 * Asynchronously invoke a precompiled {@link EndpointTemplate} with a request
+	 * body
+	 * 
+	 * @param endpoint    - Endpoint template
+	 * @param requestBody - Request body content
+	 * @param variables   - Values of the URL variables in template order
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> invokeAPIWithBodyAsync(EndpointTemplate endpoint,
+			String requestBody, String... variables) {
+		return invokeAsync(endpoint, requestBody, variables);
+	}
+
+	/**
+	 * Invoke HTTP API with GET method and decode the JSON response into given
+	 * type (e.g. a record)
+	 * 
+	 * @param <T>        Body type
+	 * @param serviceUrl - Service URL for the API service
+	 * @param type       - Type the response body is decoded into
+	 * 
+	 * @return Service response as {@link HttpResponse} of the decoded body. The
+	 *         body is null if the call failed or the status is not 2xx, see
+	 *         {@link HttpErrorResponse#from}.
+	 */
+	public <T> HttpResponse<T> invokeAPI(String serviceUrl, Class<T> type) {
+		return invokeJSON(HttpMethod.GET, null, serviceUrl, null, null, null, 0, 0, type);
+	}
+
+	/**
+	 * Invoke a precompiled {@link EndpointTemplate} without request body and
+	 * decode the JSON response into given type (e.g. a record)
+	 * 
+	 * @param <T>       Body type
+	 * @param endpoint  - Endpoint template
+	 * @param type      - Type the response body is decoded into
+	 * @param variables - Values of the URL variables in template order
+	 * 
+	 * @return Service response as {@link HttpResponse} of the decoded body. The
+	 *         body is null if the call failed or the status is not 2xx, see
+	 *         {@link HttpErrorResponse#from}.
+	 */
+	public <T> HttpResponse<T> invokeAPI(EndpointTemplate endpoint, Class<T> type, String... variables) {
+		return invokeJSON(endpoint, null, variables, type);
+	}
+
+	/**
+	 * Method to invoke HTTP API service and decode the JSON response into given
+	 * type (e.g. a record). The body is decoded from the received bytes, without
+	 * building a String or a JSON tree first. Such calls are neither cached,
+	 * coalesced nor retried.
+	 * 
+	 * @param <T>               Body type
+	 * @param httpMethod        - HTTP method to invoke on the API service (e.g.
+	 *                          {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                          {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType       - Request body {@link ContentType} (e.g.
+	 *                          {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service (e.g.
+	 *                          {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 *                          (For BASIC, set to 'username:password' format)
+	 * @param requestBody       - Request body content
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * @param type              - Type the response body is decoded into
+	 * 
+	 * @return Service response as {@link HttpResponse} of the decoded body. The
+	 *         body is null if the call failed or the status is not 2xx, see
+	 *         {@link HttpErrorResponse#from}.
+	 */
+	public <T> HttpResponse<T> invokeAPI(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			AuthType authType, String authLiteral, String requestBody, long requestTimeout, long connectionTimeout,
+			Class<T> type) {
+		return invokeJSON(httpMethod, contentType, serviceUrl, authType, authLiteral, requestBody, requestTimeout,
+				connectionTimeout, type);
+	}
+
+	/**
+	 * Asynchronously invoke HTTP API with GET method and decode the JSON response
+	 * into given type (e.g. a record)
+	 * 
+	 * @param <T>        Body type
+	 * @param serviceUrl - Service URL for the API service
+	 * @param type       - Type the response body is decoded into
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse} of the decoded body
+	 */
+	public <T> CompletableFuture<HttpResponse<T>> invokeAPIAsync(String serviceUrl, Class<T> type) {
+		return invokeJSONAsync(HttpMethod.GET, null, serviceUrl, null, null, null, 0, 0, type);
+	}
+
+	/**
+	 * Asynchronously invoke a precompiled {@link EndpointTemplate} without
+	 * request body and decode the JSON response into given type (e.g. a record)
+	 * 
+	 * @param <T>       Body type
+	 * @param endpoint  - Endpoint template
+	 * @param type      - Type the response body is decoded into
+	 * @param variables - Values of the URL variables in template order
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse} of the decoded body
+	 */
+	public <T> CompletableFuture<HttpResponse<T>> invokeAPIAsync(EndpointTemplate endpoint, Class<T> type,
+			String... variables) {
+		return invokeJSONAsync(endpoint, null, variables, type);
+	}
+
+	/**
+	 * Asynchronously invoke HTTP API service and decode the JSON response into
+	 * given type (e.g. a record), see {@link #invokeAPI(HttpMethod, ContentType,
+	 * String, AuthType, String, String, long, long, Class)}
+	 * 
+	 * @param <T>               Body type
+	 * @param httpMethod        - HTTP method to invoke on the API service
+	 * @param contentType       - Request body {@link ContentType}
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 * @param requestBody       - Request body content
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * @param type              - Type the response body is decoded into
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse} of the decoded body
+	 */
+	public <T> CompletableFuture<HttpResponse<T>> invokeAPIAsync(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, AuthType authType, String authLiteral, String requestBody, long requestTimeout,
+			long connectionTimeout, Class<T> type) {
+		return invokeJSONAsync(httpMethod, contentType, serviceUrl, authType, authLiteral, requestBody,
+				requestTimeout, connectionTimeout, type);
+	}
+
+	/**
+	 * Invoke HTTP API with GET method and stream the response body. The caller
+	 * must close the returned stream.
+	 * 
+	 * @param serviceUrl - Service URL for the API service
+	 * 
+	 * @return Service response as {@link HttpResponse} of {@link InputStream}
+	 */
+	public HttpResponse<InputStream> invokeAPIStream(String serviceUrl) {
+		return invokeStream(HttpMethod.GET, null, serviceUrl, null, null, null, 0, 0);
+	}
+
+	/**
+	 * Invoke a precompiled {@link EndpointTemplate} without request body and
+	 * stream the response body. The caller must close the returned stream.
+	 * 
+	 * @param endpoint  - Endpoint template
+	 * @param variables - Values of the URL variables in template order
+	 * 
+	 * @return Service response as {@link HttpResponse} of {@link InputStream}
+	 */
+	public HttpResponse<InputStream> invokeAPIStream(EndpointTemplate endpoint, String... variables) {
+		return invokeStream(endpoint, null, variables);
+	}
+
+	/**
+	 * Method to invoke HTTP API service and stream the response body. The caller
+	 * must close the returned stream.
+	 * 
+	 * @param httpMethod        - HTTP method to invoke on the API service (e.g.
+	 *                          {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                          {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType       - Request body {@link ContentType} (e.g.
+	 *                          {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service (e.g.
+	 *                          {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 *                          (For BASIC, set to 'username:password' format)
+	 * @param requestBody       - Request body content
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * 
+	 * @return Service response as {@link HttpResponse} of {@link InputStream}
+	 */
+	public HttpResponse<InputStream> invokeAPIStream(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, AuthType authType, String authLiteral, String requestBody, long requestTimeout,
+			long connectionTimeout) {
+		return invokeStream(httpMethod, contentType, serviceUrl, authType, authLiteral, requestBody, requestTimeout,
+				connectionTimeout);
+	}
+
+	/**
+	 * Method to invoke HTTP API service with a binary request body. The array
+	 * is sent as is, without copying.
+	 * 
+	 * @param httpMethod  - HTTP method to invoke on the API service (e.g.
+	 *                    {@link HttpMethod.POST}, {@link HttpMethod.PUT})
+	 * @param contentType - Request body {@link ContentType} (e.g.
+	 *                    {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service (e.g.
+	 *                    {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral - Authentication value based on {@link AuthType} (For
+	 *                    BASIC, set to 'username:password' format)
+	 * @param requestBody - Request body content
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	public HttpResponse<String> invokeAPI(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			AuthType authType, String authLiteral, byte[] requestBody) {
+		return invokeAPI(httpMethod, contentType, serviceUrl, authType, authLiteral,
+				HttpRequest.BodyPublishers.ofByteArray(requestBody), 0, 0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service with the remaining bytes of a buffer as
+	 * request body. Heap and direct buffers are sent without copying.
+	 * 
+	 * @param httpMethod  - HTTP method to invoke on the API service (e.g.
+	 *                    {@link HttpMethod.POST}, {@link HttpMethod.PUT})
+	 * @param contentType - Request body {@link ContentType} (e.g.
+	 *                    {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service (e.g.
+	 *                    {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral - Authentication value based on {@link AuthType} (For
+	 *                    BASIC, set to 'username:password' format)
+	 * @param requestBody - Request body content
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	public HttpResponse<String> invokeAPI(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			AuthType authType, String authLiteral, ByteBuffer requestBody) {
+		return invokeAPI(httpMethod, contentType, serviceUrl, authType, authLiteral,
+				RequestBodies.ofByteBuffer(requestBody), 0, 0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service with a file as request body. The file is
+	 * read in chunks while the request is sent.
+	 * 
+	 * @param httpMethod  - HTTP method to invoke on the API service (e.g.
+	 *                    {@link HttpMethod.POST}, {@link HttpMethod.PUT})
+	 * @param contentType - Request body {@link ContentType} (e.g.
+	 *                    {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service (e.g.
+	 *                    {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral - Authentication value based on {@link AuthType} (For
+	 *                    BASIC, set to 'username:password' format)
+	 * @param requestBody - File to send
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	public HttpResponse<String> invokeAPI(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			AuthType authType, String authLiteral, Path requestBody) {
+		HttpRequest.BodyPublisher publisher;
+		try {
+			publisher = HttpRequest.BodyPublishers.ofFile(requestBody);
+		} catch (FileNotFoundException e) {
+			return new HttpErrorResponse(Category.HTTP_STATUS.statusCode(), e.getMessage());
+		}
+		return invokeAPI(httpMethod, contentType, serviceUrl, authType, authLiteral, publisher, 0, 0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service with a stream as request body. The
+	 * stream is read in chunks while the request is sent and closed afterwards.
+	 * 
+	 * @param httpMethod  - HTTP method to invoke on the API service (e.g.
+	 *                    {@link HttpMethod.POST}, {@link HttpMethod.PUT})
+	 * @param contentType - Request body {@link ContentType} (e.g.
+	 *                    {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service (e.g.
+	 *                    {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral - Authentication value based on {@link AuthType} (For
+	 *                    BASIC, set to 'username:password' format)
+	 * @param requestBody - Stream to send
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	public HttpResponse<String> invokeAPI(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			AuthType authType, String authLiteral, InputStream requestBody) {
+		return invokeAPI(httpMethod, contentType, serviceUrl, authType, authLiteral,
+				RequestBodies.ofInputStream(requestBody), 0, 0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service with a 'multipart/form-data' request
+	 * body. File parts are streamed from disk.
+	 * 
+	 * @param httpMethod  - HTTP method to invoke on the API service (e.g.
+	 *                    {@link HttpMethod.POST}, {@link HttpMethod.PUT})
+	 * @param serviceUrl  - Service URL for the API service
+	 * @param authType    - Authentication type for the API service (e.g.
+	 *                    {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral - Authentication value based on {@link AuthType} (For
+	 *                    BASIC, set to 'username:password' format)
+	 * @param requestBody - Multipart body
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	public HttpResponse<String> invokeAPI(HttpMethod httpMethod, String serviceUrl, AuthType authType,
+			String authLiteral, MultipartBody requestBody) {
+		return invokeAPI(httpMethod, ContentType.FORM_DATA, serviceUrl, authType, authLiteral, requestBody, 0, 0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service with any request body publisher. Such
+	 * calls are neither cached, coalesced nor retried.
+	 * 
+	 * @param httpMethod        - HTTP method to invoke on the API service (e.g.
+	 *                          {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                          {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType       - Request body {@link ContentType} (e.g.
+	 *                          {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service (e.g.
+	 *                          {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 *                          (For BASIC, set to 'username:password' format)
+	 * @param requestBody       - Request body publisher (e.g.
+	 *                          {@link RequestBodies#ofByteBuffer},
+	 *                          {@link MultipartBody}), null for no body
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	public HttpResponse<String> invokeAPI(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			AuthType authType, String authLiteral, HttpRequest.BodyPublisher requestBody, long requestTimeout,
+			long connectionTimeout) {
+		return invokeWith(httpMethod, contentType, serviceUrl, authType, authLiteral, requestBody, requestTimeout,
+				connectionTimeout, HttpResponse.BodyHandlers.ofString(), Function.identity());
+	}
+
+	/**
+	 * Invoke HTTP API with GET method and stream the response body to a file
+	 * 
+	 * @param serviceUrl - Service URL for the API service
+	 * @param target     - File the body is written to (created or truncated)
+	 * 
+	 * @return Service response as {@link HttpResponse} of the written file. On
+	 *         failure the body is null, see {@link HttpResponse#statusCode()}.
+	 */
+	public HttpResponse<Path> invokeAPIToFile(String serviceUrl, Path target) {
+		return invokeAPIToFile(HttpMethod.GET, null, serviceUrl, null, null, null, 0, 0, target);
+	}
+
+	/**
+	 * Method to invoke HTTP API service and stream the response body to a file
+	 * without holding it in memory
+	 * 
+	 * @param httpMethod        - HTTP method to invoke on the API service (e.g.
+	 *                          {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                          {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType       - Request body {@link ContentType} (e.g.
+	 *                          {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service (e.g.
+	 *                          {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 *                          (For BASIC, set to 'username:password' format)
+	 * @param requestBody       - Request body publisher (e.g.
+	 *                          {@link RequestBodies#ofByteBuffer},
+	 *                          {@link MultipartBody}), null for no body
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * @param target            - File the body is written to (created or
+	 *                          truncated)
+	 * 
+	 * @return Service response as {@link HttpResponse} of the written file. On
+	 *         failure the body is null, see {@link HttpResponse#statusCode()}.
+	 */
+	public HttpResponse<Path> invokeAPIToFile(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			AuthType authType, String authLiteral, HttpRequest.BodyPublisher requestBody, long requestTimeout,
+			long connectionTimeout, Path target) {
+		return invokeWith(httpMethod, contentType, serviceUrl, authType, authLiteral, requestBody, requestTimeout,
+				connectionTimeout, HttpResponse.BodyHandlers.ofFile(target), body -> null);
+	}
+
+	/**
+	 * Invoke HTTP API with GET method and receive the response body as a
+	 * publisher of byte buffers, as they arrive from the network
+	 * 
+	 * @param serviceUrl - Service URL for the API service
+	 * 
+	 * @return Service response as {@link HttpResponse} of {@link Flow.Publisher}
+	 */
+	public HttpResponse<Flow.Publisher<List<ByteBuffer>>> invokeAPIPublisher(String serviceUrl) {
+		return invokeAPIPublisher(HttpMethod.GET, null, serviceUrl, null, null, null, 0, 0);
+	}
+
+	/**
+	 * Method to invoke HTTP API service and receive the response body as a
+	 * publisher of byte buffers. The body must be subscribed to, otherwise the
+	 * connection is not released.
+	 * 
+	 * @param httpMethod        - HTTP method to invoke on the API service (e.g.
+	 *                          {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                          {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType       - Request body {@link ContentType} (e.g.
+	 *                          {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service (e.g.
+	 *                          {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 *                          (For BASIC, set to 'username:password' format)
+	 * @param requestBody       - Request body publisher (e.g.
+	 *                          {@link RequestBodies#ofByteBuffer},
+	 *                          {@link MultipartBody}), null for no body
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * 
+	 * @return Service response as {@link HttpResponse} of {@link Flow.Publisher}
+	 */
+	public HttpResponse<Flow.Publisher<List<ByteBuffer>>> invokeAPIPublisher(HttpMethod httpMethod,
+			ContentType contentType, String serviceUrl, AuthType authType, String authLiteral,
+			HttpRequest.BodyPublisher requestBody, long requestTimeout, long connectionTimeout) {
+		return invokeWith(httpMethod, contentType, serviceUrl, authType, authLiteral, requestBody, requestTimeout,
+				connectionTimeout, HttpResponse.BodyHandlers.ofPublisher(), APIServiceBase::errorPublisher);
+	}
+
+	/**
+	 * Invoke a batch of HTTP API calls with bounded concurrency and wait for all
+	 * of them. A failed call doesn't fail the batch, its slot holds an
+	 * {@link giri.apurba.apps.model.HttpErrorResponse}.
+	 * 
+	 * @param requests       - Calls to make
+	 * @param maxConcurrency - Maximum number of calls in flight at a time
+	 * @param batchTimeout   - Deadline for the whole batch in seconds (0 for none)
+	 * 
+	 * @return Responses in request order
+	 */
+	public List<HttpResponse<String>> invokeAPIBatch(Collection<APIRequest> requests, int maxConcurrency,
+			long batchTimeout) {
+		return invokeBatch(new ArrayList<>(requests), maxConcurrency, batchTimeout, null).join();
+	}
+
+	/**
+	 * Asynchronously invoke a batch of HTTP API calls with bounded concurrency
+	 * 
+	 * @param requests       - Calls to make
+	 * @param maxConcurrency - Maximum number of calls in flight at a time
+	 * @param batchTimeout   - Deadline for the whole batch in seconds (0 for none)
+	 * 
+	 * @return Responses in request order as {@link CompletableFuture}
+	 */
+	public CompletableFuture<List<HttpResponse<String>>> invokeAPIBatchAsync(Collection<APIRequest> requests,
+			int maxConcurrency, long batchTimeout) {
+		return invokeBatch(new ArrayList<>(requests), maxConcurrency, batchTimeout, null);
+	}
+
+	/**
+	 * Asynchronously invoke a batch of HTTP API calls with bounded concurrency,
+	 * streaming each response to resultConsumer as soon as it arrives
+	 * 
+	 * @param requests       - Calls to make
+	 * @param maxConcurrency - Maximum number of calls in flight at a time
+	 * @param batchTimeout   - Deadline for the whole batch in seconds (0 for none)
+	 * @param resultConsumer - Called with request index and response, in
+	 *                       completion order
+	 * 
+	 * @return Responses in request order as {@link CompletableFuture}
+	 */
+	public CompletableFuture<List<HttpResponse<String>>> invokeAPIBatchAsync(Collection<APIRequest> requests,
+			int maxConcurrency, long batchTimeout, BiConsumer<Integer, HttpResponse<String>> resultConsumer) {
+		return invokeBatch(new ArrayList<>(requests), maxConcurrency, batchTimeout, resultConsumer);
+	}
+
 }
\ No newline at end of file
@@ -1,30 +1,31 @@
 package giri.apurba.apps.service.core;
 
-import java.util.Map;
-
 import giri.apurba.apps.model.HttpErrorResponse;
+import giri.apurba.apps.service.core.HttpClientRegistry.ClientKey;
+import giri.apurba.apps.service.core.RequestCoalescer.FlightKey;
+import giri.apurba.apps.service.core.ResponseCache.CacheKey;
 
-import static java.util.Map.entry;
-
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Base64;
-
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 public class APIServiceBase {
 
-	private final static boolean IS_SSL_VERIFY_DISABLED = true;
-
 	public static enum HttpMethod {
 		GET, POST, PUT, DELETE
 	};
@@ -34,13 +35,88 @@ public class APIServiceBase {
 	};
 
 	public static enum ContentType {
-		JSON, XML, URL_ENCODED, FORM_DATA
+		JSON("application/json"), XML("application/xml"), URL_ENCODED("application/x-www-form-urlencoded"),
+		FORM_DATA("multipart/form-data");
+
+		private final String mimeType;
+
+		private ContentType(String mimeType) {
+			this.mimeType = mimeType;
+		}
+
+		/**
+		 * Returns the 'Content-Type' header value
+		 *
+		 * @return MIME type
+		 */
+		public String mimeType() {
+			return mimeType;
+		}
 	};
 
-	private static Map<String, String> contentTypes = Map.ofEntries(entry(ContentType.JSON.name(), "application/json"),
-			entry(ContentType.XML.name(), "application/xml"),
-			entry(ContentType.URL_ENCODED.name(), "application/x-www-form-urlencoded"),
-			entry(ContentType.FORM_DATA.name(), "multipart/form-data"));
+	/**
+	 * Most credentials an application uses at a time; the cache of encoded
+	 * BASIC authentication headers starts over once it holds more
+	 */
+	private static final int MAX_BASIC_AUTH_HEADERS = 32;
+
+	/**
+	 * Encoded BASIC authentication headers by 'username:password', so that
+	 * repeated calls with the same credentials don't re-encode them
+	 */
+	private static final ConcurrentHashMap<String, String> basicAuthHeaders = new ConcurrentHashMap<>();
+
+	/**
+	 * Request body prepared once per call, so that retries and hedges send the
+	 * same publisher instead of compressing the body again
+	 *
+	 * @param publisher - Body publisher (null for no body)
+	 * @param gzip      - Whether the body is gzip compressed
+	 */
+	private static record PreparedBody(HttpRequest.BodyPublisher publisher, boolean gzip) {
+
+		/**
+		 * Prepares a request body, gzip compressed if {@link Compression} asks
+		 * for it
+		 *
+		 * @param requestBody - Request body content (null for no body)
+		 * @param serviceUrl  - Service URL, for compression metrics
+		 *
+		 * @return {@link PreparedBody}
+		 *
+		 * @throws IllegalArgumentException if the service URL is invalid
+		 */
+		static PreparedBody of(String requestBody, String serviceUrl) {
+			if (requestBody == null) {
+				return new PreparedBody(null, false);
+			}
+			if (Compression.getInstance().shouldCompress(requestBody)) {
+				byte[] compressed = Compression.getInstance().gzip(requestBody, URI.create(serviceUrl).getHost());
+				return new PreparedBody(HttpRequest.BodyPublishers.ofByteArray(compressed), true);
+			}
+			return new PreparedBody(HttpRequest.BodyPublishers.ofString(requestBody), false);
+		}
+	}
+
+	private static volatile InterceptorChain interceptorChain = InterceptorChain.EMPTY;
+
+	/**
+	 * Sets the interceptors applied to all calls
+	 *
+	 * @param chain - {@link InterceptorChain}, null for none
+	 */
+	public static void setInterceptorChain(InterceptorChain chain) {
+		interceptorChain = chain != null ? chain : InterceptorChain.EMPTY;
+	}
+
+	/**
+	 * Returns the interceptors applied to all calls
+	 *
+	 * @return {@link InterceptorChain}
+	 */
+	public static InterceptorChain getInterceptorChain() {
+		return interceptorChain;
+	}
 
 	/**
 	 * Method to invoke HTTP API service
@@ -64,31 +140,1000 @@ public class APIServiceBase {
 	 */
 	protected HttpResponse<String> invoke(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
 			AuthType authType, String authLiteral, String requestBody, long requestTimeout, long connectionTimeout) {
+		return dispatch(httpMethod, contentType, serviceUrl, getAuthHeaderValue(authType, authLiteral), requestBody,
+				requestTimeout, connectionTimeout);
+	}
+
+	/**
+	 * Method to invoke a precompiled {@link EndpointTemplate}. Only the URL
+	 * variables are substituted per call, method, content type, authentication
+	 * header and timeouts are taken from the template as is.
+	 * 
+	 * @param endpoint    - Endpoint template
+	 * @param requestBody - Request body content (null for no body)
+	 * @param variables   - Values of the URL variables in template order
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	protected HttpResponse<String> invoke(EndpointTemplate endpoint, String requestBody, String[] variables) {
+		String authHeaderValue;
+		try {
+			authHeaderValue = endpoint.authHeaderValue();
+		} catch (IllegalStateException e) {
+			return new HttpErrorResponse(e);
+		}
+		return dispatch(endpoint.httpMethod(), endpoint.contentType(), endpoint.expand(variables), authHeaderValue,
+				requestBody, endpoint.requestTimeout(), endpoint.connectionTimeout());
+	}
+
+	private HttpResponse<String> dispatch(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			String authHeaderValue, String requestBody, long requestTimeout, long connectionTimeout) {
+		CacheKey cacheKey = getCacheKey(httpMethod, serviceUrl, authHeaderValue);
+		ResponseCache.Entry cached = cacheKey != null ? ResponseCache.getInstance().get(cacheKey) : null;
+		if (cached != null && cached.isFresh()) {
+			return cached.response();
+		}
+
+		FlightKey flightKey = getFlightKey(httpMethod, serviceUrl, authHeaderValue);
+		if (flightKey != null) {
+			return RequestCoalescer.getInstance().execute(flightKey, () -> send(httpMethod, contentType, serviceUrl,
+					authHeaderValue, requestBody, requestTimeout, connectionTimeout, cacheKey, cached));
+		}
+		return send(httpMethod, contentType, serviceUrl, authHeaderValue, requestBody, requestTimeout,
+				connectionTimeout, cacheKey, cached);
+	}
+
+	/**
+	 * Method to invoke HTTP API service asynchronously. The calling thread is not
+	 * blocked while the request is in flight. Failures complete the returned
+	 * future with an {@link HttpErrorResponse}, same as {@link #invoke}.
+	 * 
+	 * @param httpMethod        - HTTP method to invoke on the API service (e.g.
+	 *                          {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                          {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType       - Request body {@link ContentType} (e.g.
+	 *                          {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service (e.g.
+	 *                          {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 *                          (For BASIC, set to 'username:password' format)
+	 * @param requestBody       - Request body content
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	protected CompletableFuture<HttpResponse<String>> invokeAsync(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, AuthType authType, String authLiteral, String requestBody, long requestTimeout,
+			long connectionTimeout) {
+		return dispatchAsync(httpMethod, contentType, serviceUrl, getAuthHeaderValue(authType, authLiteral),
+				requestBody, requestTimeout, connectionTimeout, null);
+	}
+
+	/**
+	 * Method to invoke a precompiled {@link EndpointTemplate} asynchronously
+	 * 
+	 * @param endpoint    - Endpoint template
+	 * @param requestBody - Request body content (null for no body)
+	 * @param variables   - Values of the URL variables in template order
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	protected CompletableFuture<HttpResponse<String>> invokeAsync(EndpointTemplate endpoint, String requestBody,
+			String[] variables) {
+		String authHeaderValue;
+		try {
+			authHeaderValue = endpoint.authHeaderValue();
+		} catch (IllegalStateException e) {
+			return CompletableFuture.completedFuture(new HttpErrorResponse(e));
+		}
+		return dispatchAsync(endpoint.httpMethod(), endpoint.contentType(), endpoint.expand(variables),
+				authHeaderValue, requestBody, endpoint.requestTimeout(), endpoint.connectionTimeout(), null);
+	}
+
+	/**
+	 * Serves a call from {@link ResponseCache} or sends it, coalesced with
+	 * identical calls in flight unless it may be aborted on its own
+	 * 
+	 * @param cancelSignal - The upstream exchange is aborted once this future
+	 *                     completes (null if it is never aborted)
+	 */
+	private CompletableFuture<HttpResponse<String>> dispatchAsync(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, String authHeaderValue, String requestBody, long requestTimeout,
+			long connectionTimeout, CompletableFuture<?> cancelSignal) {
+		CacheKey cacheKey = getCacheKey(httpMethod, serviceUrl, authHeaderValue);
+		ResponseCache.Entry cached = cacheKey != null ? ResponseCache.getInstance().get(cacheKey) : null;
+		if (cached != null && cached.isFresh()) {
+			return CompletableFuture.completedFuture(cached.response());
+		}
+
+		// aborting a shared flight would fail the other callers waiting for it
+		FlightKey flightKey = cancelSignal == null ? getFlightKey(httpMethod, serviceUrl, authHeaderValue) : null;
+		if (flightKey != null) {
+			return RequestCoalescer.getInstance().executeAsync(flightKey, () -> sendAsync(httpMethod, contentType,
+					serviceUrl, authHeaderValue, requestBody, requestTimeout, connectionTimeout, cacheKey, cached,
+					null));
+		}
+		return sendAsync(httpMethod, contentType, serviceUrl, authHeaderValue, requestBody, requestTimeout,
+				connectionTimeout, cacheKey, cached, cancelSignal);
+	}
+
+	/**
+	 * Method to invoke a batch of HTTP API calls with bounded concurrency. Calls
+	 * are made asynchronously over the shared client, so a batch takes about as
+	 * long as its slowest calls rather than the sum of all calls. A failed call
+	 * doesn't fail the batch, its slot holds an {@link HttpErrorResponse}.
+	 * 
+	 * @param requests       - Calls to make
+	 * @param maxConcurrency - Maximum number of calls in flight at a time
+	 * @param batchTimeout   - Deadline for the whole batch in seconds. Calls not
+	 *                       finished by then get a 504 {@link HttpErrorResponse}
+	 *                       and are aborted. 0 for no deadline.
+	 * @param resultConsumer - Called with request index and response as each call
+	 *                       finishes, in completion order (null if not needed)
+	 * 
+	 * @return Responses in request order as {@link CompletableFuture}
+	 */
+	protected CompletableFuture<List<HttpResponse<String>>> invokeBatch(List<APIRequest> requests,
+			int maxConcurrency, long batchTimeout, BiConsumer<Integer, HttpResponse<String>> resultConsumer) {
+		return new BatchInvocation(requests,
+				(request, cancelSignal) -> dispatchAsync(request.httpMethod(), request.contentType(),
+						request.serviceUrl(), getAuthHeaderValue(request.authType(), request.authLiteral()),
+						request.requestBody(), request.requestTimeout(), request.connectionTimeout(), cancelSignal),
+				resultConsumer).start(maxConcurrency, batchTimeout);
+	}
+
+	/**
+	 * Method to invoke HTTP API service and stream the response body. Bytes are
+	 * handed to the caller as they arrive instead of being collected into a
+	 * String first, so large responses can be processed incrementally (e.g. with
+	 * {@link giri.apurba.apps.util.JSONUtil#forEachArrayElement}). Streamed
+	 * responses are neither cached nor coalesced. The caller must close the
+	 * returned stream. Failures are returned as {@link HttpErrorResponse} JSON.
+	 * 
+	 * @param httpMethod        - HTTP method to invoke on the API service (e.g.
+	 *                          {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                          {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType       - Request body {@link ContentType} (e.g.
+	 *                          {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service (e.g.
+	 *                          {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 *                          (For BASIC, set to 'username:password' format)
+	 * @param requestBody       - Request body content
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * 
+	 * @return Service response as {@link HttpResponse} of {@link InputStream}
+	 */
+	protected HttpResponse<InputStream> invokeStream(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, AuthType authType, String authLiteral, String requestBody, long requestTimeout,
+			long connectionTimeout) {
+		return invokeWith(httpMethod, contentType, serviceUrl, authType, authLiteral,
+				requestBody != null ? HttpRequest.BodyPublishers.ofString(requestBody) : null, requestTimeout,
+				connectionTimeout, HttpResponse.BodyHandlers.ofInputStream(), APIServiceBase::errorStream);
+	}
+
+	/**
+	 * Method to invoke a precompiled {@link EndpointTemplate} and stream the
+	 * response body, see {@link #invokeStream(HttpMethod, ContentType, String,
+	 * AuthType, String, String, long, long)}
+	 * 
+	 * @param endpoint    - Endpoint template
+	 * @param requestBody - Request body content (null for no body)
+	 * @param variables   - Values of the URL variables in template order
+	 * 
+	 * @return Service response as {@link HttpResponse} of {@link InputStream}
+	 */
+	protected HttpResponse<InputStream> invokeStream(EndpointTemplate endpoint, String requestBody,
+			String[] variables) {
+		String authHeaderValue;
+		try {
+			authHeaderValue = endpoint.authHeaderValue();
+		} catch (IllegalStateException e) {
+			return new HttpErrorResponse(e).mapBody(APIServiceBase::errorStream);
+		}
+		return dispatchWith(endpoint.httpMethod(), endpoint.contentType(), endpoint.expand(variables),
+				authHeaderValue, requestBody != null ? HttpRequest.BodyPublishers.ofString(requestBody) : null,
+				endpoint.requestTimeout(), endpoint.connectionTimeout(), HttpResponse.BodyHandlers.ofInputStream(),
+				APIServiceBase::errorStream);
+	}
+
+	private static InputStream errorStream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Method to invoke HTTP API service with any request body publisher and
+	 * response body handler, e.g. to upload a file or a {@link MultipartBody},
+	 * or to stream the response to disk. Such calls are neither cached,
+	 * coalesced nor retried, as the request body may only be readable once.
+	 * 
+	 * @param <T>                 Response body type
+	 * @param httpMethod          - HTTP method to invoke on the API service (e.g.
+	 *                            {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                            {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType         - Request body {@link ContentType} (e.g.
+	 *                            {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl          - Service URL for the API service
+	 * @param authType            - Authentication type for the API service (e.g.
+	 *                            {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral         - Authentication value based on {@link AuthType}
+	 *                            (For BASIC, set to 'username:password' format)
+	 * @param requestBody         - Request body publisher (null for no body)
+	 * @param requestTimeout      - Sets a timeout for this request.
+	 * @param connectionTimeout   - Sets the connect timeout duration for
+	 *                            {@link HttpClient}
+	 * @param responseBodyHandler - Handler of the response body
+	 * @param errorBodyMapper     - Converts {@link HttpErrorResponse} JSON to the
+	 *                            response body type
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	protected <T> HttpResponse<T> invokeWith(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			AuthType authType, String authLiteral, HttpRequest.BodyPublisher requestBody, long requestTimeout,
+			long connectionTimeout, HttpResponse.BodyHandler<T> responseBodyHandler,
+			Function<String, T> errorBodyMapper) {
+		return dispatchWith(httpMethod, contentType, serviceUrl, getAuthHeaderValue(authType, authLiteral),
+				requestBody, requestTimeout, connectionTimeout, responseBodyHandler, errorBodyMapper);
+	}
+
+	private <T> HttpResponse<T> dispatchWith(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			String authHeaderValue, HttpRequest.BodyPublisher requestBody, long requestTimeout,
+			long connectionTimeout, HttpResponse.BodyHandler<T> responseBodyHandler,
+			Function<String, T> errorBodyMapper) {
+		HttpResponse<T> response;
+		HttpRequest httpRequest;
+		try {
+			httpRequest = getRequestBuilder(httpMethod, contentType, serviceUrl, authHeaderValue, requestBody,
+					requestTimeout).build();
+		} catch (RuntimeException e) {
+			// invalid service URL or a failing interceptor
+			return new HttpErrorResponse(e).mapBody(errorBodyMapper);
+		}
+		HttpClient httpClient;
+		long startNanos = System.nanoTime();
+		try {
+			httpClient = getHttpClient(connectionTimeout, httpRequest.uri());
+			HttpErrorResponse rejection = throttle(httpRequest);
+			if (rejection == null) {
+				rejection = admit(httpRequest);
+			}
+			if (rejection != null) {
+				return rejection.mapBody(errorBodyMapper);
+			}
+		} catch (InterruptedException | RuntimeException e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			return new HttpErrorResponse(e, httpRequest, startNanos).mapBody(errorBodyMapper);
+		}
+		// time spent waiting for rate limiter permits is not call latency
+		startNanos = System.nanoTime();
+		HostBulkhead bulkhead = HostBulkheads.getInstance().get(httpRequest.uri().getHost());
+		// the call was admitted, so every outcome must be released
+		try {
+			response = intercept(httpClient, httpRequest, responseBodyHandler);
+		} catch (IOException | InterruptedException | RuntimeException e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			release(bulkhead, httpRequest, null, e, startNanos);
+			return new HttpErrorResponse(e, httpRequest, startNanos).mapBody(errorBodyMapper);
+		}
+		release(bulkhead, httpRequest, response, null, startNanos);
+		return response;
+	}
+
+	/**
+	 * Returns a publisher of an error body, for calls returning
+	 * {@link Flow.Publisher} bodies
+	 * 
+	 * @param body - Error JSON
+	 * 
+	 * @return {@link Flow.Publisher} emitting the body as a single list
+	 */
+	protected static Flow.Publisher<List<ByteBuffer>> errorPublisher(String body) {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		return new SinglePublisher<>(() -> List.of(ByteBuffer.wrap(bytes)));
+	}
+
+	/**
+	 * Method to invoke HTTP API service and decode a successful JSON response
+	 * body straight into given type (e.g. a record) with the shared reader of
+	 * {@link giri.apurba.apps.util.JSONUtil#readerFor(Class)}, see
+	 * {@link JSONBodyHandler}. Like {@link #invokeWith}, such calls are neither
+	 * cached, coalesced nor retried.
+	 * 
+	 * @param <T>               Body type
+	 * @param httpMethod        - HTTP method to invoke on the API service (e.g.
+	 *                          {@link HttpMethod.GET}, {@link HttpMethod.POST},
+	 *                          {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
+	 * @param contentType       - Request body {@link ContentType} (e.g.
+	 *                          {@link ContentType.JSON}, {@link ContentType.XML})
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service (e.g.
+	 *                          {@link AuthType.BEARER}, {@link AuthType.BASIC})
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 *                          (For BASIC, set to 'username:password' format)
+	 * @param requestBody       - Request body content
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * @param type              - Type the response body is decoded into
+	 * 
+	 * @return Service response as {@link HttpResponse} of the decoded body. The
+	 *         body is null if the call failed, the status is not 2xx or the body
+	 *         couldn't be decoded, see {@link HttpErrorResponse#from}.
+	 */
+	protected <T> HttpResponse<T> invokeJSON(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			AuthType authType, String authLiteral, String requestBody, long requestTimeout, long connectionTimeout,
+			Class<T> type) {
+		JSONBodyHandler<T> handler = new JSONBodyHandler<>(type);
+		return handler.typed(invokeWith(httpMethod, contentType, serviceUrl, authType, authLiteral,
+				requestBody != null ? HttpRequest.BodyPublishers.ofString(requestBody) : null, requestTimeout,
+				connectionTimeout, handler, body -> null));
+	}
+
+	/**
+	 * Method to invoke a precompiled {@link EndpointTemplate} and decode the
+	 * response body into given type, see {@link #invokeJSON(HttpMethod,
+	 * ContentType, String, AuthType, String, String, long, long, Class)}
+	 * 
+	 * @param <T>         Body type
+	 * @param endpoint    - Endpoint template
+	 * @param requestBody - Request body content (null for no body)
+	 * @param variables   - Values of the URL variables in template order
+	 * @param type        - Type the response body is decoded into
+	 * 
+	 * @return Service response as {@link HttpResponse} of the decoded body
+	 */
+	protected <T> HttpResponse<T> invokeJSON(EndpointTemplate endpoint, String requestBody, String[] variables,
+			Class<T> type) {
+		String authHeaderValue;
+		try {
+			authHeaderValue = endpoint.authHeaderValue();
+		} catch (IllegalStateException e) {
+			return new HttpErrorResponse(e).mapBody(body -> null);
+		}
+		JSONBodyHandler<T> handler = new JSONBodyHandler<>(type);
+		return handler.typed(dispatchWith(endpoint.httpMethod(), endpoint.contentType(), endpoint.expand(variables),
+				authHeaderValue, requestBody != null ? HttpRequest.BodyPublishers.ofString(requestBody) : null,
+				endpoint.requestTimeout(), endpoint.connectionTimeout(), handler, body -> null));
+	}
+
+	/**
+	 * Method to invoke HTTP API service asynchronously and decode the response
+	 * body into given type, see {@link #invokeJSON(HttpMethod, ContentType,
+	 * String, AuthType, String, String, long, long, Class)}
+	 * 
+	 * @param <T>               Body type
+	 * @param httpMethod        - HTTP method to invoke on the API service
+	 * @param contentType       - Request body {@link ContentType}
+	 * @param serviceUrl        - Service URL for the API service
+	 * @param authType          - Authentication type for the API service
+	 * @param authLiteral       - Authentication value based on {@link AuthType}
+	 * @param requestBody       - Request body content
+	 * @param requestTimeout    - Sets a timeout for this request.
+	 * @param connectionTimeout - Sets the connect timeout duration for
+	 *                          {@link HttpClient}
+	 * @param type              - Type the response body is decoded into
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse} of the decoded body
+	 */
+	protected <T> CompletableFuture<HttpResponse<T>> invokeJSONAsync(HttpMethod httpMethod,
+			ContentType contentType, String serviceUrl, AuthType authType, String authLiteral, String requestBody,
+			long requestTimeout, long connectionTimeout, Class<T> type) {
+		JSONBodyHandler<T> handler = new JSONBodyHandler<>(type);
+		return dispatchWithAsync(httpMethod, contentType, serviceUrl, getAuthHeaderValue(authType, authLiteral),
+				requestBody != null ? HttpRequest.BodyPublishers.ofString(requestBody) : null, requestTimeout,
+				connectionTimeout, handler, body -> null).thenApply(handler::typed);
+	}
+
+	/**
+	 * Method to invoke a precompiled {@link EndpointTemplate} asynchronously and
+	 * decode the response body into given type
+	 * 
+	 * @param <T>         Body type
+	 * @param endpoint    - Endpoint template
+	 * @param requestBody - Request body content (null for no body)
+	 * @param variables   - Values of the URL variables in template order
+	 * @param type        - Type the response body is decoded into
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse} of the decoded body
+	 */
+	protected <T> CompletableFuture<HttpResponse<T>> invokeJSONAsync(EndpointTemplate endpoint,
+			String requestBody, String[] variables, Class<T> type) {
+		String authHeaderValue;
+		try {
+			authHeaderValue = endpoint.authHeaderValue();
+		} catch (IllegalStateException e) {
+			return CompletableFuture.completedFuture(new HttpErrorResponse(e).mapBody(body -> null));
+		}
+		JSONBodyHandler<T> handler = new JSONBodyHandler<>(type);
+		return dispatchWithAsync(endpoint.httpMethod(), endpoint.contentType(), endpoint.expand(variables),
+				authHeaderValue, requestBody != null ? HttpRequest.BodyPublishers.ofString(requestBody) : null,
+				endpoint.requestTimeout(), endpoint.connectionTimeout(), handler, body -> null)
+				.thenApply(handler::typed);
+	}
+
+	private <T> CompletableFuture<HttpResponse<T>> dispatchWithAsync(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, String authHeaderValue, HttpRequest.BodyPublisher requestBody, long requestTimeout,
+			long connectionTimeout, HttpResponse.BodyHandler<T> responseBodyHandler,
+			Function<String, T> errorBodyMapper) {
+		HttpRequest httpRequest;
+		try {
+			httpRequest = getRequestBuilder(httpMethod, contentType, serviceUrl, authHeaderValue, requestBody,
+					requestTimeout).build();
+		} catch (RuntimeException e) {
+			// invalid service URL or a failing interceptor
+			return CompletableFuture.completedFuture(new HttpErrorResponse(e).mapBody(errorBodyMapper));
+		}
+		HttpClient httpClient;
+		long waitNanos;
+		try {
+			httpClient = getHttpClient(connectionTimeout, httpRequest.uri());
+			waitNanos = RateLimiter.getInstance().acquire(httpRequest);
+		} catch (RuntimeException e) {
+			return CompletableFuture.completedFuture(new HttpErrorResponse(e, httpRequest, 0).mapBody(errorBodyMapper));
+		}
+		if (waitNanos < 0) {
+			return CompletableFuture.completedFuture(throttled(httpRequest).mapBody(errorBodyMapper));
+		}
+		if (waitNanos > 0) {
+			return CompletableFuture.runAsync(() -> {
+			}, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)).thenCompose(
+					granted -> admitWithAsync(httpClient, httpRequest, responseBodyHandler, errorBodyMapper));
+		}
+		return admitWithAsync(httpClient, httpRequest, responseBodyHandler, errorBodyMapper);
+	}
+
+	/**
+	 * Sends a request with any response body handler that got its rate limiter
+	 * permits, unless the circuit breaker or bulkhead of its host rejects it
+	 */
+	private static <T> CompletableFuture<HttpResponse<T>> admitWithAsync(HttpClient httpClient,
+			HttpRequest httpRequest, HttpResponse.BodyHandler<T> responseBodyHandler,
+			Function<String, T> errorBodyMapper) {
+		HttpErrorResponse rejection = admit(httpRequest);
+		if (rejection != null) {
+			return CompletableFuture.completedFuture(rejection.mapBody(errorBodyMapper));
+		}
+		HostBulkhead bulkhead = HostBulkheads.getInstance().get(httpRequest.uri().getHost());
+		long startNanos = System.nanoTime();
+		CompletableFuture<HttpResponse<T>> response;
+		try {
+			response = interceptAsync(httpClient, httpRequest, responseBodyHandler, null);
+		} catch (RuntimeException e) {
+			// released below like any failed call
+			response = CompletableFuture.failedFuture(e);
+		}
+		return response.whenComplete((r, e) -> release(bulkhead, httpRequest, r, e, startNanos))
+				.exceptionally(e -> new HttpErrorResponse(e, httpRequest, startNanos).mapBody(errorBodyMapper));
+	}
+
+	/**
+	 * Sends the request upstream. Idempotent GET calls go through
+	 * {@link Resilience} for retries and hedging.
+	 * 
+	 * @param httpMethod
+	 * @param contentType
+	 * @param serviceUrl
+	 * @param authHeaderValue
+	 * @param requestBody
+	 * @param requestTimeout
+	 * @param connectionTimeout
+	 * @param cacheKey          - null if the response is not cached
+	 * @param cached            - Cached entry to revalidate (null if none)
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	private HttpResponse<String> send(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			String authHeaderValue, String requestBody, long requestTimeout, long connectionTimeout,
+			CacheKey cacheKey, ResponseCache.Entry cached) {
+		PreparedBody body;
+		try {
+			body = PreparedBody.of(requestBody, serviceUrl);
+		} catch (RuntimeException e) {
+			// invalid service URL
+			return new HttpErrorResponse(e);
+		}
+		if (httpMethod != HttpMethod.GET) {
+			return exchange(httpMethod, contentType, serviceUrl, authHeaderValue, body, requestTimeout,
+					connectionTimeout, cacheKey, cached);
+		}
+		return Resilience.getInstance().execute(URI.create(serviceUrl).getHost(),
+				() -> exchange(httpMethod, contentType, serviceUrl, authHeaderValue, body, requestTimeout,
+						connectionTimeout, cacheKey, cached),
+				cancelSignal -> exchangeAsync(httpMethod, contentType, serviceUrl, authHeaderValue, body,
+						requestTimeout, connectionTimeout, cacheKey, cached, cancelSignal));
+	}
+
+	/**
+	 * Sends the request upstream asynchronously. Idempotent GET calls go through
+	 * {@link Resilience} for retries and hedging.
+	 * 
+	 * @param httpMethod
+	 * @param contentType
+	 * @param serviceUrl
+	 * @param authHeaderValue
+	 * @param requestBody
+	 * @param requestTimeout
+	 * @param connectionTimeout
+	 * @param cacheKey          - null if the response is not cached
+	 * @param cached            - Cached entry to revalidate (null if none)
+	 * @param cancelSignal      - Every attempt is aborted once this future
+	 *                          completes (null if the call is never aborted)
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	private CompletableFuture<HttpResponse<String>> sendAsync(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, String authHeaderValue, String requestBody, long requestTimeout,
+			long connectionTimeout, CacheKey cacheKey, ResponseCache.Entry cached, CompletableFuture<?> cancelSignal) {
+		PreparedBody body;
+		try {
+			body = PreparedBody.of(requestBody, serviceUrl);
+		} catch (RuntimeException e) {
+			// invalid service URL
+			return CompletableFuture.completedFuture(new HttpErrorResponse(e));
+		}
+		if (httpMethod != HttpMethod.GET) {
+			return exchangeAsync(httpMethod, contentType, serviceUrl, authHeaderValue, body, requestTimeout,
+					connectionTimeout, cacheKey, cached, cancelSignal);
+		}
+		return Resilience.getInstance().executeAsync(URI.create(serviceUrl).getHost(),
+				attemptSignal -> exchangeAsync(httpMethod, contentType, serviceUrl, authHeaderValue, body,
+						requestTimeout, connectionTimeout, cacheKey, cached, either(attemptSignal, cancelSignal)));
+	}
+
+	/**
+	 * Returns a signal that completes once either of given signals completes
+	 * 
+	 * @param first  - null if none
+	 * @param second - null if none
+	 * 
+	 * @return Combined signal, null if both are null
+	 */
+	private static CompletableFuture<?> either(CompletableFuture<?> first, CompletableFuture<?> second) {
+		if (first == null) {
+			return second;
+		}
+		if (second == null) {
+			return first;
+		}
+		return CompletableFuture.anyOf(first, second);
+	}
+
+	/**
+	 * Performs a single upstream exchange and updates {@link ResponseCache}
+	 * 
+	 * @param httpMethod
+	 * @param contentType
+	 * @param serviceUrl
+	 * @param authHeaderValue
+	 * @param requestBody
+	 * @param requestTimeout
+	 * @param connectionTimeout
+	 * @param cacheKey          - null if the response is not cached
+	 * @param cached            - Cached entry to revalidate (null if none)
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 */
+	private HttpResponse<String> exchange(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			String authHeaderValue, PreparedBody requestBody, long requestTimeout, long connectionTimeout,
+			CacheKey cacheKey, ResponseCache.Entry cached) {
 		HttpResponse<String> response;
+		HttpRequest httpRequest;
+		try {
+			httpRequest = buildRequest(httpMethod, contentType, serviceUrl, authHeaderValue, requestBody,
+					requestTimeout, cached);
+		} catch (RuntimeException e) {
+			// invalid service URL or a failing interceptor
+			return new HttpErrorResponse(e);
+		}
+		HttpClient httpClient;
+		long startNanos = System.nanoTime();
+		try {
+			httpClient = getHttpClient(connectionTimeout, httpRequest.uri());
+			HttpErrorResponse rejection = throttle(httpRequest);
+			if (rejection == null) {
+				rejection = admit(httpRequest);
+			}
+			if (rejection != null) {
+				return rejection;
+			}
+		} catch (InterruptedException | RuntimeException e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			return new HttpErrorResponse(e, httpRequest, startNanos);
+		}
+		// time spent waiting for rate limiter permits is not call latency
+		startNanos = System.nanoTime();
+		HostBulkhead bulkhead = HostBulkheads.getInstance().get(httpRequest.uri().getHost());
+		// the call was admitted, so every outcome must be released
 		try {
-			HttpClient httpClient = getClientBuilder(connectionTimeout).build();
-			HttpRequest httpRequest = getRequestBuilder(httpMethod, contentType, serviceUrl,
-					getAuthHeaderValue(authType, authLiteral), requestBody, requestTimeout).build();
-			response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-		} catch (IOException | InterruptedException | KeyManagementException | NoSuchAlgorithmException e) {
-			response = new HttpErrorResponse(e.getMessage());
+			response = intercept(httpClient, httpRequest, HttpResponse.BodyHandlers.ofString());
+		} catch (IOException | InterruptedException | RuntimeException e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			release(bulkhead, httpRequest, null, e, startNanos);
+			return new HttpErrorResponse(e, httpRequest, startNanos);
+		}
+		release(bulkhead, httpRequest, response, null, startNanos);
+		if (cacheKey != null) {
+			response = ResponseCache.getInstance().update(cacheKey, cached, response);
 		}
 		return response;
 	}
 
+	/**
+	 * Performs a single upstream exchange asynchronously and updates
+	 * {@link ResponseCache}
+	 * 
+	 * @param httpMethod
+	 * @param contentType
+	 * @param serviceUrl
+	 * @param authHeaderValue
+	 * @param requestBody
+	 * @param requestTimeout
+	 * @param connectionTimeout
+	 * @param cacheKey          - null if the response is not cached
+	 * @param cached            - Cached entry to revalidate (null if none)
+	 * @param cancelSignal      - The exchange is aborted once this future
+	 *                          completes (null if it is never aborted)
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	private CompletableFuture<HttpResponse<String>> exchangeAsync(HttpMethod httpMethod, ContentType contentType,
+			String serviceUrl, String authHeaderValue, PreparedBody requestBody, long requestTimeout,
+			long connectionTimeout, CacheKey cacheKey, ResponseCache.Entry cached, CompletableFuture<?> cancelSignal) {
+		HttpRequest httpRequest;
+		try {
+			httpRequest = buildRequest(httpMethod, contentType, serviceUrl, authHeaderValue, requestBody,
+					requestTimeout, cached);
+		} catch (RuntimeException e) {
+			// invalid service URL or a failing interceptor
+			return CompletableFuture.completedFuture(new HttpErrorResponse(e));
+		}
+		HttpClient httpClient;
+		long waitNanos;
+		try {
+			httpClient = getHttpClient(connectionTimeout, httpRequest.uri());
+			waitNanos = RateLimiter.getInstance().acquire(httpRequest);
+		} catch (RuntimeException e) {
+			return CompletableFuture.completedFuture(new HttpErrorResponse(e, httpRequest, 0));
+		}
+		if (waitNanos < 0) {
+			return CompletableFuture.completedFuture(throttled(httpRequest));
+		}
+		if (waitNanos > 0) {
+			return CompletableFuture.runAsync(() -> {
+			}, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)).thenCompose(
+					granted -> admitAsync(httpClient, httpRequest, cacheKey, cached, cancelSignal));
+		}
+		return admitAsync(httpClient, httpRequest, cacheKey, cached, cancelSignal);
+	}
+
+	/**
+	 * Sends a request that got its rate limiter permits, unless the circuit
+	 * breaker or bulkhead of its host rejects it
+	 */
+	private CompletableFuture<HttpResponse<String>> admitAsync(HttpClient httpClient, HttpRequest httpRequest,
+			CacheKey cacheKey, ResponseCache.Entry cached, CompletableFuture<?> cancelSignal) {
+		HttpErrorResponse rejection = admit(httpRequest);
+		if (rejection != null) {
+			return CompletableFuture.completedFuture(rejection);
+		}
+		HostBulkhead bulkhead = HostBulkheads.getInstance().get(httpRequest.uri().getHost());
+		long startNanos = System.nanoTime();
+		CompletableFuture<HttpResponse<String>> response;
+		try {
+			response = interceptAsync(httpClient, httpRequest, HttpResponse.BodyHandlers.ofString(), cancelSignal);
+		} catch (RuntimeException e) {
+			// released below like any failed call
+			response = CompletableFuture.failedFuture(e);
+		}
+		response = response.whenComplete((r, e) -> release(bulkhead, httpRequest, r, e, startNanos));
+		if (cacheKey != null) {
+			response = response.thenApply(r -> ResponseCache.getInstance().update(cacheKey, cached, r));
+		}
+		return response.exceptionally(e -> new HttpErrorResponse(e, httpRequest, startNanos));
+	}
+
+	/**
+	 * Sends a request through the {@link InterceptorChain}
+	 * 
+	 * @param <T>         Body type
+	 * @param httpClient
+	 * @param httpRequest
+	 * @param bodyHandler
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 * 
+	 * @throws IOException          also if an interceptor failed
+	 * @throws InterruptedException
+	 */
+	private static <T> HttpResponse<T> intercept(HttpClient httpClient, HttpRequest httpRequest,
+			HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+		InterceptorChain chain = interceptorChain;
+		if (chain.isEmpty()) {
+			return transmit(httpClient, httpRequest, bodyHandler);
+		}
+		try {
+			return chain.proceed(httpRequest, new Transmission<>(httpClient, bodyHandler, null));
+		} catch (RuntimeException e) {
+			throw new IOException("Interceptor failed: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Sends a request asynchronously through the {@link InterceptorChain}
+	 * 
+	 * @param <T>          Body type
+	 * @param httpClient
+	 * @param httpRequest
+	 * @param bodyHandler
+	 * @param cancelSignal - The exchange is aborted once this future completes
+	 *                     (null if it is never aborted)
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	private static <T> CompletableFuture<HttpResponse<T>> interceptAsync(HttpClient httpClient,
+			HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler, CompletableFuture<?> cancelSignal) {
+		InterceptorChain chain = interceptorChain;
+		if (chain.isEmpty()) {
+			return transmitAsync(httpClient, httpRequest, bodyHandler, cancelSignal);
+		}
+		return chain.proceedAsync(httpRequest, new Transmission<>(httpClient, bodyHandler, cancelSignal));
+	}
+
+	/**
+	 * End of the {@link InterceptorChain}, sends requests upstream
+	 */
+	private static record Transmission<T>(HttpClient httpClient, HttpResponse.BodyHandler<T> bodyHandler,
+			CompletableFuture<?> cancelSignal) implements InterceptorChain.Exchange<T> {
+
+		@Override
+		public HttpResponse<T> send(HttpRequest request) throws IOException, InterruptedException {
+			return transmit(httpClient, request, bodyHandler);
+		}
+
+		@Override
+		public CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request) {
+			return transmitAsync(httpClient, request, bodyHandler, cancelSignal);
+		}
+	}
+
+	/**
+	 * Sends a request, waiting for a stream of the host's {@link StreamLimit}
+	 * first if HTTP/2 streams are limited. Compressed responses are inflated
+	 * (see {@link Compression}). Responses are recorded or replayed if
+	 * {@link RecordReplay} is on.
+	 * 
+	 * @param <T>         Body type
+	 * @param httpClient
+	 * @param httpRequest
+	 * @param bodyHandler
+	 * 
+	 * @return Service response as {@link HttpResponse}
+	 * 
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private static <T> HttpResponse<T> transmit(HttpClient httpClient, HttpRequest httpRequest,
+			HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+		bodyHandler = Compression.getInstance().decoding(bodyHandler, httpRequest.uri().getHost());
+		RecordReplay recordReplay = RecordReplay.getInstance();
+		if (recordReplay.isReplaying()) {
+			return recordReplay.replay(httpRequest, bodyHandler);
+		}
+		if (recordReplay.isRecording()) {
+			bodyHandler = recordReplay.recording(httpRequest, bodyHandler);
+		}
+		StreamLimit streamLimit = UpstreamProtocols.getInstance().getStreamLimit(httpRequest.uri());
+		if (streamLimit == null) {
+			return httpClient.send(httpRequest, bodyHandler);
+		}
+		streamLimit.acquire();
+		try {
+			return httpClient.send(httpRequest, bodyHandler);
+		} finally {
+			streamLimit.release();
+		}
+	}
+
+	/**
+	 * Sends a request asynchronously, once a stream of the host's
+	 * {@link StreamLimit} is available if HTTP/2 streams are limited. Compressed
+	 * responses are inflated (see {@link Compression}). Responses are recorded or
+	 * replayed if {@link RecordReplay} is on.
+	 * 
+	 * @param <T>          Body type
+	 * @param httpClient
+	 * @param httpRequest
+	 * @param bodyHandler
+	 * @param cancelSignal - The exchange is aborted once this future completes
+	 *                     (null if it is never aborted)
+	 * 
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	private static <T> CompletableFuture<HttpResponse<T>> transmitAsync(HttpClient httpClient,
+			HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler, CompletableFuture<?> cancelSignal) {
+		HttpResponse.BodyHandler<T> decodingHandler = Compression.getInstance().decoding(bodyHandler,
+				httpRequest.uri().getHost());
+		RecordReplay recordReplay = RecordReplay.getInstance();
+		if (recordReplay.isReplaying()) {
+			return cancellable(recordReplay.replayAsync(httpRequest, decodingHandler), cancelSignal);
+		}
+		HttpResponse.BodyHandler<T> handler = recordReplay.isRecording()
+				? recordReplay.recording(httpRequest, decodingHandler)
+				: decodingHandler;
+		StreamLimit streamLimit = UpstreamProtocols.getInstance().getStreamLimit(httpRequest.uri());
+		if (streamLimit == null) {
+			return cancellable(httpClient.sendAsync(httpRequest, handler), cancelSignal);
+		}
+		return streamLimit.acquireAsync().thenCompose(
+				granted -> cancellable(httpClient.sendAsync(httpRequest, handler), cancelSignal)
+						.whenComplete((r, e) -> streamLimit.release()));
+	}
+
+	private static <T> CompletableFuture<T> cancellable(CompletableFuture<T> upstream,
+			CompletableFuture<?> cancelSignal) {
+		if (cancelSignal != null) {
+			cancelSignal.whenComplete((r, e) -> upstream.cancel(true));
+		}
+		return upstream;
+	}
+
+	/**
+	 * Takes the {@link RateLimiter} permits of a request, waiting for them if
+	 * needed
+	 * 
+	 * @param httpRequest
+	 * 
+	 * @return 429 {@link HttpErrorResponse} if the request is rejected, null if
+	 *         it may be sent
+	 * 
+	 * @throws InterruptedException
+	 */
+	private static HttpErrorResponse throttle(HttpRequest httpRequest) throws InterruptedException {
+		long waitNanos = RateLimiter.getInstance().acquire(httpRequest);
+		if (waitNanos < 0) {
+			return throttled(httpRequest);
+		}
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+		return null;
+	}
+
+	private static HttpErrorResponse throttled(HttpRequest httpRequest) {
+		APIMetrics.getInstance().recordRejection(httpRequest, APIMetrics.Rejection.RATE_LIMIT);
+		return new HttpErrorResponse(429, "Rate limit for upstream host " + httpRequest.uri().getHost() + " exceeded",
+				httpRequest);
+	}
+
+	/**
+	 * Admits a call through the host's {@link CircuitBreaker} and
+	 * {@link HostBulkhead}. An admitted call must be followed by
+	 * {@link #release}.
+	 * 
+	 * @param httpRequest
+	 * 
+	 * @return null if admitted, otherwise {@link HttpErrorResponse} with status
+	 *         503
+	 */
+	private static HttpErrorResponse admit(HttpRequest httpRequest) {
+		String host = httpRequest.uri().getHost();
+		CircuitBreaker circuitBreaker = Resilience.getInstance().circuitBreaker(host);
+		if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+			APIMetrics.getInstance().recordRejection(httpRequest, APIMetrics.Rejection.CIRCUIT_BREAKER);
+			return new HttpErrorResponse(503, "Circuit breaker for upstream host " + host + " is open", httpRequest);
+		}
+		HostBulkhead bulkhead = HostBulkheads.getInstance().get(host);
+		if (bulkhead != null && !bulkhead.tryAcquire()) {
+			if (circuitBreaker != null) {
+				circuitBreaker.abandon();
+			}
+			APIMetrics.getInstance().recordRejection(httpRequest, APIMetrics.Rejection.BULKHEAD);
+			return new HttpErrorResponse(503, "Upstream host " + host + " is saturated", httpRequest);
+		}
+		return null;
+	}
+
+	/**
+	 * Releases the slot taken in a {@link HostBulkhead} and records the outcome
+	 * of the call in {@link APIMetrics} and {@link Resilience}
+	 * 
+	 * @param bulkhead    - null if bulkheads are disabled
+	 * @param httpRequest - null if the request couldn't be built
+	 * @param response    - Upstream response (null if the call failed)
+	 * @param failure     - Failure of the call (null if a response was received)
+	 * @param startNanos  - {@link System#nanoTime()} before the call was sent
+	 */
+	private static void release(HostBulkhead bulkhead, HttpRequest httpRequest, HttpResponse<?> response,
+			Throwable failure, long startNanos) {
+		if (bulkhead != null) {
+			bulkhead.release(response, failure, startNanos);
+		}
+		APIMetrics.getInstance().record(httpRequest, response, failure, startNanos);
+		RateLimiter.getInstance().onResponse(httpRequest, response);
+		if (httpRequest != null) {
+			Resilience.getInstance().onResult(httpRequest.uri().getHost(), response, failure, startNanos);
+		}
+	}
+
+	/**
+	 * Returns {@link ResponseCache} key for a call, if the call is cacheable
+	 * 
+	 * @param httpMethod
+	 * @param serviceUrl
+	 * @param authHeaderValue
+	 * 
+	 * @return {@link CacheKey} or null if the response must not be cached
+	 */
+	private CacheKey getCacheKey(HttpMethod httpMethod, String serviceUrl, String authHeaderValue) {
+		if (httpMethod == HttpMethod.GET && ResponseCache.getInstance().isEnabled()) {
+			return new CacheKey(serviceUrl, authHeaderValue);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns {@link RequestCoalescer} key for a call, if identical in-flight
+	 * calls may share one upstream exchange
+	 * 
+	 * @param httpMethod
+	 * @param serviceUrl
+	 * @param authHeaderValue
+	 * 
+	 * @return {@link FlightKey} or null if the call must not be coalesced
+	 */
+	private FlightKey getFlightKey(HttpMethod httpMethod, String serviceUrl, String authHeaderValue) {
+		if (httpMethod == HttpMethod.GET && RequestCoalescer.getInstance().isEnabled()) {
+			return new FlightKey(httpMethod, serviceUrl, authHeaderValue);
+		}
+		return null;
+	}
+
 	/**
 	 * Sets the authentication header value for a given {@link AuthType} &
-	 * authLiteral
+	 * authLiteral. BASIC credentials are encoded as UTF-8 and the last encoded
+	 * header is reused while the credentials stay the same.
 	 * 
 	 * @param authType
 	 * @param authLiteral
 	 * 
 	 * @return Authentication header value
 	 */
-	private String getAuthHeaderValue(AuthType authType, String authLiteral) {
+	static String getAuthHeaderValue(AuthType authType, String authLiteral) {
 
 		if (authType == AuthType.BASIC) {
-			return "Basic " + Base64.getEncoder().encodeToString(authLiteral.getBytes());
+			String authHeaderValue = basicAuthHeaders.get(authLiteral);
+			if (authHeaderValue != null) {
+				return authHeaderValue;
+			}
+			authHeaderValue = "Basic "
+					+ Base64.getEncoder().encodeToString(authLiteral.getBytes(StandardCharsets.UTF_8));
+			if (basicAuthHeaders.size() >= MAX_BASIC_AUTH_HEADERS) {
+				basicAuthHeaders.clear();
+			}
+			basicAuthHeaders.put(authLiteral, authHeaderValue);
+			return authHeaderValue;
 		}
 
 		if (authType == AuthType.BEARER) {
@@ -99,54 +1144,120 @@ public class APIServiceBase {
 	}
 
 	/**
-	 * Returns HttpClient builder with given parameter
+	 * Returns shared HttpClient for given parameters from
+	 * {@link HttpClientRegistry}. A new client is built only if none is
+	 * registered for the same client settings.
 	 * 
 	 * @param connectionTimeout
+	 * @param uri               - Request URI, selects the HTTP version (see
+	 *                          {@link UpstreamProtocols}) and the
+	 *                          {@link SSLProfile} (see {@link SSLProfiles})
 	 * 
-	 * @return HttpClient builder
+	 * @return HttpClient
+	 */
+	private HttpClient getHttpClient(long connectionTimeout, URI uri) {
+		HttpClientRegistry registry = HttpClientRegistry.getInstance();
+		ClientKey clientKey = new ClientKey(connectionTimeout, SSLProfiles.getInstance().getProfile(uri),
+				UpstreamProtocols.getInstance().getProtocol(uri).version(), registry.getDefaultExecutor());
+		HttpClient httpClient = registry.get(clientKey);
+		if (httpClient == null) {
+			httpClient = registry.register(clientKey, getClientBuilder(clientKey).build());
+		}
+		return httpClient;
+	}
+
+	/**
+	 * Returns HttpClient builder with given client settings
+	 * 
+	 * @param clientKey
 	 * 
-	 * @throws KeyManagementException
-	 * @throws NoSuchAlgorithmException
+	 * @return HttpClient builder
 	 */
-	private java.net.http.HttpClient.Builder getClientBuilder(long connectionTimeout)
-			throws KeyManagementException, NoSuchAlgorithmException {
+	private java.net.http.HttpClient.Builder getClientBuilder(ClientKey clientKey) {
 		java.net.http.HttpClient.Builder clientBuilder = HttpClient.newBuilder();
-		if (IS_SSL_VERIFY_DISABLED) {
-			clientBuilder.sslContext(getInsecureSSLContext());
+		SSLProfile sslProfile = clientKey.sslProfile();
+		if (sslProfile != null) {
+			clientBuilder.sslContext(sslProfile.getSSLContext());
+			if (sslProfile.getSSLParameters() != null) {
+				clientBuilder.sslParameters(sslProfile.getSSLParameters());
+			}
+		}
+		if (clientKey.connectionTimeout() > 0) {
+			clientBuilder.connectTimeout(Duration.ofSeconds(clientKey.connectionTimeout()));
 		}
-		if (connectionTimeout > 0) {
-			clientBuilder.connectTimeout(Duration.ofSeconds(connectionTimeout));
+		if (clientKey.version() != null) {
+			clientBuilder.version(clientKey.version());
+		}
+		if (clientKey.executor() != null) {
+			clientBuilder.executor(clientKey.executor());
 		}
 		return clientBuilder;
 	}
 
+	/**
+	 * Builds the request of an exchange, with conditional headers to revalidate
+	 * a cached entry
+	 * 
+	 * @param httpMethod
+	 * @param contentType
+	 * @param serviceUrl
+	 * @param authHeaderValue
+	 * @param requestBody
+	 * @param requestTimeout
+	 * @param cached          - Cached entry to revalidate (null if none)
+	 * 
+	 * @return {@link HttpRequest}
+	 * 
+	 * @throws IllegalArgumentException if the service URL is invalid, or any
+	 *                                  exception of an interceptor's
+	 *                                  {@link Interceptor#onRequest}
+	 */
+	private HttpRequest buildRequest(HttpMethod httpMethod, ContentType contentType, String serviceUrl,
+			String authHeaderValue, PreparedBody requestBody, long requestTimeout, ResponseCache.Entry cached) {
+		HttpRequest.Builder requestBuilder = getRequestBuilder(httpMethod, contentType, serviceUrl, authHeaderValue,
+				requestBody.publisher(), requestTimeout);
+		if (requestBody.gzip()) {
+			requestBuilder.header("Content-Encoding", "gzip");
+		}
+		if (cached != null) {
+			cached.addConditionalHeaders(requestBuilder);
+		}
+		return requestBuilder.build();
+	}
+
 	/**
 	 * Returns HttpRequest builder with given parameters
 	 * 
-	 * @param httpMethod      - HTTP method to invoke on the API service (e.g.
-	 *                        {@link HttpMethod.GET}, {@link HttpMethod.POST},
-	 *                        {@link HttpMethod.PUT}, {@link HttpMethod.DELETE})
-	 * @param contentType     - Request body {@link ContentType} (e.g.
-	 *                        {@link ContentType.JSON}, {@link ContentType.XML}). If
-	 *                        null, 'Content-Type' header is not set.
+	 * @param httpMethod      - HTTP method to invoke on the API service
+	 * @param contentType     - Request body {@link ContentType}. If null,
+	 *                        'Content-Type' header is only set for bodies that
+	 *                        define one (e.g. {@link MultipartBody}).
 	 * @param serviceUrl      - Service URL for the API service
 	 * @param authHeaderValue - Value of Authentication header. If null/empty,
 	 *                        'Authorization' header is not set.
-	 * @param requestBody     - Request body content. If null, no request body is
-	 *                        sent.
+	 * @param requestBody     - Request body publisher. If null, no request body
+	 *                        is sent.
 	 * @param requestTimeout  - Sets a timeout for this request. Must be greater
 	 *                        than 0 to be effective.
 	 * 
 	 * @return HttpRequest builder
 	 */
 	private java.net.http.HttpRequest.Builder getRequestBuilder(HttpMethod httpMethod, ContentType contentType,
-			String serviceUrl, String authHeaderValue, String requestBody, long requestTimeout) {
-		java.net.http.HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(URI.create(serviceUrl));
-		requestBuilder.method(httpMethod.name(), requestBody != null ? HttpRequest.BodyPublishers.ofString(requestBody)
-				: HttpRequest.BodyPublishers.noBody());
+			String serviceUrl, String authHeaderValue, HttpRequest.BodyPublisher requestBody, long requestTimeout) {
+		URI uri = URI.create(serviceUrl);
+		java.net.http.HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri);
+		requestBuilder.method(httpMethod.name(),
+				requestBody != null ? requestBody : HttpRequest.BodyPublishers.noBody());
 
-		if (contentType != null) {
-			requestBuilder.header("Content-Type", contentTypes.get(contentType.name()));
+		String bodyContentType = requestBody != null ? RequestBodies.contentTypeOf(requestBody) : null;
+		if (bodyContentType != null && (contentType == null || contentType == ContentType.FORM_DATA)) {
+			requestBuilder.header("Content-Type", bodyContentType);
+		} else if (contentType != null) {
+			requestBuilder.header("Content-Type", contentType.mimeType());
+		}
+
+		if (Compression.getInstance().isEnabled()) {
+			requestBuilder.header("Accept-Encoding", Compression.ACCEPT_ENCODING);
 		}
 
 		if (authHeaderValue != null && !authHeaderValue.trim().isEmpty()) {
@@ -156,35 +1267,8 @@ public class APIServiceBase {
 		if (requestTimeout > 0) {
 			requestBuilder.timeout(Duration.ofSeconds(requestTimeout));
 		}
+		interceptorChain.onRequest(requestBuilder, httpMethod, uri);
 		return requestBuilder;
 	}
 
-	/**
-	 * Returns SSL Context that doesn't validated SSL Certificates. This is only for
-	 * testing purposes and shouldn't be used in real environment.
-	 * 
-	 * @return SSLContext
-	 * @throws NoSuchAlgorithmException
-	 * @throws KeyManagementException
-	 */
-	private SSLContext getInsecureSSLContext() throws NoSuchAlgorithmException, KeyManagementException {
-
-		TrustManager[] trustAllTm = new TrustManager[] { new X509TrustManager() {
-			public java.security.cert.X509Certificate[] getAcceptedIssuers() {
-				return null;
-			}
-
-			public void checkClientTrusted(java.security.cert.X509Certificate[] certs, String authType) {
-			}
-
-			public void checkServerTrusted(java.security.cert.X509Certificate[] certs, String authType) {
-			}
-		} };
-
-		SSLContext sslContext = SSLContext.getInstance("TLS");
-		sslContext.init(null, trustAllTm, new SecureRandom());
-
-		return sslContext;
-	}
-
 }
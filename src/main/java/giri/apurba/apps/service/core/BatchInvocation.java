@@ -0,0 +1,142 @@
+package giri.apurba.apps.service.core;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+import giri.apurba.apps.model.HttpErrorResponse;
+
+/**
+ * Fans a batch of {@link APIRequest}s out over the asynchronous client with a
+ * bounded number of calls in flight. Each finished call starts the next
+ * pending one, so no thread is blocked while waiting. Calls not finished by
+ * the batch deadline get a 504 {@link HttpErrorResponse} and their upstream
+ * exchanges are aborted.
+ *
+ * @author AGIRI6
+ *
+ */
+final class BatchInvocation {
+
+	private final List<APIRequest> requests;
+	private final BiFunction<APIRequest, CompletableFuture<?>, CompletableFuture<HttpResponse<String>>> invoker;
+	private final BiConsumer<Integer, HttpResponse<String>> resultConsumer;
+	private final AtomicReferenceArray<HttpResponse<String>> results;
+	private final CompletableFuture<Void> cancelSignal = new CompletableFuture<>();
+	private final AtomicInteger nextIndex = new AtomicInteger();
+	private final AtomicInteger remaining;
+	private final CompletableFuture<List<HttpResponse<String>>> completion = new CompletableFuture<>();
+
+	/**
+	 * @param requests       - Calls to make
+	 * @param invoker        - Makes one asynchronous call that is aborted once
+	 *                       the given cancel signal completes; the future must
+	 *                       not complete exceptionally
+	 * @param resultConsumer - Called with request index and response as calls
+	 *                       finish (null if not needed)
+	 */
+	BatchInvocation(List<APIRequest> requests,
+			BiFunction<APIRequest, CompletableFuture<?>, CompletableFuture<HttpResponse<String>>> invoker,
+			BiConsumer<Integer, HttpResponse<String>> resultConsumer) {
+		this.requests = requests;
+		this.invoker = invoker;
+		this.resultConsumer = resultConsumer;
+		this.results = new AtomicReferenceArray<>(requests.size());
+		this.remaining = new AtomicInteger(requests.size());
+	}
+
+	/**
+	 * Starts the batch
+	 *
+	 * @param maxConcurrency - Maximum number of calls in flight
+	 * @param batchTimeout   - Deadline for the whole batch in seconds (0 for
+	 *                       none)
+	 *
+	 * @return Responses in request order
+	 */
+	CompletableFuture<List<HttpResponse<String>>> start(int maxConcurrency, long batchTimeout) {
+		if (requests.isEmpty()) {
+			completion.complete(List.of());
+			return completion;
+		}
+		if (batchTimeout > 0) {
+			CompletableFuture<Void> deadline = new CompletableFuture<Void>().completeOnTimeout(null, batchTimeout,
+					TimeUnit.SECONDS);
+			deadline.thenRun(this::expire);
+			// a batch finishing early cancels its pending deadline task
+			completion.whenComplete((responses, e) -> deadline.cancel(false));
+		}
+		int lanes = Math.min(Math.max(1, maxConcurrency), requests.size());
+		for (int i = 0; i < lanes; i++) {
+			next();
+		}
+		return completion;
+	}
+
+	/**
+	 * Starts pending calls of a lane until one of them is still in flight; that
+	 * call continues the lane once it completes. Calls that complete right away
+	 * (e.g. cached or rejected) are handled in the loop rather than by
+	 * recursion, so long batches of them don't overflow the stack.
+	 */
+	private void next() {
+		while (!completion.isDone()) {
+			int index = nextIndex.getAndIncrement();
+			if (index >= requests.size()) {
+				return;
+			}
+			CompletableFuture<HttpResponse<String>> call;
+			try {
+				call = invoker.apply(requests.get(index), cancelSignal);
+			} catch (RuntimeException e) {
+				call = CompletableFuture.completedFuture(new HttpErrorResponse(e));
+			}
+			if (!call.isDone()) {
+				call.whenComplete((response, e) -> {
+					complete(index, response != null ? response : new HttpErrorResponse(e));
+					next();
+				});
+				return;
+			}
+			HttpResponse<String> response = call.exceptionally(HttpErrorResponse::new).join();
+			complete(index, response != null ? response : new HttpErrorResponse());
+		}
+	}
+
+	/**
+	 * Fails every call that hasn't finished yet and aborts the upstream
+	 * exchanges still in flight
+	 */
+	private void expire() {
+		for (int i = 0; i < requests.size(); i++) {
+			complete(i, new HttpErrorResponse(504, "Batch deadline exceeded"));
+		}
+		cancelSignal.complete(null);
+	}
+
+	private void complete(int index, HttpResponse<String> response) {
+		if (!results.compareAndSet(index, null, response)) {
+			return;
+		}
+		try {
+			if (resultConsumer != null) {
+				resultConsumer.accept(index, response);
+			}
+		} finally {
+			if (remaining.decrementAndGet() == 0) {
+				List<HttpResponse<String>> ordered = new ArrayList<>(requests.size());
+				for (int i = 0; i < requests.size(); i++) {
+					ordered.add(results.get(i));
+				}
+				completion.complete(ordered);
+			}
+		}
+	}
+
+}
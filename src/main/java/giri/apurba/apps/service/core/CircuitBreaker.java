@@ -0,0 +1,86 @@
+package giri.apurba.apps.service.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker for one upstream host. It opens after a number of
+ * consecutive failed calls and then fails calls fast until the open duration
+ * has passed. A single probe call is then let through (half open); its
+ * outcome closes or re-opens the circuit.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class CircuitBreaker {
+
+	public static enum State {
+		CLOSED, OPEN, HALF_OPEN
+	};
+
+	private final int failureThreshold;
+	private final long openNanos;
+	private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private final AtomicLong openedAt = new AtomicLong();
+
+	/**
+	 * @param failureThreshold - Consecutive failures that open the circuit
+	 * @param openMillis       - Time the circuit stays open before a probe call
+	 */
+	public CircuitBreaker(int failureThreshold, long openMillis) {
+		this.failureThreshold = failureThreshold;
+		this.openNanos = openMillis * 1_000_000L;
+	}
+
+	/**
+	 * Returns true if a call may be sent
+	 *
+	 * @return false if the circuit is open
+	 */
+	public boolean tryAcquire() {
+		State current = state.get();
+		if (current == State.CLOSED) {
+			return true;
+		}
+		if (current == State.OPEN && System.nanoTime() - openedAt.get() >= openNanos) {
+			// only one caller wins the probe
+			return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+		}
+		return false;
+	}
+
+	/**
+	 * Records a successful call
+	 */
+	public void onSuccess() {
+		consecutiveFailures.set(0);
+		if (state.get() != State.CLOSED) {
+			state.set(State.CLOSED);
+		}
+	}
+
+	/**
+	 * Records a failed call
+	 */
+	public void onFailure() {
+		if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+			openedAt.set(System.nanoTime());
+			state.set(State.OPEN);
+		}
+	}
+
+	/**
+	 * Gives back a probe call that was admitted but not sent (or aborted), so
+	 * that the next call can probe instead
+	 */
+	public void abandon() {
+		state.compareAndSet(State.HALF_OPEN, State.OPEN);
+	}
+
+	public State getState() {
+		return state.get();
+	}
+
+}
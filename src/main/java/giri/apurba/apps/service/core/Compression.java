@@ -0,0 +1,384 @@
+package giri.apurba.apps.service.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Opt-in HTTP compression for {@link APIService} calls. When enabled, requests
+ * advertise 'Accept-Encoding: gzip, deflate' and compressed responses are
+ * inflated while the body is received, before it reaches the body handler, so
+ * a compressed payload is never held in memory as a whole. Request bodies
+ * above a size threshold can be sent gzip compressed. Response headers are
+ * left as received, i.e. 'Content-Encoding' and 'Content-Length' describe the
+ * bytes on the wire.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class Compression {
+
+	public static final String ACCEPT_ENCODING = "gzip, deflate";
+	public static final int DEFAULT_REQUEST_MIN_BYTES = 1024;
+
+	private static final Compression INSTANCE = new Compression();
+
+	private volatile boolean enabled;
+	private volatile boolean requestGzipEnabled;
+	private volatile int requestMinBytes = DEFAULT_REQUEST_MIN_BYTES;
+
+	private Compression() {
+	}
+
+	/**
+	 * Returns the shared instance
+	 *
+	 * @return {@link Compression}
+	 */
+	public static Compression getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Configures compression
+	 *
+	 * @param enabled            - Whether compressed responses are negotiated
+	 * @param requestGzipEnabled - Whether request bodies are gzip compressed
+	 * @param requestMinBytes    - Smallest request body that is compressed
+	 */
+	public void configure(boolean enabled, boolean requestGzipEnabled, int requestMinBytes) {
+		if (requestMinBytes < 0) {
+			throw new IllegalArgumentException("requestMinBytes must not be negative");
+		}
+		this.enabled = enabled;
+		this.requestGzipEnabled = requestGzipEnabled;
+		this.requestMinBytes = requestMinBytes;
+	}
+
+	/**
+	 * Returns true if compressed responses are negotiated
+	 *
+	 * @return true if enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns true if given request body should be sent gzip compressed
+	 *
+	 * @param requestBody
+	 *
+	 * @return true if request compression is enabled and the body is large
+	 *         enough
+	 */
+	public boolean shouldCompress(String requestBody) {
+		// a String is at least as long in UTF-8 as it has chars
+		return requestGzipEnabled && requestBody.length() >= requestMinBytes;
+	}
+
+	/**
+	 * Gzip compresses a request body
+	 *
+	 * @param requestBody
+	 * @param host        - Upstream host, for metrics
+	 *
+	 * @return Compressed UTF-8 bytes
+	 */
+	public byte[] gzip(String requestBody, String host) {
+		long startNanos = System.nanoTime();
+		byte[] bytes = requestBody.getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192)) {
+			gzip.write(bytes);
+		} catch (IOException e) {
+			// in-memory streams don't fail
+			throw new IllegalStateException(e);
+		}
+		byte[] body = compressed.toByteArray();
+		APIMetrics.getInstance().recordCompression(host, APIMetrics.Direction.REQUEST, body.length, bytes.length,
+				System.nanoTime() - startNanos);
+		return body;
+	}
+
+	/**
+	 * Wraps a body handler so that gzip or deflate encoded responses are
+	 * inflated before they reach it
+	 *
+	 * @param <T>         Body type
+	 * @param bodyHandler
+	 * @param host        - Upstream host, for metrics
+	 *
+	 * @return Decoding {@link HttpResponse.BodyHandler}, or the given handler if
+	 *         compression is disabled
+	 */
+	public <T> HttpResponse.BodyHandler<T> decoding(HttpResponse.BodyHandler<T> bodyHandler, String host) {
+		if (!enabled) {
+			return bodyHandler;
+		}
+		return responseInfo -> {
+			String encoding = responseInfo.headers().firstValue("Content-Encoding").orElse("").trim()
+					.toLowerCase(Locale.ROOT);
+			HttpResponse.BodySubscriber<T> downstream = bodyHandler.apply(responseInfo);
+			return switch (encoding) {
+			case "gzip", "x-gzip" -> new DecodingSubscriber<>(downstream, true, host);
+			case "deflate" -> new DecodingSubscriber<>(downstream, false, host);
+			default -> downstream;
+			};
+		};
+	}
+
+	/**
+	 * Body subscriber that inflates gzip or deflate encoded buffers as they
+	 * arrive and passes them on to the downstream subscriber. Every received
+	 * list of buffers yields one list of inflated buffers, so downstream demand
+	 * maps one to one onto upstream demand. The CRC32 and size in the gzip
+	 * trailer are verified, same as {@link java.util.zip.GZIPInputStream}.
+	 *
+	 * @param <T> Body type
+	 */
+	private static final class DecodingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+		private static final int CHUNK = 16 * 1024;
+
+		private final HttpResponse.BodySubscriber<T> downstream;
+		private final boolean gzip;
+		private final String host;
+		private final byte[] scratch = new byte[CHUNK];
+		private final CRC32 crc = new CRC32();
+		private final byte[] trailer = new byte[8];
+		private int trailerLength;
+
+		private Flow.Subscription subscription;
+		private Inflater inflater;
+		private byte[] header = new byte[0];
+		private long compressedBytes;
+		private long inflatedBytes;
+		private long inflateNanos;
+		private boolean failed;
+
+		DecodingSubscriber(HttpResponse.BodySubscriber<T> downstream, boolean gzip, String host) {
+			this.downstream = downstream;
+			this.gzip = gzip;
+			this.host = host;
+		}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return downstream.getBody();
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			downstream.onSubscribe(subscription);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> items) {
+			if (failed) {
+				return;
+			}
+			long startNanos = System.nanoTime();
+			List<ByteBuffer> inflated = new ArrayList<>(items.size() * 4);
+			try {
+				for (ByteBuffer item : items) {
+					compressedBytes += item.remaining();
+					inflate(item, inflated);
+				}
+			} catch (IOException | DataFormatException e) {
+				failed = true;
+				release();
+				subscription.cancel();
+				downstream.onError(e);
+				return;
+			} finally {
+				inflateNanos += System.nanoTime() - startNanos;
+			}
+			downstream.onNext(inflated);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			release();
+			if (!failed) {
+				downstream.onError(throwable);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			if (failed) {
+				return;
+			}
+			// an empty body (e.g. 204 or 304) carries no compressed stream
+			boolean finished = compressedBytes == 0 || inflater != null && inflater.finished();
+			release();
+			if (!finished || gzip && compressedBytes > 0 && trailerLength < trailer.length) {
+				downstream.onError(new ZipException("Unexpected end of compressed response body"));
+				return;
+			}
+			if (gzip && compressedBytes > 0 && !trailerMatches()) {
+				downstream.onError(new ZipException("Corrupt GZIP trailer"));
+				return;
+			}
+			APIMetrics.getInstance().recordCompression(host, APIMetrics.Direction.RESPONSE, compressedBytes,
+					inflatedBytes, inflateNanos);
+			downstream.onComplete();
+		}
+
+		private void inflate(ByteBuffer item, List<ByteBuffer> inflated) throws IOException, DataFormatException {
+			if (inflater == null) {
+				// collect the stream header, it may be split across buffers
+				int offset = header.length;
+				header = Arrays.copyOf(header, offset + item.remaining());
+				item.get(header, offset, header.length - offset);
+				int skip;
+				boolean raw;
+				if (gzip) {
+					skip = gzipHeaderLength(header);
+					raw = true;
+				} else {
+					int format = deflateFormat(header);
+					skip = format < 0 ? -1 : 0;
+					raw = format == 0;
+				}
+				if (skip < 0) {
+					return;
+				}
+				inflater = new Inflater(raw);
+				inflater.setInput(header, skip, header.length - skip);
+				drain(inflated);
+				if (inflater.finished()) {
+					collectTrailer(ByteBuffer.wrap(header, header.length - inflater.getRemaining(),
+							inflater.getRemaining()));
+				}
+				header = null;
+				return;
+			}
+			if (inflater.finished()) {
+				collectTrailer(item);
+				return;
+			}
+			inflater.setInput(item);
+			drain(inflated);
+			if (inflater.finished()) {
+				// the inflater consumed the buffer up to the end of the stream
+				collectTrailer(item);
+			}
+		}
+
+		/**
+		 * Collects the gzip trailer (CRC32 and size) following the compressed
+		 * stream. Bytes of a deflate body after its stream are ignored.
+		 */
+		private void collectTrailer(ByteBuffer item) {
+			if (gzip) {
+				int length = Math.min(item.remaining(), trailer.length - trailerLength);
+				item.get(trailer, trailerLength, length);
+				trailerLength += length;
+			}
+			item.position(item.limit());
+		}
+
+		private boolean trailerMatches() {
+			return littleEndianInt(0) == (int) crc.getValue() && littleEndianInt(4) == (int) inflatedBytes;
+		}
+
+		private int littleEndianInt(int offset) {
+			return (trailer[offset] & 0xff) | (trailer[offset + 1] & 0xff) << 8 | (trailer[offset + 2] & 0xff) << 16
+					| (trailer[offset + 3] & 0xff) << 24;
+		}
+
+		private void drain(List<ByteBuffer> inflated) throws DataFormatException {
+			while (!inflater.finished()) {
+				int length = inflater.inflate(scratch);
+				if (length > 0) {
+					inflated.add(ByteBuffer.wrap(Arrays.copyOf(scratch, length)));
+					inflatedBytes += length;
+					if (gzip) {
+						crc.update(scratch, 0, length);
+					}
+				} else if (inflater.needsInput() || inflater.needsDictionary()) {
+					return;
+				}
+			}
+		}
+
+		private void release() {
+			if (inflater != null) {
+				inflater.end();
+			}
+		}
+
+		/**
+		 * Returns length of a gzip member header (RFC 1952)
+		 *
+		 * @param bytes - Bytes received so far
+		 *
+		 * @return Header length, or -1 if more bytes are needed
+		 *
+		 * @throws ZipException if the bytes are not in gzip format
+		 */
+		private static int gzipHeaderLength(byte[] bytes) throws ZipException {
+			if (bytes.length < 10) {
+				return -1;
+			}
+			if ((bytes[0] & 0xff) != 0x1f || (bytes[1] & 0xff) != 0x8b || bytes[2] != 8) {
+				throw new ZipException("Response body is not in gzip format");
+			}
+			int flags = bytes[3];
+			int position = 10;
+			if ((flags & 4) != 0) {
+				if (bytes.length < position + 2) {
+					return -1;
+				}
+				position += 2 + ((bytes[position] & 0xff) | ((bytes[position + 1] & 0xff) << 8));
+			}
+			for (int flag : new int[] { 8, 16 }) {
+				if ((flags & flag) != 0) {
+					// zero terminated file name or comment
+					while (position < bytes.length && bytes[position] != 0) {
+						position++;
+					}
+					position++;
+				}
+			}
+			if ((flags & 2) != 0) {
+				position += 2;
+			}
+			return position <= bytes.length ? position : -1;
+		}
+
+		/**
+		 * Detects the format of a 'deflate' body, which is meant to be zlib
+		 * wrapped (RFC 1950) although some servers send raw deflate data
+		 *
+		 * @param bytes - Bytes received so far
+		 *
+		 * @return -1 if more bytes are needed, 0 for raw deflate data, 1 for zlib
+		 *         data
+		 */
+		private static int deflateFormat(byte[] bytes) {
+			if (bytes.length < 2) {
+				return -1;
+			}
+			int cmf = bytes[0] & 0xff;
+			return (cmf & 0x0f) == 8 && ((cmf << 8) | (bytes[1] & 0xff)) % 31 == 0 ? 1 : 0;
+		}
+	}
+
+}
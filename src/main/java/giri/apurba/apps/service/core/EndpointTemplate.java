@@ -0,0 +1,286 @@
+package giri.apurba.apps.service.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import giri.apurba.apps.service.core.APIServiceBase.AuthType;
+import giri.apurba.apps.service.core.APIServiceBase.ContentType;
+import giri.apurba.apps.service.core.APIServiceBase.HttpMethod;
+
+/**
+ * Immutable, precompiled description of an API endpoint: URL template, HTTP
+ * method, {@link ContentType}, authentication and timeouts. The URL template is
+ * split into literal segments and '{name}' variables once when the template is
+ * built, and the authentication header is encoded once, so a call only has to
+ * substitute the variable values. Templates are meant to be built once and
+ * shared, e.g. as static final fields.
+ *
+ * <pre>
+ * EndpointTemplate employee = EndpointTemplate.newBuilder("https://host/api/v1/employee/{id}")
+ * 		.auth(AuthType.BEARER, token).requestTimeout(10).build();
+ * apiService.invokeAPI(employee, "42");
+ * </pre>
+ *
+ * @author AGIRI6
+ *
+ */
+public final class EndpointTemplate {
+
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * Bearer header derived from a {@link TokenProvider} token
+	 *
+	 * @param token           - Token the header was built from
+	 * @param authHeaderValue - Header value
+	 */
+	private static record BearerHeader(String token, String authHeaderValue) {
+	}
+
+	private final String urlTemplate;
+	private final String[] literals;
+	private final String[] variableNames;
+	private final int literalLength;
+	private final HttpMethod httpMethod;
+	private final ContentType contentType;
+	private final String authHeaderValue;
+	private final TokenProvider tokenProvider;
+	private final long requestTimeout;
+	private final long connectionTimeout;
+
+	private volatile BearerHeader bearerHeader;
+
+	private EndpointTemplate(Builder builder) {
+		this.urlTemplate = builder.urlTemplate;
+		List<String> literals = new ArrayList<>();
+		List<String> variableNames = new ArrayList<>();
+		int start = 0;
+		int open;
+		while ((open = urlTemplate.indexOf('{', start)) >= 0) {
+			int close = urlTemplate.indexOf('}', open);
+			if (close < 0) {
+				throw new IllegalArgumentException("Unclosed variable in URL template: " + urlTemplate);
+			}
+			literals.add(urlTemplate.substring(start, open));
+			variableNames.add(urlTemplate.substring(open + 1, close));
+			start = close + 1;
+		}
+		literals.add(urlTemplate.substring(start));
+		this.literals = literals.toArray(String[]::new);
+		this.variableNames = variableNames.toArray(String[]::new);
+		this.literalLength = literals.stream().mapToInt(String::length).sum();
+		this.httpMethod = builder.httpMethod;
+		this.contentType = builder.contentType;
+		this.authHeaderValue = builder.authType != null
+				? APIServiceBase.getAuthHeaderValue(builder.authType, builder.authLiteral)
+				: null;
+		this.tokenProvider = builder.tokenProvider;
+		this.requestTimeout = builder.requestTimeout;
+		this.connectionTimeout = builder.connectionTimeout;
+	}
+
+	/**
+	 * Returns a builder for given URL template
+	 *
+	 * @param urlTemplate - Service URL with '{name}' placeholders for path or
+	 *                    query variables
+	 *
+	 * @return {@link Builder}
+	 */
+	public static Builder newBuilder(String urlTemplate) {
+		return new Builder(urlTemplate);
+	}
+
+	/**
+	 * Builds the service URL for given variable values. Values are percent
+	 * encoded, except for RFC 3986 unreserved characters.
+	 *
+	 * @param variables - Values in the order the variables appear in the
+	 *                  template
+	 *
+	 * @return Service URL
+	 */
+	public String expand(String... variables) {
+		int count = variables != null ? variables.length : 0;
+		if (count != variableNames.length) {
+			throw new IllegalArgumentException("Expected " + variableNames.length + " URL variables but got "
+					+ count + " for " + urlTemplate);
+		}
+		if (count == 0) {
+			return literals[0];
+		}
+		int length = literalLength;
+		for (String variable : variables) {
+			length += variable.length();
+		}
+		StringBuilder url = new StringBuilder(length + 16).append(literals[0]);
+		for (int i = 0; i < count; i++) {
+			encode(variables[i], url);
+			url.append(literals[i + 1]);
+		}
+		return url.toString();
+	}
+
+	private static void encode(String value, StringBuilder url) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (isUnreserved(c)) {
+				url.append(c);
+			} else {
+				encodeFrom(value, i, url);
+				return;
+			}
+		}
+	}
+
+	private static void encodeFrom(String value, int from, StringBuilder url) {
+		for (byte b : value.substring(from).getBytes(StandardCharsets.UTF_8)) {
+			char c = (char) (b & 0xFF);
+			if (isUnreserved(c)) {
+				url.append(c);
+			} else {
+				url.append('%').append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+			}
+		}
+	}
+
+	private static boolean isUnreserved(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.'
+				|| c == '_' || c == '~';
+	}
+
+	/**
+	 * Returns the authentication header value. For templates using a
+	 * {@link TokenProvider} the header is rebuilt only when the token changes.
+	 *
+	 * @return Authentication header value (null if none)
+	 *
+	 * @throws IllegalStateException if the {@link TokenProvider} has no valid
+	 *                               token
+	 */
+	public String authHeaderValue() {
+		if (tokenProvider == null) {
+			return authHeaderValue;
+		}
+		String token = tokenProvider.getToken();
+		BearerHeader header = bearerHeader;
+		if (header == null || header.token() != token) {
+			header = new BearerHeader(token, "Bearer " + token);
+			bearerHeader = header;
+		}
+		return header.authHeaderValue();
+	}
+
+	public String urlTemplate() {
+		return urlTemplate;
+	}
+
+	public HttpMethod httpMethod() {
+		return httpMethod;
+	}
+
+	public ContentType contentType() {
+		return contentType;
+	}
+
+	public long requestTimeout() {
+		return requestTimeout;
+	}
+
+	public long connectionTimeout() {
+		return connectionTimeout;
+	}
+
+	/**
+	 * Builder of {@link EndpointTemplate}. Defaults to a {@link HttpMethod#GET}
+	 * call without 'Content-Type', authentication or timeouts.
+	 */
+	public static final class Builder {
+
+		private final String urlTemplate;
+		private HttpMethod httpMethod = HttpMethod.GET;
+		private ContentType contentType;
+		private AuthType authType;
+		private String authLiteral;
+		private TokenProvider tokenProvider;
+		private long requestTimeout;
+		private long connectionTimeout;
+
+		private Builder(String urlTemplate) {
+			if (urlTemplate == null || urlTemplate.isBlank()) {
+				throw new IllegalArgumentException("urlTemplate must not be empty");
+			}
+			this.urlTemplate = urlTemplate;
+		}
+
+		public Builder method(HttpMethod httpMethod) {
+			this.httpMethod = httpMethod;
+			return this;
+		}
+
+		public Builder contentType(ContentType contentType) {
+			this.contentType = contentType;
+			return this;
+		}
+
+		/**
+		 * Uses static credentials, encoded once when the template is built
+		 *
+		 * @param authType    - Authentication type
+		 * @param authLiteral - Authentication value based on {@link AuthType} (For
+		 *                    BASIC, set to 'username:password' format)
+		 *
+		 * @return this builder
+		 */
+		public Builder auth(AuthType authType, String authLiteral) {
+			this.authType = authType;
+			this.authLiteral = authLiteral;
+			this.tokenProvider = null;
+			return this;
+		}
+
+		/**
+		 * Uses bearer tokens of given provider, e.g. a
+		 * {@link RefreshingTokenProvider}
+		 *
+		 * @param tokenProvider
+		 *
+		 * @return this builder
+		 */
+		public Builder tokenProvider(TokenProvider tokenProvider) {
+			this.tokenProvider = tokenProvider;
+			this.authType = null;
+			this.authLiteral = null;
+			return this;
+		}
+
+		/**
+		 * @param requestTimeout - Request timeout in seconds (0 for none)
+		 *
+		 * @return this builder
+		 */
+		public Builder requestTimeout(long requestTimeout) {
+			this.requestTimeout = requestTimeout;
+			return this;
+		}
+
+		/**
+		 * @param connectionTimeout - Connect timeout in seconds (0 for default)
+		 *
+		 * @return this builder
+		 */
+		public Builder connectionTimeout(long connectionTimeout) {
+			this.connectionTimeout = connectionTimeout;
+			return this;
+		}
+
+		public EndpointTemplate build() {
+			if (httpMethod == null) {
+				throw new IllegalArgumentException("httpMethod must not be null");
+			}
+			return new EndpointTemplate(this);
+		}
+	}
+
+}
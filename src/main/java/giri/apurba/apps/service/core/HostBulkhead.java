@@ -0,0 +1,142 @@
+package giri.apurba.apps.service.core;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulkhead for one upstream host with an adaptive concurrency limit (AIMD).
+ * The limit grows by 1/limit for every call that completes within the latency
+ * tolerance while the bulkhead is busy, and shrinks by the backoff ratio when a
+ * call times out, can't connect, is throttled (429/503) or is slower than the
+ * tolerance allows. Calls beyond the limit are rejected right away. All state
+ * is updated with CAS, there are no locks.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class HostBulkhead {
+
+	/**
+	 * Limit settings
+	 *
+	 * @param initialLimit      - Limit to start with
+	 * @param minLimit          - Lowest limit
+	 * @param maxLimit          - Highest limit
+	 * @param backoffRatio      - Factor applied to the limit on overload (e.g.
+	 *                          0.9)
+	 * @param latencyTolerance  - A call slower than this multiple of the minimum
+	 *                          observed latency counts as overload (e.g. 2.0)
+	 * @param minLatencyWindow  - Number of calls after which the minimum observed
+	 *                          latency is sampled again, so it can follow a
+	 *                          slower upstream
+	 */
+	public static record Settings(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+			double latencyTolerance, int minLatencyWindow) {
+
+		public static final Settings DEFAULT = new Settings(20, 1, 200, 0.9, 2.0, 1000);
+	}
+
+	private static final long SCALE = 1000;
+
+	private final Settings settings;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	/**
+	 * Limit in thousandths, so additive increase of 1/limit doesn't need
+	 * floating point CAS
+	 */
+	private final AtomicLong scaledLimit;
+	private final AtomicLong minLatency = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicInteger samples = new AtomicInteger();
+
+	public HostBulkhead(Settings settings) {
+		this.settings = settings;
+		this.scaledLimit = new AtomicLong(settings.initialLimit() * SCALE);
+	}
+
+	/**
+	 * Takes a slot for a call
+	 *
+	 * @return true if the call may proceed, false if the host is saturated
+	 */
+	public boolean tryAcquire() {
+		int limit = getLimit();
+		while (true) {
+			int current = inFlight.get();
+			if (current >= limit) {
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Releases the slot of a finished call and adapts the limit
+	 *
+	 * @param response   - Upstream response (null if the call failed)
+	 * @param failure    - Failure of the call (null if a response was received)
+	 * @param startNanos - {@link System#nanoTime()} before the call was sent
+	 */
+	public void release(HttpResponse<?> response, Throwable failure, long startNanos) {
+		int busy = inFlight.getAndDecrement();
+		long latency = System.nanoTime() - startNanos;
+		if (response == null) {
+			APIMetrics.Outcome outcome = APIMetrics.outcome(failure);
+			if (outcome == APIMetrics.Outcome.TIMEOUT || outcome == APIMetrics.Outcome.CONNECT_ERROR
+					|| outcome == APIMetrics.Outcome.IO_ERROR) {
+				decrease();
+			}
+			return;
+		}
+		if (response.statusCode() == 429 || response.statusCode() == 503) {
+			decrease();
+			return;
+		}
+		long min = updateMinLatency(latency);
+		if (latency > min * settings.latencyTolerance()) {
+			decrease();
+		} else if (busy * 2 >= getLimit()) {
+			// only grow while the limit is actually being used
+			increase();
+		}
+	}
+
+	/**
+	 * Returns current concurrency limit
+	 *
+	 * @return Limit
+	 */
+	public int getLimit() {
+		return (int) (scaledLimit.get() / SCALE);
+	}
+
+	/**
+	 * Returns number of calls in flight
+	 *
+	 * @return In-flight count
+	 */
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	private void increase() {
+		long max = settings.maxLimit() * SCALE;
+		scaledLimit.updateAndGet(limit -> Math.min(max, limit + SCALE * SCALE / Math.max(SCALE, limit)));
+	}
+
+	private void decrease() {
+		long min = settings.minLimit() * SCALE;
+		scaledLimit.updateAndGet(limit -> Math.max(min, (long) (limit * settings.backoffRatio())));
+	}
+
+	private long updateMinLatency(long latency) {
+		if (samples.incrementAndGet() % settings.minLatencyWindow() == 0) {
+			minLatency.set(latency);
+			return latency;
+		}
+		return minLatency.accumulateAndGet(latency, Math::min);
+	}
+
+}
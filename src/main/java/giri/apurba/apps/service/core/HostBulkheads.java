@@ -0,0 +1,62 @@
+package giri.apurba.apps.service.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link HostBulkhead}s, one per upstream host, so that a slow
+ * upstream can only tie up its own share of threads
+ *
+ * @author AGIRI6
+ *
+ */
+public final class HostBulkheads {
+
+	private static final HostBulkheads INSTANCE = new HostBulkheads();
+
+	private final ConcurrentHashMap<String, HostBulkhead> bulkheads = new ConcurrentHashMap<>();
+
+	private volatile boolean enabled;
+	private volatile HostBulkhead.Settings settings = HostBulkhead.Settings.DEFAULT;
+
+	private HostBulkheads() {
+	}
+
+	/**
+	 * Returns the shared registry instance
+	 *
+	 * @return {@link HostBulkheads}
+	 */
+	public static HostBulkheads getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Configures the bulkheads. Existing bulkheads are dropped.
+	 *
+	 * @param enabled  - Whether calls are limited per host
+	 * @param settings - Limit settings applied to every host
+	 */
+	public void configure(boolean enabled, HostBulkhead.Settings settings) {
+		this.settings = settings;
+		this.enabled = enabled;
+		bulkheads.clear();
+	}
+
+	/**
+	 * Returns the bulkhead of given host
+	 *
+	 * @param host
+	 * @return {@link HostBulkhead} or null if bulkheads are disabled
+	 */
+	public HostBulkhead get(String host) {
+		if (!enabled || host == null) {
+			return null;
+		}
+		HostBulkhead bulkhead = bulkheads.get(host);
+		if (bulkhead == null) {
+			bulkhead = bulkheads.computeIfAbsent(host, key -> new HostBulkhead(settings));
+		}
+		return bulkhead;
+	}
+
+}
@@ -0,0 +1,198 @@
+package giri.apurba.apps.service.core;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Registry of long-lived {@link HttpClient} instances shared by every
+ * {@link APIService} call. Clients are keyed by client level settings so that
+ * connections and TLS sessions are reused across requests.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class HttpClientRegistry {
+
+	public static final int DEFAULT_MAX_CLIENTS = 16;
+
+	private static final HttpClientRegistry INSTANCE = new HttpClientRegistry();
+
+	/**
+	 * Client level settings used as registry key
+	 *
+	 * @param connectionTimeout - Connect timeout in seconds (0 for default)
+	 * @param sslProfile        - {@link SSLProfile} of https upstreams (null
+	 *                          for plain http)
+	 * @param version           - Preferred HTTP version (null for default)
+	 * @param executor          - Executor for asynchronous tasks (null for
+	 *                          default)
+	 */
+	public static record ClientKey(long connectionTimeout, SSLProfile sslProfile, Version version,
+			Executor executor) {
+	}
+
+	/**
+	 * Registered client with the time it was last handed out
+	 */
+	private static final class Entry {
+
+		private final HttpClient client;
+		private volatile long lastAccess = System.nanoTime();
+
+		private Entry(HttpClient client) {
+			this.client = client;
+		}
+
+	}
+
+	private final ConcurrentHashMap<ClientKey, Entry> clients = new ConcurrentHashMap<>();
+	private volatile int maxClients = DEFAULT_MAX_CLIENTS;
+	private volatile Executor defaultExecutor;
+	private volatile boolean shutdown;
+
+	private HttpClientRegistry() {
+	}
+
+	/**
+	 * Returns the shared registry instance
+	 *
+	 * @return {@link HttpClientRegistry}
+	 */
+	public static HttpClientRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the registered client for given key
+	 *
+	 * @param key
+	 *
+	 * @return {@link HttpClient} or null if no client is registered
+	 */
+	public HttpClient get(ClientKey key) {
+		Entry entry = clients.get(key);
+		if (entry == null) {
+			return null;
+		}
+		entry.lastAccess = System.nanoTime();
+		return entry.client;
+	}
+
+	/**
+	 * Registers a client for given key. If another client got registered
+	 * concurrently for the same key, given client is shut down and the other
+	 * one is returned instead. When the registry is full, the least recently
+	 * used client is evicted and shut down.
+	 *
+	 * @param key
+	 * @param client
+	 *
+	 * @return Registered {@link HttpClient}
+	 *
+	 * @throws IllegalStateException if the registry is shut down (given client
+	 *                               is shut down as well)
+	 */
+	public HttpClient register(ClientKey key, HttpClient client) {
+		if (shutdown) {
+			client.shutdown();
+			throw new IllegalStateException("HttpClientRegistry is shut down");
+		}
+		Entry entry = new Entry(client);
+		Entry existing = clients.putIfAbsent(key, entry);
+		if (existing != null) {
+			client.shutdown();
+			existing.lastAccess = System.nanoTime();
+			return existing.client;
+		}
+		while (clients.size() > maxClients) {
+			evictLeastRecentlyUsed(key);
+		}
+		if (shutdown && clients.remove(key, entry)) {
+			// lost the race with shutdown(), which would not see this client
+			client.shutdown();
+			throw new IllegalStateException("HttpClientRegistry is shut down");
+		}
+		return client;
+	}
+
+	/**
+	 * Evicts and shuts down the least recently used client other than the one
+	 * just registered. The registry holds only a few clients, so a scan is
+	 * cheap.
+	 *
+	 * @param registered - Key of the client just registered
+	 */
+	private void evictLeastRecentlyUsed(ClientKey registered) {
+		Map.Entry<ClientKey, Entry> eldest = null;
+		for (Map.Entry<ClientKey, Entry> candidate : clients.entrySet()) {
+			if (!candidate.getKey().equals(registered)
+					&& (eldest == null || candidate.getValue().lastAccess - eldest.getValue().lastAccess < 0)) {
+				eldest = candidate;
+			}
+		}
+		if (eldest == null) {
+			return;
+		}
+		if (clients.remove(eldest.getKey(), eldest.getValue())) {
+			eldest.getValue().client.shutdown();
+		}
+	}
+
+	/**
+	 * Sets the maximum number of clients kept by the registry
+	 *
+	 * @param maxClients - Must be greater than 0
+	 */
+	public void setMaxClients(int maxClients) {
+		if (maxClients <= 0) {
+			throw new IllegalArgumentException("maxClients must be greater than 0");
+		}
+		this.maxClients = maxClients;
+	}
+
+	/**
+	 * Returns the executor used by clients that don't specify one
+	 *
+	 * @return {@link Executor} or null for the {@link HttpClient} default
+	 */
+	public Executor getDefaultExecutor() {
+		return defaultExecutor;
+	}
+
+	/**
+	 * Sets the executor used by clients that don't specify one (e.g. a virtual
+	 * thread per task executor)
+	 *
+	 * @param defaultExecutor - null for the {@link HttpClient} default
+	 */
+	public void setDefaultExecutor(Executor defaultExecutor) {
+		this.defaultExecutor = defaultExecutor;
+	}
+
+	/**
+	 * Returns number of registered clients
+	 *
+	 * @return Client count
+	 */
+	public int size() {
+		return clients.size();
+	}
+
+	/**
+	 * Shuts down all registered clients. In-flight requests are allowed to
+	 * complete. No further clients can be registered afterwards.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		for (ClientKey key : clients.keySet()) {
+			Entry entry = clients.remove(key);
+			if (entry != null) {
+				entry.client.shutdown();
+			}
+		}
+	}
+
+}
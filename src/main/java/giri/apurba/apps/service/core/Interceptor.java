@@ -0,0 +1,81 @@
+package giri.apurba.apps.service.core;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+import giri.apurba.apps.service.core.APIServiceBase.HttpMethod;
+
+/**
+ * Cross-cutting step of the calls made through {@link APIService}, e.g.
+ * tracing headers, logging or metrics. Interceptors are combined into an
+ * {@link InterceptorChain} and take part in two steps of every upstream
+ * exchange:
+ * <ul>
+ * <li>{@link #onRequest} while the request is built, in chain order, e.g. to
+ * add headers without rebuilding the request</li>
+ * <li>{@link #intercept} (blocking calls) or {@link #interceptAsync}
+ * (asynchronous calls) around sending it, where the interceptor passes the
+ * request (or a replacement) on to the next interceptor and returns its
+ * response (or a replacement), or answers without calling upstream</li>
+ * </ul>
+ * All methods default to passing the call through, so an interceptor only
+ * implements the steps it needs. An interceptor that implements
+ * {@link #intercept} should implement {@link #interceptAsync} as well, so that
+ * it applies to both kinds of calls. Interceptors are shared by all calls and
+ * must be thread-safe.
+ *
+ * @author AGIRI6
+ *
+ */
+public interface Interceptor {
+
+	/**
+	 * Called while a request is built, before it is sent. An unchecked exception
+	 * fails the call with an {@link giri.apurba.apps.model.HttpErrorResponse}.
+	 *
+	 * @param requestBuilder - Builder of the request
+	 * @param httpMethod     - HTTP method of the request
+	 * @param uri            - URI of the request
+	 */
+	default void onRequest(HttpRequest.Builder requestBuilder, HttpMethod httpMethod, URI uri) {
+	}
+
+	/**
+	 * Sends a request of a blocking call
+	 *
+	 * @param <T>      Response body type
+	 * @param request  - Request to send
+	 * @param next     - Rest of the chain, see
+	 *                 {@link InterceptorChain#proceed(HttpRequest, InterceptorChain.Exchange)}
+	 * @param exchange - Exchange to pass on to the rest of the chain
+	 *
+	 * @return Response
+	 *
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	default <T> HttpResponse<T> intercept(HttpRequest request, InterceptorChain next,
+			InterceptorChain.Exchange<T> exchange) throws IOException, InterruptedException {
+		return next.proceed(request, exchange);
+	}
+
+	/**
+	 * Sends a request of an asynchronous call
+	 *
+	 * @param <T>      Response body type
+	 * @param request  - Request to send
+	 * @param next     - Rest of the chain, see
+	 *                 {@link InterceptorChain#proceedAsync(HttpRequest, InterceptorChain.Exchange)}
+	 * @param exchange - Exchange to pass on to the rest of the chain
+	 *
+	 * @return Response as {@link CompletableFuture}
+	 */
+	default <T> CompletableFuture<HttpResponse<T>> interceptAsync(HttpRequest request, InterceptorChain next,
+			InterceptorChain.Exchange<T> exchange) {
+		return next.proceedAsync(request, exchange);
+	}
+
+}
@@ -0,0 +1,160 @@
+package giri.apurba.apps.service.core;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import giri.apurba.apps.service.core.APIServiceBase.HttpMethod;
+
+/**
+ * Immutable, ordered chain of {@link Interceptor}s. The chain is linked once
+ * when it is built: every link holds its interceptor and the rest of the chain,
+ * so that passing a call along the chain neither allocates nor looks anything
+ * up. The only per call state is the {@link Exchange}, which ends the chain by
+ * sending the request upstream. Because links are immutable, an interceptor
+ * may pass a call on more than once (e.g. to retry it).
+ *
+ * @author AGIRI6
+ *
+ */
+public final class InterceptorChain {
+
+	/**
+	 * Chain without interceptors, which sends requests unchanged
+	 */
+	public static final InterceptorChain EMPTY = new InterceptorChain(null, null, new Interceptor[0]);
+
+	/**
+	 * End of a chain: sends a request upstream. Created once per call.
+	 *
+	 * @param <T> Response body type
+	 */
+	public static interface Exchange<T> {
+
+		/**
+		 * Sends a request, blocking until the response is received
+		 *
+		 * @param request
+		 *
+		 * @return Response
+		 *
+		 * @throws IOException
+		 * @throws InterruptedException
+		 */
+		HttpResponse<T> send(HttpRequest request) throws IOException, InterruptedException;
+
+		/**
+		 * Sends a request asynchronously
+		 *
+		 * @param request
+		 *
+		 * @return Response as {@link CompletableFuture}
+		 */
+		CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request);
+	}
+
+	private final Interceptor interceptor;
+	private final InterceptorChain next;
+	private final Interceptor[] interceptors;
+
+	private InterceptorChain(Interceptor interceptor, InterceptorChain next, Interceptor[] interceptors) {
+		this.interceptor = interceptor;
+		this.next = next;
+		this.interceptors = interceptors;
+	}
+
+	/**
+	 * Builds a chain
+	 *
+	 * @param interceptors - Interceptors in the order they see requests
+	 *
+	 * @return {@link InterceptorChain}
+	 */
+	public static InterceptorChain of(Interceptor... interceptors) {
+		return of(List.of(interceptors));
+	}
+
+	/**
+	 * Builds a chain
+	 *
+	 * @param interceptors - Interceptors in the order they see requests
+	 *
+	 * @return {@link InterceptorChain}
+	 */
+	public static InterceptorChain of(List<? extends Interceptor> interceptors) {
+		if (interceptors.isEmpty()) {
+			return EMPTY;
+		}
+		Interceptor[] all = interceptors.toArray(new Interceptor[0]);
+		InterceptorChain chain = new InterceptorChain(null, null, all);
+		for (int i = all.length - 1; i >= 0; i--) {
+			chain = new InterceptorChain(all[i], chain, all);
+		}
+		return chain;
+	}
+
+	/**
+	 * Returns true if the chain has no interceptors
+	 *
+	 * @return true if empty
+	 */
+	public boolean isEmpty() {
+		return interceptors.length == 0;
+	}
+
+	/**
+	 * Lets all interceptors of the chain decorate a request being built, see
+	 * {@link Interceptor#onRequest}
+	 *
+	 * @param requestBuilder
+	 * @param httpMethod
+	 * @param uri
+	 */
+	public void onRequest(HttpRequest.Builder requestBuilder, HttpMethod httpMethod, URI uri) {
+		for (Interceptor each : interceptors) {
+			each.onRequest(requestBuilder, httpMethod, uri);
+		}
+	}
+
+	/**
+	 * Passes a blocking call to the next interceptor, or sends it once all
+	 * interceptors have seen it
+	 *
+	 * @param <T>      Response body type
+	 * @param request
+	 * @param exchange
+	 *
+	 * @return Response
+	 *
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public <T> HttpResponse<T> proceed(HttpRequest request, Exchange<T> exchange)
+			throws IOException, InterruptedException {
+		return interceptor != null ? interceptor.intercept(request, next, exchange) : exchange.send(request);
+	}
+
+	/**
+	 * Passes an asynchronous call to the next interceptor, or sends it once all
+	 * interceptors have seen it. An interceptor that throws instead of
+	 * returning a future fails the call.
+	 *
+	 * @param <T>      Response body type
+	 * @param request
+	 * @param exchange
+	 *
+	 * @return Response as {@link CompletableFuture}
+	 */
+	public <T> CompletableFuture<HttpResponse<T>> proceedAsync(HttpRequest request, Exchange<T> exchange) {
+		try {
+			return interceptor != null ? interceptor.interceptAsync(request, next, exchange)
+					: exchange.sendAsync(request);
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+}
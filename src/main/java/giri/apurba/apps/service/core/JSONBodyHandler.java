@@ -0,0 +1,183 @@
+package giri.apurba.apps.service.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import giri.apurba.apps.model.HttpErrorResponse;
+import giri.apurba.apps.model.MappedResponse;
+import giri.apurba.apps.util.JSONUtil;
+
+/**
+ * Body handler that decodes successful (2xx) JSON responses into a type (e.g.
+ * a record) with the shared {@link ObjectReader} of
+ * {@link JSONUtil#readerFor(Class)}. Received buffers are read in place,
+ * without joining them into a byte array or String or building a JSON tree
+ * first. Bodies of other responses are kept as text, so that
+ * {@link HttpErrorResponse#from} can pass an upstream error body through;
+ * {@link #typed(HttpResponse)} returns the response with the decoded body. A
+ * body that can't be decoded doesn't fail the exchange, since the upstream
+ * answered fine; it is returned as an error by {@link #typed(HttpResponse)}.
+ *
+ * @param <T> Body type
+ *
+ * @author AGIRI6
+ *
+ */
+final class JSONBodyHandler<T> implements HttpResponse.BodyHandler<Object> {
+
+	/**
+	 * Body of a 2xx response that couldn't be decoded
+	 *
+	 * @param cause - Decoding failure
+	 */
+	private static record DecodeFailure(Exception cause) {
+	}
+
+	private final Class<T> type;
+	private final ObjectReader reader;
+
+	JSONBodyHandler(Class<T> type) {
+		this.type = type;
+		this.reader = JSONUtil.readerFor(type);
+	}
+
+	@Override
+	public HttpResponse.BodySubscriber<Object> apply(HttpResponse.ResponseInfo responseInfo) {
+		if (!isSuccess(responseInfo.statusCode())) {
+			return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+					text -> text);
+		}
+		return new DecodingSubscriber(reader);
+	}
+
+	/**
+	 * Returns a response received with this handler with its decoded body
+	 *
+	 * @param response - Response of this handler, or of a failed or rejected
+	 *                 call
+	 *
+	 * @return {@link HttpResponse} of the decoded body, null if the status is
+	 *         not 2xx, the call failed or the body couldn't be decoded. The
+	 *         response it was mapped from keeps the error body, see
+	 *         {@link HttpErrorResponse#from}.
+	 */
+	HttpResponse<T> typed(HttpResponse<Object> response) {
+		if (response instanceof MappedResponse<?> mapped && mapped.source() instanceof HttpErrorResponse error) {
+			return error.mapBody(body -> null);
+		}
+		if (response.body() instanceof DecodeFailure failure) {
+			return new HttpErrorResponse(failure.cause(), response.request(), 0).mapBody(body -> null);
+		}
+		return MappedResponse.of(response, isSuccess(response.statusCode()) ? type.cast(response.body()) : null);
+	}
+
+	private static boolean isSuccess(int statusCode) {
+		return statusCode >= 200 && statusCode <= 299;
+	}
+
+	/**
+	 * Collects the received buffers and decodes them once the body is complete.
+	 * The body is the decoded value or a {@link DecodeFailure}.
+	 */
+	private static final class DecodingSubscriber implements HttpResponse.BodySubscriber<Object> {
+
+		private final ObjectReader reader;
+		private final List<ByteBuffer> buffers = new ArrayList<>();
+		private final CompletableFuture<Object> body = new CompletableFuture<>();
+
+		DecodingSubscriber(ObjectReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public CompletionStage<Object> getBody() {
+			return body;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> items) {
+			buffers.addAll(items);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			buffers.clear();
+			body.completeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			BuffersInputStream input = new BuffersInputStream(buffers);
+			try {
+				// an empty body (e.g. 204) has no value
+				body.complete(input.available() > 0 ? reader.readValue(input) : null);
+			} catch (IOException | RuntimeException e) {
+				body.complete(new DecodeFailure(e));
+			} finally {
+				buffers.clear();
+			}
+		}
+	}
+
+	/**
+	 * Reads a list of buffers in order, without copying them
+	 */
+	private static final class BuffersInputStream extends InputStream {
+
+		private final List<ByteBuffer> buffers;
+		private int index;
+
+		BuffersInputStream(List<ByteBuffer> buffers) {
+			this.buffers = buffers;
+		}
+
+		private ByteBuffer current() {
+			while (index < buffers.size() && !buffers.get(index).hasRemaining()) {
+				index++;
+			}
+			return index < buffers.size() ? buffers.get(index) : null;
+		}
+
+		@Override
+		public int read() {
+			ByteBuffer buffer = current();
+			return buffer != null ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			ByteBuffer buffer = current();
+			if (buffer == null) {
+				return -1;
+			}
+			int count = Math.min(len, buffer.remaining());
+			buffer.get(b, off, count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			ByteBuffer buffer = current();
+			return buffer != null ? buffer.remaining() : 0;
+		}
+	}
+
+}
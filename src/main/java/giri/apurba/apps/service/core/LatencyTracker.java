@@ -0,0 +1,53 @@
+package giri.apurba.apps.service.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks recent call latencies of one upstream host in a fixed ring buffer
+ * and estimates the 95th percentile, used as hedging delay. The percentile is
+ * recomputed every few samples by the recording thread, reads are a volatile
+ * load.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class LatencyTracker {
+
+	private static final int SIZE = 128;
+	private static final int RECOMPUTE_EVERY = 32;
+
+	private final AtomicLongArray samples = new AtomicLongArray(SIZE);
+	private final AtomicInteger count = new AtomicInteger();
+	private volatile long p95Nanos = -1;
+
+	/**
+	 * Records the latency of a successful call
+	 *
+	 * @param latencyNanos
+	 */
+	public void record(long latencyNanos) {
+		int n = count.getAndIncrement() & Integer.MAX_VALUE;
+		samples.set(n & (SIZE - 1), latencyNanos);
+		if ((n + 1) % RECOMPUTE_EVERY == 0) {
+			int filled = Math.min(n + 1, SIZE);
+			long[] sorted = new long[filled];
+			for (int i = 0; i < filled; i++) {
+				sorted[i] = samples.get(i);
+			}
+			Arrays.sort(sorted);
+			p95Nanos = sorted[(int) (filled * 0.95) - 1];
+		}
+	}
+
+	/**
+	 * Returns estimated 95th percentile latency
+	 *
+	 * @return Latency in nanoseconds, or -1 until enough samples are recorded
+	 */
+	public long getP95Nanos() {
+		return p95Nanos;
+	}
+
+}
@@ -0,0 +1,150 @@
+package giri.apurba.apps.service.core;
+
+import java.io.FileNotFoundException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Flow;
+
+/**
+ * 'multipart/form-data' request body ({@link APIServiceBase.ContentType#FORM_DATA}).
+ * Parts are streamed when the request is sent: files are read from disk in
+ * chunks and never loaded into memory as a whole. The body can be sent more
+ * than once.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class MultipartBody implements HttpRequest.BodyPublisher {
+
+	private final String boundary;
+	private final HttpRequest.BodyPublisher publisher;
+
+	private MultipartBody(String boundary, HttpRequest.BodyPublisher publisher) {
+		this.boundary = boundary;
+		this.publisher = publisher;
+	}
+
+	/**
+	 * Returns a new builder
+	 *
+	 * @return {@link Builder}
+	 */
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns the 'Content-Type' header value including the boundary
+	 *
+	 * @return Content type
+	 */
+	public String contentType() {
+		return "multipart/form-data; boundary=" + boundary;
+	}
+
+	@Override
+	public long contentLength() {
+		return publisher.contentLength();
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+		publisher.subscribe(subscriber);
+	}
+
+	/**
+	 * Builder of {@link MultipartBody}
+	 */
+	public static final class Builder {
+
+		private final String boundary = "----APIServiceBoundary" + UUID.randomUUID().toString().replace("-", "");
+		private final List<HttpRequest.BodyPublisher> parts = new ArrayList<>();
+
+		private Builder() {
+		}
+
+		/**
+		 * Adds a text field
+		 *
+		 * @param name  - Field name
+		 * @param value - Field value
+		 *
+		 * @return this builder
+		 */
+		public Builder field(String name, String value) {
+			parts.add(BodyPublishers.ofString(header(name, null, "text/plain; charset=UTF-8") + value + "\r\n"));
+			return this;
+		}
+
+		/**
+		 * Adds a file part, read from disk in chunks when the request is sent
+		 *
+		 * @param name        - Field name
+		 * @param file        - File to upload
+		 * @param contentType - Content type of the file (e.g.
+		 *                    'application/octet-stream')
+		 *
+		 * @return this builder
+		 *
+		 * @throws FileNotFoundException if the file doesn't exist
+		 */
+		public Builder file(String name, Path file, String contentType) throws FileNotFoundException {
+			parts.add(BodyPublishers.ofString(header(name, file.getFileName().toString(), contentType)));
+			parts.add(BodyPublishers.ofFile(file));
+			parts.add(BodyPublishers.ofString("\r\n"));
+			return this;
+		}
+
+		/**
+		 * Adds a part from an in-memory payload
+		 *
+		 * @param name        - Field name
+		 * @param filename    - File name sent to upstream
+		 * @param content     - Part content
+		 * @param contentType - Content type of the content
+		 *
+		 * @return this builder
+		 */
+		public Builder part(String name, String filename, ByteBuffer content, String contentType) {
+			parts.add(BodyPublishers.ofString(header(name, filename, contentType)));
+			parts.add(RequestBodies.ofByteBuffer(content));
+			parts.add(BodyPublishers.ofString("\r\n"));
+			return this;
+		}
+
+		/**
+		 * Builds the body
+		 *
+		 * @return {@link MultipartBody}
+		 */
+		public MultipartBody build() {
+			List<HttpRequest.BodyPublisher> body = new ArrayList<>(parts);
+			body.add(BodyPublishers.ofString("--" + boundary + "--\r\n"));
+			return new MultipartBody(boundary,
+					BodyPublishers.concat(body.toArray(HttpRequest.BodyPublisher[]::new)));
+		}
+
+		private String header(String name, String filename, String contentType) {
+			StringBuilder header = new StringBuilder(128).append("--").append(boundary).append("\r\n")
+					.append("Content-Disposition: form-data; name=\"").append(escape(name)).append('"');
+			if (filename != null) {
+				header.append("; filename=\"").append(escape(filename)).append('"');
+			}
+			header.append("\r\n");
+			if (contentType != null) {
+				header.append("Content-Type: ").append(contentType).append("\r\n");
+			}
+			return header.append("\r\n").toString();
+		}
+
+		private static String escape(String value) {
+			return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+		}
+	}
+
+}
@@ -0,0 +1,291 @@
+package giri.apurba.apps.service.core;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side rate limiter for calls made through {@link APIService}. Calls
+ * take a permit from a {@link TokenBucket} of their upstream host and, if they
+ * carry an 'Authorization' header, from a bucket of that credential on that
+ * host, so that both host wide and per credential quotas are respected. A call
+ * without permit either waits for one (up to a maximum wait) or fails fast
+ * with 429. Buckets are lock-free and looked up in {@link ConcurrentHashMap}s,
+ * so calls don't serialize on the limiter.
+ * <p>
+ * Upstream feedback adjusts the buckets: 'Retry-After' on 429/503 responses
+ * blocks the bucket until then, 'RateLimit-Remaining'/'RateLimit-Reset' (or
+ * their 'X-' prefixed variants) spread the remaining quota evenly over the
+ * rest of the quota window, or block until the window resets if nothing is
+ * left.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class RateLimiter {
+
+	private static final RateLimiter INSTANCE = new RateLimiter();
+
+	/**
+	 * Wait applied after a 429 response that doesn't say how long to wait
+	 */
+	private static final long DEFAULT_RETRY_AFTER_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Reset values above this are epoch seconds rather than delta seconds
+	 */
+	private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+	/**
+	 * Rate limiter settings
+	 *
+	 * @param requestsPerSecond           - Default rate per host (0 for no limit)
+	 * @param burst                       - Calls a host bucket allows at once
+	 * @param credentialRequestsPerSecond - Rate per credential and host (0 for
+	 *                                    no limit)
+	 * @param credentialBurst             - Calls a credential bucket allows at
+	 *                                    once
+	 * @param maxWaitMillis               - Longest a call waits for a permit (0
+	 *                                    to fail fast with 429)
+	 */
+	public static record Settings(double requestsPerSecond, int burst, double credentialRequestsPerSecond,
+			int credentialBurst, long maxWaitMillis) {
+
+		public static final Settings DISABLED = new Settings(0, 1, 0, 1, 0);
+	}
+
+	/**
+	 * Bucket key of a credential on a host. Only a hash of the 'Authorization'
+	 * header is kept, so that credentials aren't held by the limiter.
+	 *
+	 * @param host
+	 * @param credentialHash
+	 */
+	private static record CredentialKey(String host, int credentialHash) {
+	}
+
+	private final ConcurrentHashMap<String, TokenBucket> hostBuckets = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<CredentialKey, TokenBucket> credentialBuckets = new ConcurrentHashMap<>();
+
+	private volatile boolean enabled;
+	private volatile Settings settings = Settings.DISABLED;
+	private volatile Map<String, Double> hostRates = Map.of();
+
+	private RateLimiter() {
+	}
+
+	/**
+	 * Returns the shared rate limiter instance
+	 *
+	 * @return {@link RateLimiter}
+	 */
+	public static RateLimiter getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Configures the rate limiter. Existing buckets are dropped.
+	 *
+	 * @param enabled   - Whether calls are rate limited
+	 * @param settings  - {@link Settings}
+	 * @param hostRates - Rate per host overriding the default rate (see
+	 *                  {@link #parse(String)})
+	 */
+	public void configure(boolean enabled, Settings settings, Map<String, Double> hostRates) {
+		if (settings.requestsPerSecond() < 0 || settings.credentialRequestsPerSecond() < 0 || settings.burst() <= 0
+				|| settings.credentialBurst() <= 0 || settings.maxWaitMillis() < 0
+				|| hostRates.values().stream().anyMatch(rate -> rate < 0)) {
+			throw new IllegalArgumentException(
+					"Rates and maxWaitMillis must not be negative and bursts must be greater than 0");
+		}
+		this.settings = settings;
+		this.hostRates = Map.copyOf(hostRates);
+		hostBuckets.clear();
+		credentialBuckets.clear();
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Parses per host rates
+	 *
+	 * @param hostRates - Comma separated 'host=requestsPerSecond' entries, e.g.
+	 *                  'api.example.com=10,localhost=100'
+	 *
+	 * @return Rate per host
+	 */
+	public static Map<String, Double> parse(String hostRates) {
+		Map<String, Double> rates = new HashMap<>();
+		if (hostRates == null || hostRates.isBlank()) {
+			return rates;
+		}
+		for (String entry : hostRates.split(",")) {
+			int separator = entry.indexOf('=');
+			if (separator <= 0) {
+				throw new IllegalArgumentException("Invalid upstream rate '" + entry + "', expected host=RATE");
+			}
+			rates.put(entry.substring(0, separator).trim(), Double.parseDouble(entry.substring(separator + 1).trim()));
+		}
+		return rates;
+	}
+
+	/**
+	 * Returns true if calls are rate limited
+	 *
+	 * @return true if enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Takes the permits needed to send a request
+	 *
+	 * @param httpRequest
+	 *
+	 * @return Nanoseconds to wait before sending, or -1 if the request must be
+	 *         rejected
+	 */
+	public long acquire(HttpRequest httpRequest) {
+		if (!enabled) {
+			return 0;
+		}
+		long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(settings.maxWaitMillis());
+		String host = host(httpRequest);
+		TokenBucket credentialBucket = credentialBucket(host, httpRequest, false);
+		long credentialWait = 0;
+		if (credentialBucket != null) {
+			credentialWait = credentialBucket.reserve(maxWaitNanos);
+			if (credentialWait < 0) {
+				return -1;
+			}
+		}
+		TokenBucket hostBucket = hostBucket(host, false);
+		long hostWait = hostBucket != null ? hostBucket.reserve(maxWaitNanos) : 0;
+		if (hostWait < 0) {
+			if (credentialBucket != null) {
+				credentialBucket.refund();
+			}
+			return -1;
+		}
+		return Math.max(credentialWait, hostWait);
+	}
+
+	/**
+	 * Adjusts the buckets of a request to the rate limit headers of its
+	 * response
+	 *
+	 * @param httpRequest - null if the request couldn't be built
+	 * @param response    - Upstream response (null if the call failed)
+	 */
+	public void onResponse(HttpRequest httpRequest, HttpResponse<?> response) {
+		if (!enabled || httpRequest == null || response == null || response.headers() == null) {
+			return;
+		}
+		HttpHeaders headers = response.headers();
+		long now = System.nanoTime();
+		int status = response.statusCode();
+		OptionalLong retryAfter = status == 429 || status == 503 ? retryAfterNanos(headers) : OptionalLong.empty();
+		OptionalLong remaining = firstLong(headers, "RateLimit-Remaining", "X-RateLimit-Remaining");
+		OptionalLong reset = firstLong(headers, "RateLimit-Reset", "X-RateLimit-Reset");
+		if (status != 429 && retryAfter.isEmpty() && (remaining.isEmpty() || reset.isEmpty())) {
+			return;
+		}
+		String host = host(httpRequest);
+		TokenBucket bucket = httpRequest.headers().firstValue("Authorization").isPresent()
+				? credentialBucket(host, httpRequest, true)
+				: hostBucket(host, true);
+		if (retryAfter.isPresent()) {
+			bucket.blockUntil(now + retryAfter.getAsLong());
+		} else if (status == 429) {
+			bucket.blockUntil(now + DEFAULT_RETRY_AFTER_NANOS);
+		}
+		if (remaining.isPresent() && reset.isPresent()) {
+			long resetSeconds = reset.getAsLong();
+			if (resetSeconds > EPOCH_SECONDS_THRESHOLD) {
+				resetSeconds = Math.max(0, resetSeconds - System.currentTimeMillis() / 1000);
+			}
+			long resetNanos = TimeUnit.SECONDS.toNanos(resetSeconds);
+			if (remaining.getAsLong() <= 0) {
+				bucket.blockUntil(now + resetNanos);
+			} else {
+				bucket.pace(resetNanos / remaining.getAsLong(), now + resetNanos);
+			}
+		}
+	}
+
+	private TokenBucket hostBucket(String host, boolean create) {
+		TokenBucket bucket = hostBuckets.get(host);
+		if (bucket != null) {
+			return bucket;
+		}
+		double rate = hostRates.getOrDefault(host, settings.requestsPerSecond());
+		if (rate <= 0 && !create) {
+			return null;
+		}
+		return hostBuckets.computeIfAbsent(host, key -> new TokenBucket(rate, settings.burst()));
+	}
+
+	private TokenBucket credentialBucket(String host, HttpRequest httpRequest, boolean create) {
+		double rate = settings.credentialRequestsPerSecond();
+		if (rate <= 0 && !create && credentialBuckets.isEmpty()) {
+			return null;
+		}
+		String authorization = httpRequest.headers().firstValue("Authorization").orElse(null);
+		if (authorization == null) {
+			return null;
+		}
+		CredentialKey key = new CredentialKey(host, authorization.hashCode());
+		TokenBucket bucket = credentialBuckets.get(key);
+		if (bucket != null || (rate <= 0 && !create)) {
+			return bucket;
+		}
+		return credentialBuckets.computeIfAbsent(key, k -> new TokenBucket(rate, settings.credentialBurst()));
+	}
+
+	private static String host(HttpRequest httpRequest) {
+		String host = httpRequest.uri().getHost();
+		return host != null ? host : "none";
+	}
+
+	/**
+	 * Parses 'Retry-After' in delta seconds or HTTP date format
+	 */
+	private static OptionalLong retryAfterNanos(HttpHeaders headers) {
+		String retryAfter = headers.firstValue("Retry-After").orElse(null);
+		if (retryAfter == null) {
+			return OptionalLong.empty();
+		}
+		try {
+			return OptionalLong.of(TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter.trim())));
+		} catch (NumberFormatException e) {
+			try {
+				long millis = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+						.toEpochMilli() - System.currentTimeMillis();
+				return OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)));
+			} catch (DateTimeParseException invalid) {
+				return OptionalLong.empty();
+			}
+		}
+	}
+
+	private static OptionalLong firstLong(HttpHeaders headers, String name, String alternativeName) {
+		String value = headers.firstValue(name).or(() -> headers.firstValue(alternativeName)).orElse(null);
+		if (value == null) {
+			return OptionalLong.empty();
+		}
+		try {
+			return OptionalLong.of(Long.parseLong(value.trim()));
+		} catch (NumberFormatException e) {
+			return OptionalLong.empty();
+		}
+	}
+
+}
@@ -0,0 +1,600 @@
+package giri.apurba.apps.service.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLSession;
+
+import giri.apurba.apps.util.LongObjectHashMap;
+
+/**
+ * Record/replay of upstream exchanges, so that {@link APIService} callers can
+ * be load tested offline and without upstream variance.
+ * <p>
+ * In {@link Mode#RECORD} every response received from upstream is appended to
+ * a recording file, keyed by a fingerprint of the request (method, URI,
+ * 'Authorization' header and body). Bodies are recorded as received, i.e.
+ * still compressed if the upstream compressed them.
+ * <p>
+ * In {@link Mode#REPLAY} the recording file is memory-mapped and indexed by
+ * fingerprint once, and requests are answered from it without touching the
+ * network. Recorded bodies are handed to the response body handler as
+ * read-only slices of the mapping, without copying. The latest recording of a
+ * request wins. An optional {@link Latency} is added to every replayed
+ * response. Requests without recording fail with an {@link IOException}.
+ * <p>
+ * Recording file layout: a magic header followed by records of
+ * {@code [int length][long fingerprint][int status][int headersLength][headers][int bodyLength][body]},
+ * where headers are UTF-8 'name:value' lines.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class RecordReplay {
+
+	private static final byte[] MAGIC = "APIREC1\n".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Largest request body that is part of a fingerprint; longer bodies only
+	 * contribute their length
+	 */
+	private static final long MAX_FINGERPRINT_BODY_BYTES = 1 << 20;
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private static final RecordReplay INSTANCE = new RecordReplay();
+
+	public static enum Mode {
+		OFF, RECORD, REPLAY
+	};
+
+	/**
+	 * Shape of the simulated upstream latency
+	 */
+	public static enum Distribution {
+		/**
+		 * No added latency
+		 */
+		NONE,
+		/**
+		 * Always the median
+		 */
+		FIXED,
+		/**
+		 * Uniform within median * (1 +/- spread)
+		 */
+		UNIFORM,
+		/**
+		 * Log-normal around the median with spread as sigma, i.e. a long tail
+		 */
+		LOG_NORMAL
+	};
+
+	/**
+	 * Simulated latency of replayed responses
+	 *
+	 * @param distribution - {@link Distribution}
+	 * @param medianMillis - Median latency
+	 * @param spread       - Fraction of the median for {@link Distribution#UNIFORM}
+	 *                     (0 to 1), sigma for {@link Distribution#LOG_NORMAL}
+	 */
+	public static record Latency(Distribution distribution, double medianMillis, double spread) {
+
+		public static final Latency NONE = new Latency(Distribution.NONE, 0, 0);
+
+		/**
+		 * Draws a latency
+		 *
+		 * @return Latency in nanoseconds
+		 */
+		public long nextNanos() {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			double millis = switch (distribution) {
+			case NONE -> 0;
+			case FIXED -> medianMillis;
+			case UNIFORM -> medianMillis * (1 + spread * (2 * random.nextDouble() - 1));
+			case LOG_NORMAL -> medianMillis * Math.exp(spread * random.nextGaussian());
+			};
+			return (long) (Math.max(0, millis) * 1_000_000);
+		}
+	}
+
+	/**
+	 * Recorded response
+	 *
+	 * @param statusCode
+	 * @param headers
+	 * @param body       - Read-only slice of the mapped recording file
+	 */
+	private static record Recording(int statusCode, HttpHeaders headers, ByteBuffer body) {
+	}
+
+	private volatile Mode mode = Mode.OFF;
+	private volatile Latency latency = Latency.NONE;
+	private volatile LongObjectHashMap<Recording> recordings;
+	private FileChannel recordChannel;
+
+	private RecordReplay() {
+	}
+
+	/**
+	 * Returns the shared record/replay instance
+	 *
+	 * @return {@link RecordReplay}
+	 */
+	public static RecordReplay getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Configures record/replay
+	 *
+	 * @param mode    - {@link Mode}
+	 * @param file    - Recording file, appended to in {@link Mode#RECORD} and
+	 *                mapped in {@link Mode#REPLAY}
+	 * @param latency - Latency added to replayed responses
+	 *
+	 * @throws IOException if the file can't be opened or isn't a recording
+	 */
+	public synchronized void configure(Mode mode, Path file, Latency latency) throws IOException {
+		if (latency.medianMillis() < 0 || latency.spread() < 0
+				|| (latency.distribution() == Distribution.UNIFORM && latency.spread() > 1)) {
+			throw new IllegalArgumentException(
+					"Latency median and spread must not be negative, spread of UNIFORM latency must not exceed 1");
+		}
+		close();
+		if (mode == Mode.RECORD) {
+			recordChannel = openForAppend(file);
+		} else if (mode == Mode.REPLAY) {
+			recordings = index(file);
+		}
+		this.latency = latency;
+		this.mode = mode;
+	}
+
+	/**
+	 * Returns true if responses are recorded
+	 *
+	 * @return true in {@link Mode#RECORD}
+	 */
+	public boolean isRecording() {
+		return mode == Mode.RECORD;
+	}
+
+	/**
+	 * Returns true if responses are served from the recording
+	 *
+	 * @return true in {@link Mode#REPLAY}
+	 */
+	public boolean isReplaying() {
+		return mode == Mode.REPLAY;
+	}
+
+	/**
+	 * Returns number of recorded requests available for replay
+	 *
+	 * @return Recording count
+	 */
+	public int size() {
+		LongObjectHashMap<Recording> current = recordings;
+		return current != null ? current.size() : 0;
+	}
+
+	/**
+	 * Stops recording or replaying and releases the recording file
+	 */
+	public synchronized void close() {
+		mode = Mode.OFF;
+		recordings = null;
+		if (recordChannel != null) {
+			try {
+				recordChannel.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			recordChannel = null;
+		}
+	}
+
+	/**
+	 * Wraps a response body handler so that the response is appended to the
+	 * recording once it has been received completely
+	 *
+	 * @param <T>         Response body type
+	 * @param httpRequest
+	 * @param bodyHandler
+	 *
+	 * @return Recording {@link HttpResponse.BodyHandler}
+	 */
+	public <T> HttpResponse.BodyHandler<T> recording(HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler) {
+		long fingerprint = fingerprint(httpRequest);
+		return responseInfo -> new RecordingSubscriber<>(bodyHandler.apply(responseInfo), fingerprint,
+				responseInfo.statusCode(), responseInfo.headers());
+	}
+
+	/**
+	 * Appends a response to the recording, e.g. to seed a recording for an
+	 * upstream that can't be reached
+	 *
+	 * @param httpRequest - Request the response answers
+	 * @param statusCode
+	 * @param headers
+	 * @param body
+	 *
+	 * @throws IOException if not in {@link Mode#RECORD} or the write failed
+	 */
+	public void record(HttpRequest httpRequest, int statusCode, HttpHeaders headers, byte[] body)
+			throws IOException {
+		append(fingerprint(httpRequest), statusCode, headers, body);
+	}
+
+	/**
+	 * Answers a request from the recording, after the simulated latency
+	 *
+	 * @param <T>         Response body type
+	 * @param httpRequest
+	 * @param bodyHandler
+	 *
+	 * @return Replayed response
+	 *
+	 * @throws IOException          if the request wasn't recorded
+	 * @throws InterruptedException
+	 */
+	public <T> HttpResponse<T> replay(HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler)
+			throws IOException, InterruptedException {
+		Recording recording = find(httpRequest);
+		long latencyNanos = latency.nextNanos();
+		if (latencyNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(latencyNanos);
+		}
+		try {
+			return respond(httpRequest, recording, bodyHandler).get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Answers a request from the recording asynchronously, after the simulated
+	 * latency
+	 *
+	 * @param <T>         Response body type
+	 * @param httpRequest
+	 * @param bodyHandler
+	 *
+	 * @return Replayed response, completed exceptionally with an
+	 *         {@link IOException} if the request wasn't recorded
+	 */
+	public <T> CompletableFuture<HttpResponse<T>> replayAsync(HttpRequest httpRequest,
+			HttpResponse.BodyHandler<T> bodyHandler) {
+		Recording recording;
+		try {
+			recording = find(httpRequest);
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		long latencyNanos = latency.nextNanos();
+		if (latencyNanos <= 0) {
+			return respond(httpRequest, recording, bodyHandler);
+		}
+		return CompletableFuture.runAsync(() -> {
+		}, CompletableFuture.delayedExecutor(latencyNanos, TimeUnit.NANOSECONDS))
+				.thenCompose(delayed -> respond(httpRequest, recording, bodyHandler));
+	}
+
+	private Recording find(HttpRequest httpRequest) throws IOException {
+		LongObjectHashMap<Recording> current = recordings;
+		Recording recording = current != null ? current.get(fingerprint(httpRequest)) : null;
+		if (recording == null) {
+			throw new IOException("No recorded response for " + httpRequest.method() + " " + httpRequest.uri());
+		}
+		return recording;
+	}
+
+	private static <T> CompletableFuture<HttpResponse<T>> respond(HttpRequest httpRequest, Recording recording,
+			HttpResponse.BodyHandler<T> bodyHandler) {
+		HttpResponse.BodySubscriber<T> subscriber = bodyHandler
+				.apply(new ReplayedInfo(recording.statusCode(), recording.headers()));
+		new SinglePublisher<List<ByteBuffer>>(() -> List.of(recording.body().duplicate())).subscribe(subscriber);
+		return subscriber.getBody().toCompletableFuture()
+				.thenApply(body -> new ReplayedResponse<>(httpRequest, recording, body));
+	}
+
+	private synchronized void append(long fingerprint, int statusCode, HttpHeaders headers, byte[] body)
+			throws IOException {
+		if (recordChannel == null) {
+			throw new IOException("Record/replay is not in RECORD mode");
+		}
+		StringBuilder headerLines = new StringBuilder();
+		headers.map().forEach((name, values) -> values
+				.forEach(value -> headerLines.append(name).append(':').append(value).append('\n')));
+		byte[] headerBytes = headerLines.toString().getBytes(StandardCharsets.UTF_8);
+		int length = Long.BYTES + Integer.BYTES * 3 + headerBytes.length + body.length;
+		ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length);
+		record.putInt(length).putLong(fingerprint).putInt(statusCode).putInt(headerBytes.length).put(headerBytes)
+				.putInt(body.length).put(body).flip();
+		while (record.hasRemaining()) {
+			recordChannel.write(record);
+		}
+	}
+
+	private static FileChannel openForAppend(Path file) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		if (channel.size() == 0) {
+			channel.write(ByteBuffer.wrap(MAGIC));
+		}
+		return channel;
+	}
+
+	/**
+	 * Maps a recording file and indexes its records by fingerprint. A truncated
+	 * last record (e.g. of an interrupted recording) is ignored.
+	 */
+	private static LongObjectHashMap<Recording> index(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Recording file is larger than 2 GB: " + file);
+			}
+			// the mapping stays valid after the channel is closed
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (mapped.remaining() < MAGIC.length || !mapped.slice(0, MAGIC.length).equals(ByteBuffer.wrap(MAGIC))) {
+				throw new IOException("Not a recording file: " + file);
+			}
+			LongObjectHashMap<Recording> index = new LongObjectHashMap<>(64);
+			int position = MAGIC.length;
+			while (position + Integer.BYTES <= mapped.limit()) {
+				int length = mapped.getInt(position);
+				int start = position + Integer.BYTES;
+				if (length < Long.BYTES + Integer.BYTES * 3 || start + length > mapped.limit()) {
+					break;
+				}
+				long fingerprint = mapped.getLong(start);
+				int statusCode = mapped.getInt(start + Long.BYTES);
+				int headersLength = mapped.getInt(start + Long.BYTES + Integer.BYTES);
+				int headersStart = start + Long.BYTES + Integer.BYTES * 2;
+				int bodyLength = mapped.getInt(headersStart + headersLength);
+				int bodyStart = headersStart + headersLength + Integer.BYTES;
+				byte[] headerBytes = new byte[headersLength];
+				mapped.get(headersStart, headerBytes);
+				index.put(fingerprint, new Recording(statusCode, parseHeaders(headerBytes),
+						mapped.slice(bodyStart, bodyLength).asReadOnlyBuffer()));
+				position = start + length;
+			}
+			return index;
+		}
+	}
+
+	private static HttpHeaders parseHeaders(byte[] headerBytes) {
+		Map<String, List<String>> headers = new LinkedHashMap<>();
+		for (String line : new String(headerBytes, StandardCharsets.UTF_8).split("\n")) {
+			int separator = line.indexOf(':');
+			if (separator > 0) {
+				headers.computeIfAbsent(line.substring(0, separator), name -> new ArrayList<>())
+						.add(line.substring(separator + 1));
+			}
+		}
+		return HttpHeaders.of(headers, (name, value) -> true);
+	}
+
+	/**
+	 * Returns a 64-bit FNV-1a hash of method, URI, 'Authorization' header and
+	 * request body of a request
+	 *
+	 * @param httpRequest
+	 *
+	 * @return Fingerprint
+	 */
+	static long fingerprint(HttpRequest httpRequest) {
+		long hash = FNV_OFFSET_BASIS;
+		hash = hash(hash, httpRequest.method().getBytes(StandardCharsets.UTF_8));
+		hash = hash(hash, httpRequest.uri().toString().getBytes(StandardCharsets.UTF_8));
+		hash = hash(hash, httpRequest.headers().firstValue("Authorization").orElse("")
+				.getBytes(StandardCharsets.UTF_8));
+		HttpRequest.BodyPublisher publisher = httpRequest.bodyPublisher().orElse(null);
+		if (publisher != null && publisher.contentLength() != 0) {
+			byte[] body = publisher.contentLength() > 0 && publisher.contentLength() <= MAX_FINGERPRINT_BODY_BYTES
+					? readBody(publisher)
+					: null;
+			hash = body != null ? hash(hash, body)
+					: hash(hash, Long.toString(publisher.contentLength()).getBytes(StandardCharsets.UTF_8));
+		}
+		return hash;
+	}
+
+	private static long hash(long hash, byte[] bytes) {
+		for (byte b : bytes) {
+			hash ^= b & 0xff;
+			hash *= FNV_PRIME;
+		}
+		// separator, so that adjacent parts can't run into each other
+		hash ^= 0xff;
+		return hash * FNV_PRIME;
+	}
+
+	/**
+	 * Reads a request body publisher that publishes synchronously (e.g. String,
+	 * byte array and file bodies, which can be subscribed to again when the
+	 * request is sent)
+	 *
+	 * @return Body, or null if it wasn't published synchronously
+	 */
+	private static byte[] readBody(HttpRequest.BodyPublisher publisher) {
+		ByteArrayOutputStream body = new ByteArrayOutputStream((int) publisher.contentLength());
+		boolean[] complete = new boolean[1];
+		publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(ByteBuffer item) {
+				byte[] bytes = new byte[item.remaining()];
+				item.get(bytes);
+				body.writeBytes(bytes);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+			}
+
+			@Override
+			public void onComplete() {
+				complete[0] = true;
+			}
+		});
+		return complete[0] ? body.toByteArray() : null;
+	}
+
+	/**
+	 * Tees the response body into a buffer and appends the response to the
+	 * recording once the body is complete
+	 */
+	private final class RecordingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+		private final HttpResponse.BodySubscriber<T> delegate;
+		private final long fingerprint;
+		private final int statusCode;
+		private final HttpHeaders headers;
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private RecordingSubscriber(HttpResponse.BodySubscriber<T> delegate, long fingerprint, int statusCode,
+				HttpHeaders headers) {
+			this.delegate = delegate;
+			this.fingerprint = fingerprint;
+			this.statusCode = statusCode;
+			this.headers = headers;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			delegate.onSubscribe(subscription);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> items) {
+			for (ByteBuffer item : items) {
+				ByteBuffer copy = item.duplicate();
+				byte[] bytes = new byte[copy.remaining()];
+				copy.get(bytes);
+				body.writeBytes(bytes);
+			}
+			delegate.onNext(items);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			delegate.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			try {
+				append(fingerprint, statusCode, headers, body.toByteArray());
+			} catch (IOException e) {
+				// recording stopped meanwhile, the response is still delivered
+				e.printStackTrace();
+			}
+			delegate.onComplete();
+		}
+
+		@Override
+		public CompletableFuture<T> getBody() {
+			return delegate.getBody().toCompletableFuture();
+		}
+	}
+
+	private static record ReplayedInfo(int statusCode, HttpHeaders headers) implements HttpResponse.ResponseInfo {
+
+		@Override
+		public Version version() {
+			return Version.HTTP_1_1;
+		}
+	}
+
+	/**
+	 * Response served from the recording
+	 */
+	private static final class ReplayedResponse<T> implements HttpResponse<T> {
+
+		private final HttpRequest request;
+		private final Recording recording;
+		private final T body;
+
+		private ReplayedResponse(HttpRequest request, Recording recording, T body) {
+			this.request = request;
+			this.recording = recording;
+			this.body = body;
+		}
+
+		@Override
+		public int statusCode() {
+			return recording.statusCode();
+		}
+
+		@Override
+		public HttpRequest request() {
+			return request;
+		}
+
+		@Override
+		public Optional<HttpResponse<T>> previousResponse() {
+			return Optional.empty();
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return recording.headers();
+		}
+
+		@Override
+		public T body() {
+			return body;
+		}
+
+		@Override
+		public Optional<SSLSession> sslSession() {
+			return Optional.empty();
+		}
+
+		@Override
+		public URI uri() {
+			return request.uri();
+		}
+
+		@Override
+		public Version version() {
+			return Version.HTTP_1_1;
+		}
+	}
+
+}
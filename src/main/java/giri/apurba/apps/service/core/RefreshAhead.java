@@ -0,0 +1,282 @@
+package giri.apurba.apps.service.core;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import giri.apurba.apps.model.HttpErrorResponse;
+
+/**
+ * Refresh-ahead store for hot upstream resources, e.g. the employee list.
+ * Registered resources are prefetched right away and refreshed in the
+ * background before their data expires, so callers are served from memory and
+ * never wait for upstream once the first fetch completed. A failed refresh
+ * keeps serving the previous data (stale-while-revalidate) and is retried
+ * sooner. Refresh times are jittered so that resources registered together
+ * don't refresh in synchronized bursts.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class RefreshAhead {
+
+	public static final double DEFAULT_JITTER = 0.1;
+
+	/**
+	 * Share of the refresh interval after which data is refreshed, leaving the
+	 * rest of the interval for the refresh to complete before the data expires
+	 */
+	private static final double REFRESH_AHEAD_RATIO = 0.8;
+
+	private static final long MIN_RETRY_MILLIS = 1000;
+	private static final long MAX_RETRY_MILLIS = 30000;
+
+	private static final RefreshAhead INSTANCE = new RefreshAhead();
+
+	/**
+	 * Data fetched for a resource
+	 *
+	 * @param response     - Upstream response
+	 * @param fetchedNanos - {@link System#nanoTime()} when the response was
+	 *                     received
+	 */
+	private static record Snapshot(HttpResponse<String> response, long fetchedNanos) {
+	}
+
+	/**
+	 * A registered resource
+	 */
+	private final class Resource {
+
+		private final String name;
+		private final APIRequest request;
+		private final long refreshMillis;
+
+		private volatile Snapshot snapshot;
+		private volatile CompletableFuture<HttpResponse<String>> inFlight;
+		private ScheduledFuture<?> nextRefresh;
+		private volatile boolean cancelled;
+
+		private Resource(String name, APIRequest request, long refreshMillis) {
+			this.name = name;
+			this.request = request;
+			this.refreshMillis = refreshMillis;
+		}
+
+		/**
+		 * Starts a refresh unless one is in flight
+		 *
+		 * @return Future of the refreshed response, completed with the upstream
+		 *         response even if it was not stored
+		 */
+		private synchronized CompletableFuture<HttpResponse<String>> refresh() {
+			CompletableFuture<HttpResponse<String>> current = inFlight;
+			if (current != null) {
+				return current;
+			}
+			long startNanos = System.nanoTime();
+			CompletableFuture<HttpResponse<String>> refresh = new APIService()
+					.invokeAsync(request.httpMethod(), request.contentType(), request.serviceUrl(),
+							request.authType(), request.authLiteral(), request.requestBody(),
+							request.requestTimeout(), request.connectionTimeout())
+					.exceptionally(HttpErrorResponse::new);
+			inFlight = refresh;
+			refresh.whenComplete((response, e) -> completed(response, startNanos));
+			return refresh;
+		}
+
+		private void completed(HttpResponse<String> response, long startNanos) {
+			long now = System.nanoTime();
+			APIMetrics.getInstance().recordRefresh(name, response, now - startNanos);
+			boolean success = response.statusCode() == 200;
+			if (success) {
+				snapshot = new Snapshot(response, now);
+			}
+			inFlight = null;
+			if (!cancelled) {
+				schedule(success ? jittered((long) (refreshMillis * REFRESH_AHEAD_RATIO)) : retryMillis());
+			}
+		}
+
+		/**
+		 * Schedules the next refresh, replacing any scheduled one
+		 */
+		private synchronized void schedule(long delayMillis) {
+			if (nextRefresh != null) {
+				nextRefresh.cancel(false);
+			}
+			nextRefresh = scheduler.schedule(() -> {
+				if (!cancelled) {
+					refresh();
+				}
+			}, delayMillis, TimeUnit.MILLISECONDS);
+		}
+
+		private synchronized void cancel() {
+			cancelled = true;
+			if (nextRefresh != null) {
+				nextRefresh.cancel(false);
+			}
+		}
+
+		private long retryMillis() {
+			return jittered(Math.max(MIN_RETRY_MILLIS, Math.min(MAX_RETRY_MILLIS, refreshMillis / 10)));
+		}
+
+		private boolean isExpired(Snapshot current) {
+			return System.nanoTime() - current.fetchedNanos() > TimeUnit.MILLISECONDS.toNanos(refreshMillis);
+		}
+
+		private double stalenessSeconds() {
+			Snapshot current = snapshot;
+			return current != null ? (System.nanoTime() - current.fetchedNanos()) / 1e9 : Double.NaN;
+		}
+	}
+
+	private final ConcurrentHashMap<String, Resource> resources = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler = Executors
+			.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("refresh-ahead").factory());
+
+	private volatile double jitter = DEFAULT_JITTER;
+
+	private RefreshAhead() {
+	}
+
+	/**
+	 * Returns the shared refresh-ahead instance
+	 *
+	 * @return {@link RefreshAhead}
+	 */
+	public static RefreshAhead getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Sets how much refresh times are spread out
+	 *
+	 * @param jitter - Random deviation from the refresh time as a fraction of the
+	 *               delay, from 0 (none) to 0.5
+	 */
+	public void setJitter(double jitter) {
+		if (jitter < 0 || jitter > 0.5) {
+			throw new IllegalArgumentException("jitter must be between 0 and 0.5");
+		}
+		this.jitter = jitter;
+	}
+
+	/**
+	 * Registers a resource and starts prefetching it. The resource is refreshed
+	 * every {@code refreshSeconds * 0.8} (jittered) and its data is considered
+	 * expired {@code refreshSeconds} after it was fetched.
+	 *
+	 * @param name           - Resource name, used to look it up and as metrics
+	 *                       tag
+	 * @param request        - Call that fetches the resource
+	 * @param refreshSeconds - Refresh interval, must be greater than 0
+	 */
+	public void register(String name, APIRequest request, long refreshSeconds) {
+		if (refreshSeconds <= 0) {
+			throw new IllegalArgumentException("refreshSeconds must be greater than 0");
+		}
+		Resource resource = new Resource(name, request, TimeUnit.SECONDS.toMillis(refreshSeconds));
+		if (resources.putIfAbsent(name, resource) != null) {
+			throw new IllegalArgumentException("Resource already registered: " + name);
+		}
+		APIMetrics.getInstance().registerRefreshStaleness(name, resource, Resource::stalenessSeconds);
+		resource.refresh();
+	}
+
+	/**
+	 * Returns true if a resource is registered with given name
+	 *
+	 * @param name
+	 *
+	 * @return true if registered
+	 */
+	public boolean isRegistered(String name) {
+		return resources.containsKey(name);
+	}
+
+	/**
+	 * Returns the latest data of a resource. Expired data is still returned, and
+	 * a refresh is started if none is in flight. Until the first fetch
+	 * succeeded, the caller waits for the in-flight fetch.
+	 *
+	 * @param name
+	 *
+	 * @return Service response as {@link HttpResponse}, or null if the resource
+	 *         isn't registered
+	 */
+	public HttpResponse<String> get(String name) {
+		CompletableFuture<HttpResponse<String>> response = getAsync(name);
+		return response != null ? response.join() : null;
+	}
+
+	/**
+	 * Returns the latest data of a resource, see {@link #get(String)}
+	 *
+	 * @param name
+	 *
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}, or null if the resource isn't registered
+	 */
+	public CompletableFuture<HttpResponse<String>> getAsync(String name) {
+		Resource resource = resources.get(name);
+		if (resource == null) {
+			return null;
+		}
+		Snapshot current = resource.snapshot;
+		if (current == null) {
+			return resource.refresh();
+		}
+		if (resource.isExpired(current) && resource.inFlight == null) {
+			resource.refresh();
+		}
+		return CompletableFuture.completedFuture(current.response());
+	}
+
+	/**
+	 * Returns how long ago the data served for a resource was fetched
+	 *
+	 * @param name
+	 *
+	 * @return Staleness in seconds, NaN if nothing was fetched yet or the
+	 *         resource isn't registered
+	 */
+	public double getStalenessSeconds(String name) {
+		Resource resource = resources.get(name);
+		return resource != null ? resource.stalenessSeconds() : Double.NaN;
+	}
+
+	/**
+	 * Stops refreshing a resource, drops its data and removes its staleness
+	 * gauge
+	 *
+	 * @param name
+	 */
+	public void unregister(String name) {
+		Resource resource = resources.remove(name);
+		if (resource != null) {
+			resource.cancel();
+			APIMetrics.getInstance().removeRefreshStaleness(name);
+		}
+	}
+
+	/**
+	 * Stops refreshing and drops all resources
+	 */
+	public void clear() {
+		resources.keySet().forEach(this::unregister);
+	}
+
+	private long jittered(long delayMillis) {
+		double deviation = jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+		return Math.max(1, Math.round(delayMillis * (1 + deviation)));
+	}
+
+}
@@ -0,0 +1,150 @@
+package giri.apurba.apps.service.core;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link TokenProvider} that caches a token and refreshes it in the
+ * background shortly before it expires, so that requests never wait for a
+ * token fetch once the first token is available. If a background refresh
+ * fails, the current token keeps being served until it expires and the
+ * refresh is retried. Only when no valid token is left does a caller fetch one
+ * itself; concurrent callers share that fetch.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class RefreshingTokenProvider implements TokenProvider, AutoCloseable {
+
+	private static final long MIN_REFRESH_DELAY_MILLIS = 1000;
+	private static final long MAX_RETRY_DELAY_MILLIS = 30000;
+
+	private static final ScheduledExecutorService SCHEDULER = Executors
+			.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("token-refresh").factory());
+
+	/**
+	 * Token with its expiry
+	 *
+	 * @param value     - Bearer token
+	 * @param expiresAt - Expiry time
+	 */
+	public static record Token(String value, Instant expiresAt) {
+	}
+
+	/**
+	 * Fetches a new token, e.g. from an OAuth token endpoint
+	 */
+	@FunctionalInterface
+	public static interface TokenSource {
+		Token fetch() throws Exception;
+	}
+
+	private final TokenSource source;
+	private final Duration refreshAhead;
+	private final ReentrantLock fetchLock = new ReentrantLock();
+
+	private volatile Token current;
+	private volatile ScheduledFuture<?> scheduledRefresh;
+	private volatile boolean closed;
+
+	/**
+	 * @param source       - Source of new tokens
+	 * @param refreshAhead - How long before expiry a token is refreshed
+	 */
+	public RefreshingTokenProvider(TokenSource source, Duration refreshAhead) {
+		this.source = source;
+		this.refreshAhead = refreshAhead;
+	}
+
+	@Override
+	public String getToken() {
+		Token token = current;
+		if (token == null || isExpired(token)) {
+			token = fetchNow();
+		}
+		return token.value();
+	}
+
+	/**
+	 * Fetches a token on the calling thread unless another caller just did
+	 */
+	private Token fetchNow() {
+		fetchLock.lock();
+		try {
+			Token token = current;
+			if (token != null && !isExpired(token)) {
+				return token;
+			}
+			try {
+				token = source.fetch();
+			} catch (Exception e) {
+				throw new IllegalStateException("Unable to fetch token: " + e.getMessage(), e);
+			}
+			update(token);
+			return token;
+		} finally {
+			fetchLock.unlock();
+		}
+	}
+
+	private void refresh() {
+		if (closed) {
+			return;
+		}
+		try {
+			Token token = source.fetch();
+			fetchLock.lock();
+			try {
+				update(token);
+			} finally {
+				fetchLock.unlock();
+			}
+		} catch (Exception e) {
+			// keep serving the current token until it expires and retry sooner
+			e.printStackTrace();
+			Token token = current;
+			long untilExpiry = token != null ? Duration.between(Instant.now(), token.expiresAt()).toMillis() : 0;
+			long retryDelay = Math.max(MIN_REFRESH_DELAY_MILLIS, Math.min(MAX_RETRY_DELAY_MILLIS, untilExpiry / 2));
+			schedule(retryDelay);
+		}
+	}
+
+	private void update(Token token) {
+		current = token;
+		long delay = Duration.between(Instant.now(), token.expiresAt().minus(refreshAhead)).toMillis();
+		schedule(Math.max(MIN_REFRESH_DELAY_MILLIS, delay));
+	}
+
+	private void schedule(long delayMillis) {
+		if (closed) {
+			return;
+		}
+		ScheduledFuture<?> previous = scheduledRefresh;
+		if (previous != null) {
+			previous.cancel(false);
+		}
+		scheduledRefresh = SCHEDULER.schedule(this::refresh, delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private static boolean isExpired(Token token) {
+		return !Instant.now().isBefore(token.expiresAt());
+	}
+
+	/**
+	 * Stops background refreshes
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		ScheduledFuture<?> scheduled = scheduledRefresh;
+		if (scheduled != null) {
+			scheduled.cancel(false);
+		}
+	}
+
+}
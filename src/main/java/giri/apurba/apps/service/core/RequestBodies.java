@@ -0,0 +1,67 @@
+package giri.apurba.apps.service.core;
+
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+
+/**
+ * Request body publishers for binary payloads that complement
+ * {@link BodyPublishers}. Bodies are sent from the caller's buffers without
+ * copying them.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class RequestBodies {
+
+	private RequestBodies() {
+	}
+
+	/**
+	 * Returns a publisher of the remaining bytes of given buffer. The buffer's
+	 * position is not changed, so the body can be sent again (e.g. on retry).
+	 *
+	 * @param buffer - Heap or direct buffer
+	 *
+	 * @return {@link BodyPublisher}
+	 */
+	public static BodyPublisher ofByteBuffer(ByteBuffer buffer) {
+		int length = buffer.remaining();
+		if (length == 0) {
+			return BodyPublishers.noBody();
+		}
+		if (buffer.hasArray()) {
+			return BodyPublishers.ofByteArray(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+		}
+		ByteBuffer body = buffer.asReadOnlyBuffer();
+		return BodyPublishers.fromPublisher(new SinglePublisher<>(body::duplicate), length);
+	}
+
+	/**
+	 * Returns a publisher that reads given stream in chunks as the request is
+	 * sent. The stream is read once and closed afterwards, so the body can't be
+	 * sent again.
+	 *
+	 * @param inputStream
+	 *
+	 * @return {@link BodyPublisher}
+	 */
+	public static BodyPublisher ofInputStream(InputStream inputStream) {
+		return BodyPublishers.ofInputStream(() -> inputStream);
+	}
+
+	/**
+	 * Returns the 'Content-Type' a body must be sent with, if it defines one
+	 * (e.g. {@link MultipartBody})
+	 *
+	 * @param body
+	 *
+	 * @return Content type or null
+	 */
+	static String contentTypeOf(HttpRequest.BodyPublisher body) {
+		return body instanceof MultipartBody multipart ? multipart.contentType() : null;
+	}
+
+}
@@ -0,0 +1,173 @@
+package giri.apurba.apps.service.core;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import giri.apurba.apps.model.HttpErrorResponse;
+import giri.apurba.apps.service.core.APIServiceBase.HttpMethod;
+
+/**
+ * Single-flight layer for {@link APIService}. Concurrent identical calls share
+ * one upstream exchange: the first caller performs the call and every caller
+ * that arrives while it is in flight receives the same response. In-flight
+ * calls are tracked in a {@link ConcurrentHashMap}, so callers for different
+ * keys don't contend on a common lock. Coalescing is off until enabled.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class RequestCoalescer {
+
+	private static final RequestCoalescer INSTANCE = new RequestCoalescer();
+
+	/**
+	 * Identity of an upstream call. Request and connection timeouts are not part
+	 * of the key, a waiter shares the timeouts of the call it joined.
+	 *
+	 * @param httpMethod      - HTTP method
+	 * @param serviceUrl      - Service URL for the API service
+	 * @param authHeaderValue - Value of Authentication header (null if none)
+	 */
+	public static record FlightKey(HttpMethod httpMethod, String serviceUrl, String authHeaderValue) {
+	}
+
+	/**
+	 * Upstream call performed by the leader of a flight
+	 */
+	@FunctionalInterface
+	public static interface Call {
+		HttpResponse<String> execute();
+	}
+
+	private final ConcurrentHashMap<FlightKey, CompletableFuture<HttpResponse<String>>> inFlight =
+			new ConcurrentHashMap<>();
+	private final LongAdder leaders = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	private volatile boolean enabled;
+
+	private RequestCoalescer() {
+	}
+
+	/**
+	 * Returns the shared coalescer instance
+	 *
+	 * @return {@link RequestCoalescer}
+	 */
+	public static RequestCoalescer getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns true if identical in-flight calls are coalesced
+	 *
+	 * @return true if enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Executes a blocking call, or waits for an identical call already in
+	 * flight. The leader runs the call on its own thread.
+	 *
+	 * @param key
+	 * @param call - Call that never throws, failures are returned as
+	 *             {@link HttpErrorResponse}
+	 *
+	 * @return Service response as {@link HttpResponse}
+	 */
+	public HttpResponse<String> execute(FlightKey key, Call call) {
+		CompletableFuture<HttpResponse<String>> promise = new CompletableFuture<>();
+		CompletableFuture<HttpResponse<String>> existing = inFlight.putIfAbsent(key, promise);
+		if (existing != null) {
+			coalesced.increment();
+			return await(existing);
+		}
+		leaders.increment();
+		HttpResponse<String> response = null;
+		try {
+			response = call.execute();
+		} finally {
+			inFlight.remove(key, promise);
+			promise.complete(response != null ? response : new HttpErrorResponse());
+		}
+		return response;
+	}
+
+	/**
+	 * Executes an asynchronous call, or joins an identical call already in
+	 * flight.
+	 *
+	 * @param key
+	 * @param call - Call whose future never completes exceptionally, failures
+	 *             are returned as {@link HttpErrorResponse}
+	 *
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> executeAsync(FlightKey key,
+			Supplier<CompletableFuture<HttpResponse<String>>> call) {
+		CompletableFuture<HttpResponse<String>> promise = new CompletableFuture<>();
+		CompletableFuture<HttpResponse<String>> existing = inFlight.putIfAbsent(key, promise);
+		if (existing != null) {
+			coalesced.increment();
+			// a copy, so that a waiter cancelling its future doesn't fail the flight
+			return existing.thenApply(Function.identity());
+		}
+		leaders.increment();
+		CompletableFuture<HttpResponse<String>> upstream;
+		try {
+			upstream = call.get();
+		} catch (RuntimeException e) {
+			// e.g. a request that couldn't be built, the flight must not stay open
+			inFlight.remove(key, promise);
+			promise.complete(new HttpErrorResponse(e));
+			return promise.thenApply(Function.identity());
+		}
+		upstream.whenComplete((response, e) -> {
+			inFlight.remove(key, promise);
+			promise.complete(response != null ? response : new HttpErrorResponse(e));
+		});
+		return promise.thenApply(Function.identity());
+	}
+
+	private static HttpResponse<String> await(CompletableFuture<HttpResponse<String>> flight) {
+		try {
+			return flight.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new HttpErrorResponse(e);
+		} catch (ExecutionException e) {
+			return new HttpErrorResponse(e);
+		}
+	}
+
+	/**
+	 * Returns number of calls that went upstream
+	 *
+	 * @return Leader count
+	 */
+	public long getLeaderCount() {
+		return leaders.sum();
+	}
+
+	/**
+	 * Returns number of calls served by joining an in-flight call
+	 *
+	 * @return Coalesced count
+	 */
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+}
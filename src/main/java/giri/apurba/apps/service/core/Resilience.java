@@ -0,0 +1,375 @@
+package giri.apurba.apps.service.core;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.net.ssl.SSLException;
+
+import giri.apurba.apps.model.HttpErrorResponse;
+
+/**
+ * Retry, hedging and circuit breaker settings and per-host state used by
+ * {@link APIServiceBase}. Retries and hedged requests are only used for
+ * idempotent {@link APIServiceBase.HttpMethod#GET} calls; circuit breakers
+ * apply to every call.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class Resilience {
+
+	private static final Resilience INSTANCE = new Resilience();
+
+	/**
+	 * Retry settings
+	 *
+	 * @param maxAttempts         - Attempts per call including the first one (1
+	 *                            disables retries)
+	 * @param initialBackoffMillis - Backoff before the first retry
+	 * @param maxBackoffMillis    - Upper bound of the backoff
+	 * @param budgetRatio         - Retries allowed per call (see
+	 *                            {@link RetryBudget})
+	 * @param budgetMinRetries    - Retries allowed before any call was made
+	 */
+	public static record RetrySettings(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis,
+			double budgetRatio, int budgetMinRetries) {
+
+		public static final RetrySettings DISABLED = new RetrySettings(1, 100, 2000, 0.1, 10);
+	}
+
+	/**
+	 * Hedging settings
+	 *
+	 * @param enabled        - Whether GET calls are hedged
+	 * @param minDelayMillis - Lowest hedging delay, used until the host's p95
+	 *                       latency is known
+	 */
+	public static record HedgeSettings(boolean enabled, long minDelayMillis) {
+
+		public static final HedgeSettings DISABLED = new HedgeSettings(false, 50);
+	}
+
+	/**
+	 * Circuit breaker settings
+	 *
+	 * @param enabled          - Whether calls go through a circuit breaker
+	 * @param failureThreshold - Consecutive failures that open the circuit
+	 * @param openMillis       - Time the circuit stays open
+	 */
+	public static record CircuitBreakerSettings(boolean enabled, int failureThreshold, long openMillis) {
+
+		public static final CircuitBreakerSettings DISABLED = new CircuitBreakerSettings(false, 5, 10000);
+	}
+
+	/**
+	 * Asynchronous upstream attempt
+	 */
+	@FunctionalInterface
+	public static interface AsyncAttempt {
+
+		/**
+		 * Sends the attempt
+		 *
+		 * @param cancelSignal - The attempt is aborted once this future completes
+		 *                     (null if it is never aborted)
+		 *
+		 * @return Future that never completes exceptionally, failures are returned
+		 *         as {@link HttpErrorResponse}
+		 */
+		CompletableFuture<HttpResponse<String>> send(CompletableFuture<?> cancelSignal);
+	}
+
+	private final ConcurrentHashMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, LatencyTracker> latencyTrackers = new ConcurrentHashMap<>();
+
+	private volatile RetrySettings retrySettings = RetrySettings.DISABLED;
+	private volatile HedgeSettings hedgeSettings = HedgeSettings.DISABLED;
+	private volatile CircuitBreakerSettings circuitBreakerSettings = CircuitBreakerSettings.DISABLED;
+	private volatile RetryBudget retryBudget = new RetryBudget(RetrySettings.DISABLED.budgetRatio(),
+			RetrySettings.DISABLED.budgetMinRetries());
+
+	private Resilience() {
+	}
+
+	/**
+	 * Returns the shared instance
+	 *
+	 * @return {@link Resilience}
+	 */
+	public static Resilience getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Configures retries, hedging and circuit breakers. Existing per-host state
+	 * is dropped.
+	 *
+	 * @param retrySettings
+	 * @param hedgeSettings
+	 * @param circuitBreakerSettings
+	 */
+	public void configure(RetrySettings retrySettings, HedgeSettings hedgeSettings,
+			CircuitBreakerSettings circuitBreakerSettings) {
+		if (retrySettings.maxAttempts() < 1 || retrySettings.initialBackoffMillis() < 0
+				|| circuitBreakerSettings.failureThreshold() < 1) {
+			throw new IllegalArgumentException(
+					"maxAttempts and failureThreshold must be greater than 0 and backoff must not be negative");
+		}
+		this.retrySettings = retrySettings;
+		this.hedgeSettings = hedgeSettings;
+		this.circuitBreakerSettings = circuitBreakerSettings;
+		this.retryBudget = new RetryBudget(retrySettings.budgetRatio(), retrySettings.budgetMinRetries());
+		circuitBreakers.clear();
+		latencyTrackers.clear();
+	}
+
+	public RetrySettings getRetrySettings() {
+		return retrySettings;
+	}
+
+	public boolean isHedgingEnabled() {
+		return hedgeSettings.enabled();
+	}
+
+	/**
+	 * Returns circuit breaker of given host
+	 *
+	 * @param host
+	 * @return {@link CircuitBreaker} or null if circuit breakers are disabled
+	 */
+	public CircuitBreaker circuitBreaker(String host) {
+		CircuitBreakerSettings settings = circuitBreakerSettings;
+		if (!settings.enabled() || host == null) {
+			return null;
+		}
+		CircuitBreaker circuitBreaker = circuitBreakers.get(host);
+		if (circuitBreaker == null) {
+			circuitBreaker = circuitBreakers.computeIfAbsent(host,
+					key -> new CircuitBreaker(settings.failureThreshold(), settings.openMillis()));
+		}
+		return circuitBreaker;
+	}
+
+	/**
+	 * Records the outcome of an upstream exchange in the host's circuit breaker
+	 * and latency tracker. Aborted exchanges are not counted.
+	 *
+	 * @param host
+	 * @param response   - Upstream response (null if the call failed)
+	 * @param failure    - Failure of the call (null if a response was received)
+	 * @param startNanos - {@link System#nanoTime()} before the call was sent
+	 */
+	public void onResult(String host, HttpResponse<?> response, Throwable failure, long startNanos) {
+		if (host == null) {
+			return;
+		}
+		boolean failed = response == null || response.statusCode() >= 500;
+		CircuitBreaker circuitBreaker = circuitBreaker(host);
+		if (circuitBreaker != null) {
+			if (APIMetrics.outcome(failure) == APIMetrics.Outcome.CANCELLED) {
+				// aborted hedge, says nothing about the host
+				circuitBreaker.abandon();
+			} else if (failed) {
+				circuitBreaker.onFailure();
+			} else {
+				circuitBreaker.onSuccess();
+			}
+		}
+		if (!failed && hedgeSettings.enabled()) {
+			latencyTrackers.computeIfAbsent(host, key -> new LatencyTracker())
+					.record(System.nanoTime() - startNanos);
+		}
+	}
+
+	/**
+	 * Returns delay after which a hedged request is sent to given host: the
+	 * host's p95 latency, but at least the configured minimum delay
+	 *
+	 * @param host
+	 * @return Delay in milliseconds
+	 */
+	public long hedgeDelayMillis(String host) {
+		long minDelay = hedgeSettings.minDelayMillis();
+		LatencyTracker tracker = host != null ? latencyTrackers.get(host) : null;
+		long p95 = tracker != null ? tracker.getP95Nanos() / 1_000_000L : -1;
+		return Math.max(minDelay, p95);
+	}
+
+	/**
+	 * Registers a regular call with the retry budget
+	 */
+	public void onCall() {
+		retryBudget.deposit();
+	}
+
+	/**
+	 * Returns true if a failed attempt may be retried (or hedged): the response
+	 * is a retryable failure and the retry budget allows another call
+	 *
+	 * @param response - Response of the failed attempt
+	 * @return true if another attempt may be sent
+	 */
+	public boolean shouldRetry(HttpResponse<String> response) {
+		return isRetryable(response) && retryBudget.tryWithdraw();
+	}
+
+	/**
+	 * Returns true for connection level failures and 502/503/504 upstream
+	 * responses. Local rejections (open circuit, saturated bulkhead), SSL
+	 * failures and interrupts are not retryable.
+	 *
+	 * @param response
+	 * @return true if retryable
+	 */
+	public static boolean isRetryable(HttpResponse<String> response) {
+		if (response instanceof HttpErrorResponse error) {
+			Throwable cause = error.getCause();
+			return cause instanceof IOException && !(cause instanceof SSLException);
+		}
+		int statusCode = response.statusCode();
+		return statusCode == 502 || statusCode == 503 || statusCode == 504;
+	}
+
+	/**
+	 * Returns backoff before given retry: exponential with full jitter
+	 *
+	 * @param retry - Retry number, starting with 1
+	 * @return Backoff in milliseconds
+	 */
+	public long backoffMillis(int retry) {
+		RetrySettings settings = retrySettings;
+		long ceiling = Math.min(settings.maxBackoffMillis(),
+				settings.initialBackoffMillis() << Math.min(retry - 1, 20));
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+
+	/**
+	 * Executes a blocking idempotent call, retrying retryable failures with
+	 * backoff and hedging each attempt if enabled. The interrupt status of the
+	 * calling thread is preserved; an interrupted caller is not retried.
+	 *
+	 * @param host         - Upstream host
+	 * @param attempt      - Blocking attempt, used when hedging is disabled
+	 * @param asyncAttempt - Asynchronous attempt, used when hedging is enabled
+	 *
+	 * @return Service response as {@link HttpResponse}
+	 */
+	public HttpResponse<String> execute(String host, Supplier<HttpResponse<String>> attempt,
+			AsyncAttempt asyncAttempt) {
+		onCall();
+		HttpResponse<String> response = isHedgingEnabled() ? await(hedge(host, asyncAttempt)) : attempt.get();
+		int maxAttempts = retrySettings.maxAttempts();
+		for (int retry = 1; retry < maxAttempts && !Thread.currentThread().isInterrupted()
+				&& shouldRetry(response); retry++) {
+			try {
+				Thread.sleep(backoffMillis(retry));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			response = isHedgingEnabled() ? await(hedge(host, asyncAttempt)) : attempt.get();
+		}
+		return response;
+	}
+
+	/**
+	 * Executes an asynchronous idempotent call, retrying retryable failures
+	 * after a backoff and hedging each attempt if enabled. No thread is blocked
+	 * while backing off.
+	 *
+	 * @param host         - Upstream host
+	 * @param asyncAttempt - Asynchronous attempt
+	 *
+	 * @return Service response as {@link CompletableFuture} of
+	 *         {@link HttpResponse}
+	 */
+	public CompletableFuture<HttpResponse<String>> executeAsync(String host, AsyncAttempt asyncAttempt) {
+		onCall();
+		return attemptAsync(host, asyncAttempt).thenCompose(response -> retryAsync(host, asyncAttempt, response, 1));
+	}
+
+	private CompletableFuture<HttpResponse<String>> retryAsync(String host, AsyncAttempt asyncAttempt,
+			HttpResponse<String> response, int retry) {
+		if (retry >= retrySettings.maxAttempts() || !shouldRetry(response)) {
+			return CompletableFuture.completedFuture(response);
+		}
+		return CompletableFuture
+				.supplyAsync(() -> host,
+						CompletableFuture.delayedExecutor(backoffMillis(retry), TimeUnit.MILLISECONDS))
+				.thenCompose(key -> attemptAsync(key, asyncAttempt))
+				.thenCompose(next -> retryAsync(host, asyncAttempt, next, retry + 1));
+	}
+
+	private CompletableFuture<HttpResponse<String>> attemptAsync(String host, AsyncAttempt asyncAttempt) {
+		return isHedgingEnabled() ? hedge(host, asyncAttempt) : asyncAttempt.send(null);
+	}
+
+	/**
+	 * Sends an attempt and, if it hasn't answered within the host's hedging
+	 * delay, a second identical attempt. The first successful response wins and
+	 * the other attempt is aborted. Hedged attempts are paid from the retry
+	 * budget.
+	 *
+	 * @param host
+	 * @param asyncAttempt
+	 *
+	 * @return Response of the winning attempt
+	 */
+	private CompletableFuture<HttpResponse<String>> hedge(String host, AsyncAttempt asyncAttempt) {
+		CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+		AtomicInteger pending = new AtomicInteger(1);
+		asyncAttempt.send(result).thenAccept(response -> complete(result, pending, response));
+		CompletableFuture.delayedExecutor(hedgeDelayMillis(host), TimeUnit.MILLISECONDS).execute(() -> {
+			if (!result.isDone() && retryBudget.tryWithdraw()) {
+				pending.incrementAndGet();
+				asyncAttempt.send(result).thenAccept(response -> complete(result, pending, response));
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Completes a hedged call with the response of one attempt, unless it is a
+	 * retryable failure or a local rejection and the other attempt is still
+	 * pending. A hedge rejected by the rate limiter, circuit breaker or bulkhead
+	 * must not abort a healthy attempt.
+	 */
+	private static void complete(CompletableFuture<HttpResponse<String>> result, AtomicInteger pending,
+			HttpResponse<String> response) {
+		if (pending.decrementAndGet() == 0 || !(isRetryable(response) || isLocalRejection(response))) {
+			result.complete(response);
+		}
+	}
+
+	/**
+	 * Returns true for a call rejected before being sent, i.e. an error with an
+	 * HTTP status that wasn't caused by a failure
+	 *
+	 * @param response
+	 * @return true if rejected locally
+	 */
+	private static boolean isLocalRejection(HttpResponse<String> response) {
+		return response instanceof HttpErrorResponse error
+				&& error.getCategory() == HttpErrorResponse.Category.HTTP_STATUS && error.getCause() == null;
+	}
+
+	private static HttpResponse<String> await(CompletableFuture<HttpResponse<String>> call) {
+		try {
+			return call.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			call.complete(new HttpErrorResponse(e));
+			return new HttpErrorResponse(e);
+		} catch (ExecutionException e) {
+			return new HttpErrorResponse(e.getCause());
+		}
+	}
+
+}
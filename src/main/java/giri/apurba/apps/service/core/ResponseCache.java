@@ -0,0 +1,357 @@
+package giri.apurba.apps.service.core;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in, in-memory cache for responses of idempotent
+ * {@link APIServiceBase.HttpMethod#GET} calls made through {@link APIService}.
+ * Entries are keyed by URL and authentication header, expire after a TTL and
+ * are evicted in approximate LRU order once the cache is full. Upstream
+ * 'Cache-Control' directives are honored and expired entries carrying an
+ * 'ETag' or 'Last-Modified' header are revalidated with a conditional request.
+ * Lookups don't take a lock; they only stamp the entry with its access time.
+ * When a response is stored into a full cache, the least recently used of a
+ * few randomly sampled entries is evicted.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class ResponseCache {
+
+	public static final int DEFAULT_MAX_ENTRIES = 256;
+	public static final long DEFAULT_TTL_SECONDS = 60;
+
+	private static final ResponseCache INSTANCE = new ResponseCache();
+
+	/**
+	 * Access times closer than this aren't updated, so that concurrent lookups
+	 * of a hot entry don't keep writing to it
+	 */
+	private static final long ACCESS_GRANULARITY_NANOS = 1_000_000;
+
+	/**
+	 * Number of entries sampled to pick the one to evict
+	 */
+	private static final int EVICTION_SAMPLES = 5;
+
+	/**
+	 * Cache key
+	 *
+	 * @param serviceUrl      - Service URL for the API service
+	 * @param authHeaderValue - Value of Authentication header (null if none)
+	 */
+	public static record CacheKey(String serviceUrl, String authHeaderValue) {
+	}
+
+	/**
+	 * Cached response along with its validators
+	 *
+	 * @param response     - Cached response
+	 * @param expiresAt    - Expiry time in nanoseconds (see
+	 *                     {@link System#nanoTime()})
+	 * @param etag         - 'ETag' header of the response (null if none)
+	 * @param lastModified - 'Last-Modified' header of the response (null if none)
+	 */
+	public static record Entry(HttpResponse<String> response, long expiresAt, String etag, String lastModified) {
+
+		/**
+		 * Returns true if the entry can be served without contacting upstream
+		 *
+		 * @return true if not expired
+		 */
+		public boolean isFresh() {
+			return System.nanoTime() - expiresAt < 0;
+		}
+
+		/**
+		 * Returns true if the entry can be revalidated with a conditional request
+		 *
+		 * @return true if 'ETag' or 'Last-Modified' is available
+		 */
+		public boolean isRevalidatable() {
+			return etag != null || lastModified != null;
+		}
+
+		/**
+		 * Adds 'If-None-Match' / 'If-Modified-Since' headers to given request
+		 *
+		 * @param requestBuilder
+		 */
+		public void addConditionalHeaders(HttpRequest.Builder requestBuilder) {
+			if (etag != null) {
+				requestBuilder.header("If-None-Match", etag);
+			}
+			if (lastModified != null) {
+				requestBuilder.header("If-Modified-Since", lastModified);
+			}
+		}
+	}
+
+	/**
+	 * Cached entry with the time it was last stored or looked up
+	 */
+	private static final class Node {
+
+		private final CacheKey key;
+		private final Entry entry;
+		private volatile long accessedAt;
+		// index in slots, guarded by evictionLock
+		private int slot;
+
+		Node(CacheKey key, Entry entry) {
+			this.key = key;
+			this.entry = entry;
+			this.accessedAt = System.nanoTime();
+		}
+	}
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder revalidations = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	private volatile boolean enabled;
+	private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+	private volatile long ttlNanos = DEFAULT_TTL_SECONDS * 1_000_000_000L;
+
+	private final ConcurrentHashMap<CacheKey, Node> entries = new ConcurrentHashMap<>();
+	// cached nodes in no particular order, so that eviction can sample them
+	private final ArrayList<Node> slots = new ArrayList<>();
+	private final Object evictionLock = new Object();
+
+	private ResponseCache() {
+	}
+
+	/**
+	 * Returns the shared cache instance
+	 *
+	 * @return {@link ResponseCache}
+	 */
+	public static ResponseCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Configures the cache
+	 *
+	 * @param enabled    - Whether GET responses are cached
+	 * @param maxEntries - Maximum number of cached responses
+	 * @param ttlSeconds - Default time to live of an entry when upstream doesn't
+	 *                   send 'Cache-Control: max-age'
+	 */
+	public void configure(boolean enabled, int maxEntries, long ttlSeconds) {
+		if (maxEntries <= 0 || ttlSeconds < 0) {
+			throw new IllegalArgumentException(
+					"maxEntries must be greater than 0 and ttlSeconds must not be negative");
+		}
+		this.maxEntries = maxEntries;
+		this.ttlNanos = ttlSeconds * 1_000_000_000L;
+		this.enabled = enabled;
+		if (!enabled) {
+			clear();
+		}
+	}
+
+	/**
+	 * Returns true if responses should be looked up and stored
+	 *
+	 * @return true if the cache is enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns cached entry for given key. Expired entries are returned as well,
+	 * so that they can be revalidated; use {@link Entry#isFresh()} to check.
+	 *
+	 * @param key
+	 *
+	 * @return {@link Entry} or null if nothing is cached
+	 */
+	public Entry get(CacheKey key) {
+		Node node = entries.get(key);
+		if (node == null) {
+			misses.increment();
+			return null;
+		}
+		long now = System.nanoTime();
+		if (now - node.accessedAt > ACCESS_GRANULARITY_NANOS) {
+			node.accessedAt = now;
+		}
+		Entry entry = node.entry;
+		if (now - entry.expiresAt() < 0) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+		return entry;
+	}
+
+	/**
+	 * Updates the cache with an upstream response and returns the response to
+	 * hand to the caller. A '304 Not Modified' answer to a conditional request
+	 * refreshes the cached entry and returns the cached response.
+	 *
+	 * @param key
+	 * @param cached   - Entry that was revalidated (null if none)
+	 * @param response - Upstream response
+	 *
+	 * @return Response for the caller
+	 */
+	public HttpResponse<String> update(CacheKey key, Entry cached, HttpResponse<String> response) {
+		if (response.statusCode() == 304 && cached != null) {
+			revalidations.increment();
+			store(key, cached.response(), response);
+			return cached.response();
+		}
+		if (response.statusCode() == 200) {
+			store(key, response, response);
+		}
+		return response;
+	}
+
+	/**
+	 * Stores a response using the caching directives of the latest upstream
+	 * response
+	 *
+	 * @param key
+	 * @param body       - Response to serve from cache
+	 * @param directives - Response carrying the caching headers
+	 */
+	private void store(CacheKey key, HttpResponse<String> body, HttpResponse<String> directives) {
+		if (directives.headers() == null) {
+			return;
+		}
+		String cacheControl = directives.headers().firstValue("Cache-Control").orElse("").toLowerCase(Locale.ROOT);
+		if (cacheControl.contains("no-store")) {
+			synchronized (evictionLock) {
+				Node removed = entries.remove(key);
+				if (removed != null) {
+					release(removed);
+				}
+			}
+			return;
+		}
+		long ttl = cacheControl.contains("no-cache") ? 0 : maxAgeNanos(cacheControl).orElse(ttlNanos);
+		String etag = directives.headers().firstValue("ETag").orElse(body.headers().firstValue("ETag").orElse(null));
+		String lastModified = directives.headers().firstValue("Last-Modified")
+				.orElse(body.headers().firstValue("Last-Modified").orElse(null));
+		Entry entry = new Entry(body, System.nanoTime() + ttl, etag, lastModified);
+		if (ttl == 0 && !entry.isRevalidatable()) {
+			return;
+		}
+		Node node = new Node(key, entry);
+		synchronized (evictionLock) {
+			Node previous = entries.put(key, node);
+			if (previous != null) {
+				node.slot = previous.slot;
+				slots.set(node.slot, node);
+			} else {
+				node.slot = slots.size();
+				slots.add(node);
+			}
+			while (entries.size() > maxEntries) {
+				evict();
+			}
+		}
+	}
+
+	/**
+	 * Removes the least recently used of {@link #EVICTION_SAMPLES} randomly
+	 * picked entries. Must be called holding evictionLock.
+	 */
+	private void evict() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Node eldest = null;
+		for (int i = 0; i < EVICTION_SAMPLES; i++) {
+			Node candidate = slots.get(random.nextInt(slots.size()));
+			if (eldest == null || candidate.accessedAt - eldest.accessedAt < 0) {
+				eldest = candidate;
+			}
+		}
+		entries.remove(eldest.key, eldest);
+		release(eldest);
+		evictions.increment();
+	}
+
+	/**
+	 * Frees the slot of a node removed from entries by moving the last node
+	 * into it. Must be called holding evictionLock.
+	 *
+	 * @param node
+	 */
+	private void release(Node node) {
+		Node last = slots.remove(slots.size() - 1);
+		if (last != node) {
+			last.slot = node.slot;
+			slots.set(node.slot, last);
+		}
+	}
+
+	/**
+	 * Parses 'max-age' directive of a 'Cache-Control' header
+	 *
+	 * @param cacheControl - Lower case header value
+	 *
+	 * @return max-age in nanoseconds
+	 */
+	private static Optional<Long> maxAgeNanos(String cacheControl) {
+		int index = cacheControl.indexOf("max-age=");
+		if (index < 0) {
+			return Optional.empty();
+		}
+		int start = index + "max-age=".length();
+		int end = start;
+		while (end < cacheControl.length() && Character.isDigit(cacheControl.charAt(end))) {
+			end++;
+		}
+		if (end == start || end - start > 9) {
+			return Optional.empty();
+		}
+		return Optional.of(Long.parseLong(cacheControl.substring(start, end)) * 1_000_000_000L);
+	}
+
+	/**
+	 * Removes all cached entries
+	 */
+	public void clear() {
+		synchronized (evictionLock) {
+			entries.clear();
+			slots.clear();
+		}
+	}
+
+	/**
+	 * Returns number of cached entries
+	 *
+	 * @return Entry count
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getRevalidationCount() {
+		return revalidations.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+}
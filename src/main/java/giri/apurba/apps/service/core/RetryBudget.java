@@ -0,0 +1,58 @@
+package giri.apurba.apps.service.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits retries to a share of regular calls, so that retries can't multiply
+ * load on an upstream that is already failing. Every call deposits a fraction
+ * of a token, every retry withdraws a whole token.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class RetryBudget {
+
+	private static final long SCALE = 1000;
+
+	private final long deposit;
+	private final long capacity;
+	private final AtomicLong tokens;
+
+	/**
+	 * @param ratio      - Retries allowed per call (e.g. 0.1 for 10%)
+	 * @param minRetries - Retries available before any deposit, also the
+	 *                   budget cap beyond the ratio
+	 */
+	public RetryBudget(double ratio, int minRetries) {
+		this.deposit = (long) (ratio * SCALE);
+		this.capacity = Math.max(1, minRetries) * SCALE;
+		this.tokens = new AtomicLong(capacity);
+	}
+
+	/**
+	 * Deposits the share of a regular call
+	 */
+	public void deposit() {
+		if (tokens.get() < capacity) {
+			tokens.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+		}
+	}
+
+	/**
+	 * Withdraws a token for a retry
+	 *
+	 * @return true if the retry is allowed
+	 */
+	public boolean tryWithdraw() {
+		while (true) {
+			long current = tokens.get();
+			if (current < SCALE) {
+				return false;
+			}
+			if (tokens.compareAndSet(current, current - SCALE)) {
+				return true;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,321 @@
+package giri.apurba.apps.service.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyManagementException;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * TLS settings of a group of upstreams, built once into an {@link SSLContext}
+ * and {@link SSLParameters} that are shared by all clients of the profile.
+ * Sharing the context shares its client session cache, so that new
+ * connections to an upstream resume earlier TLS sessions instead of
+ * performing a full handshake. Handshakes of the profile's connections are
+ * counted and timed (see {@link APIMetrics#recordHandshake}).
+ *
+ * @author AGIRI6
+ *
+ */
+public final class SSLProfile {
+
+	/**
+	 * Settings of a profile
+	 *
+	 * @param trustAll              - Accept any server certificate (testing only)
+	 * @param truststore            - Path of the truststore, null/empty for the
+	 *                              JDK default trust
+	 * @param truststorePassword
+	 * @param truststoreType        - e.g. PKCS12 (null/empty for PKCS12)
+	 * @param keystore              - Path of the keystore with the client
+	 *                              certificate for mutual TLS, null/empty for none
+	 * @param keystorePassword      - Password of the keystore and its key
+	 * @param keystoreType          - e.g. PKCS12 (null/empty for PKCS12)
+	 * @param protocols             - Enabled protocols, e.g. TLSv1.3 (empty for
+	 *                              the JDK default)
+	 * @param cipherSuites          - Enabled cipher suites (empty for the JDK
+	 *                              default)
+	 * @param sessionCacheSize      - TLS sessions kept for resumption (0 for the
+	 *                              JDK default)
+	 * @param sessionTimeoutSeconds - How long a TLS session can be resumed (0
+	 *                              for the JDK default)
+	 */
+	public static record Settings(boolean trustAll, String truststore, String truststorePassword,
+			String truststoreType, String keystore, String keystorePassword, String keystoreType,
+			List<String> protocols, List<String> cipherSuites, int sessionCacheSize, int sessionTimeoutSeconds) {
+
+		/**
+		 * JDK default trust, protocols and session cache
+		 */
+		public static final Settings DEFAULT = new Settings(false, null, null, null, null, null, null, List.of(),
+				List.of(), 0, 0);
+
+		/**
+		 * Accepts any server certificate (testing only)
+		 */
+		public static final Settings TRUST_ALL = new Settings(true, null, null, null, null, null, null, List.of(),
+				List.of(), 0, 0);
+	}
+
+	private static final String DEFAULT_STORE_TYPE = "PKCS12";
+
+	private final String name;
+	private final SSLContext sslContext;
+	private final SSLParameters sslParameters;
+	private final LongAdder handshakes = new LongAdder();
+	private final LongAdder resumedHandshakes = new LongAdder();
+
+	private SSLProfile(String name, SSLContext delegate, SSLParameters sslParameters) {
+		this.name = name;
+		this.sslContext = new SSLContext(new TrackingContextSpi(delegate, this), delegate.getProvider(),
+				delegate.getProtocol()) {
+		};
+		this.sslParameters = sslParameters;
+	}
+
+	/**
+	 * Builds a profile
+	 *
+	 * @param name     - Profile name, used as metrics tag
+	 * @param settings - {@link Settings}
+	 *
+	 * @return {@link SSLProfile}
+	 */
+	public static SSLProfile build(String name, Settings settings) {
+		if (settings.sessionCacheSize() < 0 || settings.sessionTimeoutSeconds() < 0) {
+			throw new IllegalArgumentException("Session cache size and timeout must not be negative");
+		}
+		try {
+			SSLContext sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(keyManagers(settings), trustManagers(settings), new SecureRandom());
+			SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+			if (settings.sessionCacheSize() > 0) {
+				sessionContext.setSessionCacheSize(settings.sessionCacheSize());
+			}
+			if (settings.sessionTimeoutSeconds() > 0) {
+				sessionContext.setSessionTimeout(settings.sessionTimeoutSeconds());
+			}
+			return new SSLProfile(name, sslContext, sslParameters(name, sslContext, settings));
+		} catch (GeneralSecurityException | IOException e) {
+			throw new IllegalArgumentException("Unable to build SSL profile " + name + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Returns the profile name
+	 *
+	 * @return Name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the shared SSL context of the profile
+	 *
+	 * @return {@link SSLContext}
+	 */
+	public SSLContext getSSLContext() {
+		return sslContext;
+	}
+
+	/**
+	 * Returns the protocols and cipher suites of the profile
+	 *
+	 * @return {@link SSLParameters}, or null if the context defaults apply
+	 */
+	public SSLParameters getSSLParameters() {
+		return sslParameters;
+	}
+
+	/**
+	 * Returns number of completed handshakes
+	 *
+	 * @return Handshake count
+	 */
+	public long getHandshakes() {
+		return handshakes.sum();
+	}
+
+	/**
+	 * Returns number of handshakes that resumed an earlier session
+	 *
+	 * @return Resumed handshake count
+	 */
+	public long getResumedHandshakes() {
+		return resumedHandshakes.sum();
+	}
+
+	/**
+	 * Returns the share of handshakes that resumed an earlier session
+	 *
+	 * @return Ratio from 0 to 1, NaN if no handshake completed yet
+	 */
+	public double getResumptionRatio() {
+		long total = handshakes.sum();
+		return total > 0 ? (double) resumedHandshakes.sum() / total : Double.NaN;
+	}
+
+	void handshakeFinished(String host, boolean resumed, long nanos) {
+		handshakes.increment();
+		if (resumed) {
+			resumedHandshakes.increment();
+		}
+		APIMetrics.getInstance().recordHandshake(name, host, resumed, nanos);
+	}
+
+	private static KeyManager[] keyManagers(Settings settings) throws GeneralSecurityException, IOException {
+		if (isBlank(settings.keystore())) {
+			return null;
+		}
+		char[] password = settings.keystorePassword() != null ? settings.keystorePassword().toCharArray() : null;
+		KeyManagerFactory keyManagerFactory = KeyManagerFactory
+				.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagerFactory.init(load(settings.keystore(), settings.keystoreType(), password), password);
+		return keyManagerFactory.getKeyManagers();
+	}
+
+	private static TrustManager[] trustManagers(Settings settings) throws GeneralSecurityException, IOException {
+		if (settings.trustAll()) {
+			return new TrustManager[] { new X509TrustManager() {
+				public X509Certificate[] getAcceptedIssuers() {
+					return new X509Certificate[0];
+				}
+
+				public void checkClientTrusted(X509Certificate[] certs, String authType) {
+				}
+
+				public void checkServerTrusted(X509Certificate[] certs, String authType) {
+				}
+			} };
+		}
+		if (isBlank(settings.truststore())) {
+			return null;
+		}
+		TrustManagerFactory trustManagerFactory = TrustManagerFactory
+				.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		trustManagerFactory.init(load(settings.truststore(), settings.truststoreType(),
+				settings.truststorePassword() != null ? settings.truststorePassword().toCharArray() : null));
+		return trustManagerFactory.getTrustManagers();
+	}
+
+	private static KeyStore load(String path, String type, char[] password)
+			throws GeneralSecurityException, IOException {
+		KeyStore keyStore = KeyStore.getInstance(isBlank(type) ? DEFAULT_STORE_TYPE : type);
+		try (InputStream in = Files.newInputStream(Path.of(path))) {
+			keyStore.load(in, password);
+		}
+		return keyStore;
+	}
+
+	private static SSLParameters sslParameters(String name, SSLContext sslContext, Settings settings) {
+		if (settings.protocols().isEmpty() && settings.cipherSuites().isEmpty()) {
+			return null;
+		}
+		SSLParameters supported = sslContext.getSupportedSSLParameters();
+		SSLParameters sslParameters = sslContext.getDefaultSSLParameters();
+		if (!settings.protocols().isEmpty()) {
+			requireSupported(name, "protocol", settings.protocols(), supported.getProtocols());
+			sslParameters.setProtocols(settings.protocols().toArray(new String[0]));
+		}
+		if (!settings.cipherSuites().isEmpty()) {
+			requireSupported(name, "cipher suite", settings.cipherSuites(), supported.getCipherSuites());
+			sslParameters.setCipherSuites(settings.cipherSuites().toArray(new String[0]));
+		}
+		return sslParameters;
+	}
+
+	private static void requireSupported(String name, String kind, List<String> values, String[] supported) {
+		List<String> supportedValues = Arrays.asList(supported);
+		for (String value : values) {
+			if (!supportedValues.contains(value)) {
+				throw new IllegalArgumentException("Unsupported " + kind + " '" + value + "' in SSL profile " + name);
+			}
+		}
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.isBlank();
+	}
+
+	/**
+	 * Delegates to the profile's context, wrapping engines in
+	 * {@link TrackedSSLEngine}
+	 */
+	private static final class TrackingContextSpi extends SSLContextSpi {
+
+		private final SSLContext delegate;
+		private final SSLProfile profile;
+
+		private TrackingContextSpi(SSLContext delegate, SSLProfile profile) {
+			this.delegate = delegate;
+			this.profile = profile;
+		}
+
+		@Override
+		protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) throws KeyManagementException {
+			throw new KeyManagementException("SSL profile contexts are initialized when they are built");
+		}
+
+		@Override
+		protected SSLSocketFactory engineGetSocketFactory() {
+			return delegate.getSocketFactory();
+		}
+
+		@Override
+		protected SSLServerSocketFactory engineGetServerSocketFactory() {
+			return delegate.getServerSocketFactory();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine() {
+			return new TrackedSSLEngine(delegate.createSSLEngine(), profile);
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine(String host, int port) {
+			return new TrackedSSLEngine(delegate.createSSLEngine(host, port), profile);
+		}
+
+		@Override
+		protected SSLSessionContext engineGetServerSessionContext() {
+			return delegate.getServerSessionContext();
+		}
+
+		@Override
+		protected SSLSessionContext engineGetClientSessionContext() {
+			return delegate.getClientSessionContext();
+		}
+
+		@Override
+		protected SSLParameters engineGetDefaultSSLParameters() {
+			return delegate.getDefaultSSLParameters();
+		}
+
+		@Override
+		protected SSLParameters engineGetSupportedSSLParameters() {
+			return delegate.getSupportedSSLParameters();
+		}
+	}
+
+}
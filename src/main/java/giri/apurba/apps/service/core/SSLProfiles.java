@@ -0,0 +1,108 @@
+package giri.apurba.apps.service.core;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link SSLProfile} used per upstream host by {@link APIService}. Hosts
+ * without an explicit profile use the default profile. Profiles are built when
+ * they are configured, so calls only look them up.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class SSLProfiles {
+
+	public static final String DEFAULT_PROFILE = "default";
+
+	private static final SSLProfiles INSTANCE = new SSLProfiles();
+
+	private volatile SSLProfile defaultProfile;
+	private volatile Map<String, SSLProfile> hostProfiles = Map.of();
+
+	private SSLProfiles() {
+	}
+
+	/**
+	 * Returns the shared instance
+	 *
+	 * @return {@link SSLProfiles}
+	 */
+	public static SSLProfiles getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Configures SSL profiles. Clients of previous profiles are no longer used
+	 * for new calls.
+	 *
+	 * @param defaultProfile - Profile of hosts without an explicit profile
+	 * @param hostProfiles   - Profile per host name
+	 */
+	public void configure(SSLProfile defaultProfile, Map<String, SSLProfile> hostProfiles) {
+		this.hostProfiles = Map.copyOf(hostProfiles);
+		this.defaultProfile = defaultProfile;
+		if (APIMetrics.getInstance().isEnabled()) {
+			registerMetrics(defaultProfile);
+			hostProfiles.values().stream().distinct().forEach(this::registerMetrics);
+		}
+	}
+
+	private void registerMetrics(SSLProfile profile) {
+		APIMetrics.getInstance().registerResumptionRatio(profile.getName(), profile,
+				SSLProfile::getResumptionRatio);
+	}
+
+	/**
+	 * Parses host profile names in the format of 'host=profile,host=profile'
+	 *
+	 * @param hostProfiles - e.g. 'internal.example.com=internal,localhost=stub'
+	 *
+	 * @return Profile name per host name
+	 */
+	public static Map<String, String> parse(String hostProfiles) {
+		Map<String, String> profiles = new HashMap<>();
+		if (hostProfiles == null || hostProfiles.isBlank()) {
+			return profiles;
+		}
+		for (String entry : hostProfiles.split(",")) {
+			int separator = entry.indexOf('=');
+			if (separator <= 0 || separator == entry.length() - 1) {
+				throw new IllegalArgumentException("Invalid upstream SSL profile '" + entry + "', expected host=PROFILE");
+			}
+			profiles.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+		}
+		return profiles;
+	}
+
+	/**
+	 * Returns the profile of given upstream. Until profiles are configured, the
+	 * default profile accepts any server certificate, as calls always did.
+	 *
+	 * @param uri - Request URI
+	 *
+	 * @return {@link SSLProfile}, or null for plain http
+	 */
+	public SSLProfile getProfile(URI uri) {
+		if (!"https".equalsIgnoreCase(uri.getScheme())) {
+			return null;
+		}
+		SSLProfile profile = uri.getHost() != null ? hostProfiles.get(uri.getHost()) : null;
+		return profile != null ? profile : getDefaultProfile();
+	}
+
+	private SSLProfile getDefaultProfile() {
+		SSLProfile profile = defaultProfile;
+		if (profile == null) {
+			synchronized (this) {
+				if (defaultProfile == null) {
+					defaultProfile = SSLProfile.build(DEFAULT_PROFILE, SSLProfile.Settings.TRUST_ALL);
+				}
+				profile = defaultProfile;
+			}
+		}
+		return profile;
+	}
+
+}
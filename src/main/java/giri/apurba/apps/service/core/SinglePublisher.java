@@ -0,0 +1,48 @@
+package giri.apurba.apps.service.core;
+
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+/**
+ * {@link Flow.Publisher} of a single item. Each subscriber gets its own item
+ * from the supplier.
+ *
+ * @author AGIRI6
+ *
+ * @param <T> Item type
+ */
+final class SinglePublisher<T> implements Flow.Publisher<T> {
+
+	private final Supplier<T> item;
+
+	SinglePublisher(Supplier<T> item) {
+		this.item = item;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super T> subscriber) {
+		subscriber.onSubscribe(new Flow.Subscription() {
+			private boolean done;
+
+			@Override
+			public void request(long n) {
+				if (done) {
+					return;
+				}
+				done = true;
+				if (n <= 0) {
+					subscriber.onError(new IllegalArgumentException("Requested items must be positive"));
+					return;
+				}
+				subscriber.onNext(item.get());
+				subscriber.onComplete();
+			}
+
+			@Override
+			public void cancel() {
+				done = true;
+			}
+		});
+	}
+
+}
@@ -0,0 +1,119 @@
+package giri.apurba.apps.service.core;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Limits concurrent HTTP/2 streams to one upstream host. The JDK client fails
+ * a call with "too many concurrent streams" once a connection's stream limit
+ * is reached, so calls beyond the limit wait for a permit instead. Waiters are
+ * served in arrival order; asynchronous waiters don't block a thread.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class StreamLimit {
+
+	private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+	private final int maxStreams;
+	private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+	private int available;
+
+	/**
+	 * @param maxStreams - Maximum number of concurrent streams, must be greater
+	 *                   than 0
+	 */
+	public StreamLimit(int maxStreams) {
+		if (maxStreams <= 0) {
+			throw new IllegalArgumentException("maxStreams must be greater than 0");
+		}
+		this.maxStreams = maxStreams;
+		this.available = maxStreams;
+	}
+
+	/**
+	 * Returns a future that completes once a permit is granted
+	 *
+	 * @return {@link CompletableFuture}
+	 */
+	public CompletableFuture<Void> acquireAsync() {
+		synchronized (waiters) {
+			if (available > 0) {
+				available--;
+				return GRANTED;
+			}
+			CompletableFuture<Void> waiter = new CompletableFuture<>();
+			waiters.add(waiter);
+			return waiter;
+		}
+	}
+
+	/**
+	 * Waits for a permit
+	 *
+	 * @throws InterruptedException
+	 */
+	public void acquire() throws InterruptedException {
+		CompletableFuture<Void> waiter = acquireAsync();
+		try {
+			waiter.get();
+		} catch (InterruptedException e) {
+			if (!waiter.cancel(false)) {
+				// granted while being interrupted
+				release();
+			}
+			throw e;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Releases a permit, handing it to the next waiter if any
+	 */
+	public void release() {
+		while (true) {
+			CompletableFuture<Void> next;
+			synchronized (waiters) {
+				next = waiters.poll();
+				if (next == null) {
+					available++;
+					return;
+				}
+			}
+			// a cancelled waiter doesn't take the permit
+			if (next.complete(null)) {
+				return;
+			}
+		}
+	}
+
+	public int getMaxStreams() {
+		return maxStreams;
+	}
+
+	/**
+	 * Returns number of streams in use
+	 *
+	 * @return In-flight count
+	 */
+	public int getInFlight() {
+		synchronized (waiters) {
+			return maxStreams - available;
+		}
+	}
+
+	/**
+	 * Returns number of calls waiting for a permit
+	 *
+	 * @return Waiter count
+	 */
+	public int getWaiting() {
+		synchronized (waiters) {
+			return waiters.size();
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+package giri.apurba.apps.service.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as a generic cell rate algorithm: the
+ * bucket state is a single theoretical arrival time that is advanced with a
+ * compare-and-set per permit, so concurrent callers never block each other.
+ * Permits are issued at a steady rate with up to {@code burst} permits
+ * available at once. The rate can be lowered temporarily (see
+ * {@link #pace(long, long)}) and the bucket can be emptied until a given time
+ * (see {@link #blockUntil(long)}), e.g. when an upstream asks to slow down.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class TokenBucket {
+
+	/**
+	 * Temporary permit interval
+	 *
+	 * @param intervalNanos - Interval between permits
+	 * @param untilNanos    - {@link System#nanoTime()} the interval applies until
+	 */
+	private static record Pace(long intervalNanos, long untilNanos) {
+	}
+
+	private final long intervalNanos;
+	private final int burst;
+	private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+	private volatile Pace pace;
+
+	/**
+	 * @param permitsPerSecond - Sustained rate (0 for no limit, the bucket then
+	 *                         only honors {@link #blockUntil(long)})
+	 * @param burst            - Permits available at once, must be greater than
+	 *                         0
+	 */
+	public TokenBucket(double permitsPerSecond, int burst) {
+		if (permitsPerSecond < 0 || burst <= 0) {
+			throw new IllegalArgumentException(
+					"permitsPerSecond must not be negative and burst must be greater than 0");
+		}
+		this.intervalNanos = permitsPerSecond > 0 ? (long) (1_000_000_000L / permitsPerSecond) : 0;
+		this.burst = burst;
+	}
+
+	/**
+	 * Takes a permit if it is available within given time
+	 *
+	 * @param maxWaitNanos - Longest acceptable wait for the permit
+	 *
+	 * @return Nanoseconds to wait before using the permit, or -1 if no permit
+	 *         was taken because the wait would be longer
+	 */
+	public long reserve(long maxWaitNanos) {
+		long now = System.nanoTime();
+		Pace current = pace;
+		boolean paced = current != null && now - current.untilNanos() < 0;
+		long interval = paced ? Math.max(intervalNanos, current.intervalNanos()) : intervalNanos;
+		// no bursts while paced, the remaining quota is spread evenly
+		long tolerance = paced ? 0 : (burst - 1) * intervalNanos;
+		while (true) {
+			long arrival = theoreticalArrival.get();
+			long base = Math.max(arrival, now);
+			long wait = base - tolerance - now;
+			if (wait > maxWaitNanos) {
+				return -1;
+			}
+			if (theoreticalArrival.compareAndSet(arrival, base + interval)) {
+				return Math.max(0, wait);
+			}
+		}
+	}
+
+	/**
+	 * Gives back a permit that was reserved but not used
+	 */
+	public void refund() {
+		theoreticalArrival.addAndGet(-intervalNanos);
+	}
+
+	/**
+	 * Issues no permits before given time
+	 *
+	 * @param nanoTime - {@link System#nanoTime()} of the first permit
+	 */
+	public void blockUntil(long nanoTime) {
+		long blocked = nanoTime + (burst - 1) * intervalNanos;
+		theoreticalArrival.accumulateAndGet(blocked, Math::max);
+	}
+
+	/**
+	 * Spaces permits at least given interval apart until given time, e.g. to
+	 * spread the remaining quota of an upstream over its quota window
+	 *
+	 * @param intervalNanos - Interval between permits
+	 * @param untilNanos    - {@link System#nanoTime()} the interval applies until
+	 */
+	public void pace(long intervalNanos, long untilNanos) {
+		pace = new Pace(intervalNanos, untilNanos);
+	}
+
+}
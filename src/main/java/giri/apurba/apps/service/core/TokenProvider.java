@@ -0,0 +1,22 @@
+package giri.apurba.apps.service.core;
+
+/**
+ * Supplies bearer tokens for {@link EndpointTemplate} calls
+ *
+ * @author AGIRI6
+ *
+ */
+@FunctionalInterface
+public interface TokenProvider {
+
+	/**
+	 * Returns a currently valid token. Implementations should return a cached
+	 * token whenever possible, as this is called for every request.
+	 *
+	 * @return Bearer token
+	 *
+	 * @throws IllegalStateException if no valid token can be obtained
+	 */
+	String getToken();
+
+}
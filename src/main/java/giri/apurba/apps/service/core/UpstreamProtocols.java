@@ -0,0 +1,145 @@
+package giri.apurba.apps.service.core;
+
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HTTP protocol used per upstream host by {@link APIService}. Hosts without
+ * an explicit setting use the default protocol. For HTTP/2 upstreams, the
+ * number of concurrent streams per host can be limited (see
+ * {@link StreamLimit}), so that many concurrent calls are multiplexed over
+ * few connections without exceeding the server's stream limit.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class UpstreamProtocols {
+
+	private static final UpstreamProtocols INSTANCE = new UpstreamProtocols();
+
+	/**
+	 * Protocol of an upstream
+	 */
+	public static enum Protocol {
+		/**
+		 * HTTP/1.1 only, one call per connection at a time
+		 */
+		HTTP_1_1(Version.HTTP_1_1),
+		/**
+		 * HTTP/2 negotiated with ALPN over TLS, falling back to HTTP/1.1 if the
+		 * server doesn't offer h2. Plain http URLs are upgraded to h2c.
+		 */
+		HTTP_2(Version.HTTP_2),
+		/**
+		 * HTTP/2 over cleartext for local or internal services. The JDK client has
+		 * no prior knowledge mode, so the first request on a connection carries
+		 * the h2c upgrade and later calls are multiplexed over it.
+		 */
+		H2C(Version.HTTP_2);
+
+		private final Version version;
+
+		private Protocol(Version version) {
+			this.version = version;
+		}
+
+		public Version version() {
+			return version;
+		}
+	};
+
+	private final ConcurrentHashMap<String, StreamLimit> streamLimits = new ConcurrentHashMap<>();
+
+	private volatile Protocol defaultProtocol = Protocol.HTTP_2;
+	private volatile Map<String, Protocol> hostProtocols = Map.of();
+	private volatile int maxConcurrentStreams;
+
+	private UpstreamProtocols() {
+	}
+
+	/**
+	 * Returns the shared instance
+	 *
+	 * @return {@link UpstreamProtocols}
+	 */
+	public static UpstreamProtocols getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Configures upstream protocols
+	 *
+	 * @param defaultProtocol      - Protocol of hosts without an explicit
+	 *                             setting
+	 * @param hostProtocols        - Protocol per host name
+	 * @param maxConcurrentStreams - Concurrent streams per HTTP/2 host (0 for no
+	 *                             limit)
+	 */
+	public void configure(Protocol defaultProtocol, Map<String, Protocol> hostProtocols, int maxConcurrentStreams) {
+		if (maxConcurrentStreams < 0) {
+			throw new IllegalArgumentException("maxConcurrentStreams must not be negative");
+		}
+		this.defaultProtocol = defaultProtocol;
+		this.hostProtocols = Map.copyOf(hostProtocols);
+		this.maxConcurrentStreams = maxConcurrentStreams;
+		streamLimits.clear();
+	}
+
+	/**
+	 * Parses host protocols in the format of 'host=PROTOCOL,host=PROTOCOL'
+	 *
+	 * @param hostProtocols - e.g. 'localhost=H2C,legacy.example.com=HTTP_1_1'
+	 *
+	 * @return Protocol per host name
+	 */
+	public static Map<String, Protocol> parse(String hostProtocols) {
+		Map<String, Protocol> protocols = new HashMap<>();
+		if (hostProtocols == null || hostProtocols.isBlank()) {
+			return protocols;
+		}
+		for (String entry : hostProtocols.split(",")) {
+			int separator = entry.indexOf('=');
+			if (separator <= 0) {
+				throw new IllegalArgumentException("Invalid upstream protocol '" + entry + "', expected host=PROTOCOL");
+			}
+			protocols.put(entry.substring(0, separator).trim(),
+					Protocol.valueOf(entry.substring(separator + 1).trim()));
+		}
+		return protocols;
+	}
+
+	/**
+	 * Returns protocol of given upstream
+	 *
+	 * @param uri - Request URI
+	 *
+	 * @return {@link Protocol}
+	 */
+	public Protocol getProtocol(URI uri) {
+		Protocol protocol = uri.getHost() != null ? hostProtocols.get(uri.getHost()) : null;
+		return protocol != null ? protocol : defaultProtocol;
+	}
+
+	/**
+	 * Returns the stream limit of given upstream
+	 *
+	 * @param uri - Request URI
+	 *
+	 * @return {@link StreamLimit} or null if calls to the host are not limited
+	 */
+	public StreamLimit getStreamLimit(URI uri) {
+		int maxStreams = maxConcurrentStreams;
+		if (maxStreams == 0 || uri.getHost() == null || getProtocol(uri).version() != Version.HTTP_2) {
+			return null;
+		}
+		StreamLimit streamLimit = streamLimits.get(uri.getHost());
+		if (streamLimit == null) {
+			streamLimit = streamLimits.computeIfAbsent(uri.getHost(), key -> new StreamLimit(maxStreams));
+		}
+		return streamLimit;
+	}
+
+}
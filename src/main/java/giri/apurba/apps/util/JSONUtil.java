@@ -1,13 +1,31 @@
 package giri.apurba.apps.util;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.ParseContext;
+import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 
 /**
  * Utility class to do common JSON operations
@@ -17,6 +35,88 @@ import com.jayway.jsonpath.JsonPath;
  */
 public class JSONUtil {
 
+	/**
+	 * Shared mapper; upstream fields that typed records don't declare are
+	 * ignored
+	 */
+	private static final ObjectMapper STREAM_MAPPER = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	private static final JsonFactory STREAM_FACTORY = STREAM_MAPPER.getFactory();
+
+	private static final ConcurrentHashMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+	/**
+	 * JSON provider used by {@link JsonPath} operations
+	 */
+	public static enum JSONProvider {
+		/**
+		 * json-smart, the {@link JsonPath} default
+		 */
+		DEFAULT,
+		/**
+		 * Jackson, shared with Spring Boot
+		 */
+		JACKSON
+	};
+
+	/**
+	 * Maximum number of compiled paths kept in cache; paths beyond this are
+	 * compiled on every call
+	 */
+	private static final int MAX_COMPILED_PATHS = 1024;
+
+	private static final ConcurrentHashMap<String, JsonPath> COMPILED_PATHS = new ConcurrentHashMap<>();
+
+	private static volatile ParseContext parseContext = JsonPath.using(Configuration.defaultConfiguration());
+
+	/**
+	 * Sets the JSON provider used to parse documents for path operations
+	 * 
+	 * @param provider
+	 */
+	public static void setJSONProvider(JSONProvider provider) {
+		Configuration configuration = Configuration.defaultConfiguration();
+		if (provider == JSONProvider.JACKSON) {
+			configuration = Configuration.builder().jsonProvider(new JacksonJsonProvider(STREAM_MAPPER))
+					.mappingProvider(new JacksonMappingProvider(STREAM_MAPPER)).build();
+		}
+		parseContext = JsonPath.using(configuration);
+	}
+
+	/**
+	 * Returns compiled {@link JsonPath} for given path. Compiled paths are
+	 * cached, so repeated calls with the same path don't parse it again.
+	 * 
+	 * @param path
+	 * @return {@link JsonPath}
+	 */
+	public static JsonPath compilePath(String path) {
+		JsonPath jsonPath = COMPILED_PATHS.get(path);
+		if (jsonPath == null) {
+			jsonPath = JsonPath.compile(path);
+			if (COMPILED_PATHS.size() < MAX_COMPILED_PATHS) {
+				COMPILED_PATHS.putIfAbsent(path, jsonPath);
+			}
+		}
+		return jsonPath;
+	}
+
+	/**
+	 * Parses a JSON string once, so that multiple paths can be read from the
+	 * returned document with {@link #getPropertyValue(DocumentContext, String)}
+	 * 
+	 * @param jsonString
+	 * @return {@link DocumentContext} or null if jsonString is not valid JSON
+	 */
+	public static DocumentContext parse(String jsonString) {
+		try {
+			return parseContext.parse(jsonString);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
 	/**
 	 * Method to retrieve a JSON property value based on provided path. Example of
 	 * path: $.data.attributes.organizationType.code
@@ -27,7 +127,7 @@ public class JSONUtil {
 	 */
 	public static Object getPropertyValue(String jsonString, String path) {
 		try {
-			return JsonPath.parse(jsonString).read(path);
+			return parseContext.parse(jsonString).read(compilePath(path));
 		} catch (Exception e) {
 			e.printStackTrace();
 			return null;
@@ -41,10 +141,45 @@ public class JSONUtil {
 	 * @param jsonObject
 	 * @param path
 	 * @return {@link Object}
+	 * @deprecated json-simple objects are untyped; decode into a record with
+	 *             {@link #readValue(String, Class)} or read paths with
+	 *             {@link #getPropertyValue(String, String)}
 	 */
+	@Deprecated
 	public static Object getPropertyValue(JSONObject jsonObject, String path) {
 		try {
-			return JsonPath.parse(jsonObject.toJSONString()).read(path);
+			// JSONObject is a Map, so it's read in place without serializing it
+			return parseContext.parse(jsonObject).read(compilePath(path));
+		} catch (Exception e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Method to retrieve a JSON property value based on provided path from an
+	 * already parsed document. Example of path:
+	 * $.data.attributes.organizationType.code
+	 * 
+	 * @param document
+	 * @param path
+	 * @return {@link Object}
+	 */
+	public static Object getPropertyValue(DocumentContext document, String path) {
+		return getPropertyValue(document, compilePath(path));
+	}
+
+	/**
+	 * Method to retrieve a JSON property value based on a compiled path from an
+	 * already parsed document
+	 * 
+	 * @param document
+	 * @param path     - Compiled path (see {@link #compilePath(String)})
+	 * @return {@link Object}
+	 */
+	public static Object getPropertyValue(DocumentContext document, JsonPath path) {
+		try {
+			return document.read(path);
 		} catch (Exception e) {
 			e.printStackTrace();
 			return null;
@@ -60,10 +195,14 @@ public class JSONUtil {
 	 * @param key
 	 * @param value
 	 * @return {@link String}
+	 * @deprecated json-simple objects are untyped; use
+	 *             {@link #addPropertyValue(String, String, String, String)}
 	 */
+	@Deprecated
 	public static String addPropertyValue(JSONObject jsonObject, String path, String key, String value) {
 		try {
-			return JsonPath.parse(jsonObject.toJSONString()).put(path, key, value).jsonString();
+			// serialized first so that the given jsonObject is left unchanged
+			return parseContext.parse(jsonObject.toJSONString()).put(compilePath(path), key, value).jsonString();
 		} catch (Exception e) {
 			return null;
 		}
@@ -81,18 +220,119 @@ public class JSONUtil {
 	 */
 	public static String addPropertyValue(String jsonString, String path, String key, String value) {
 		try {
-			return JsonPath.parse(jsonString).put(path, key, value).jsonString();
+			return parseContext.parse(jsonString).put(compilePath(path), key, value).jsonString();
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Add or update a JSON property value in an already parsed document. The
+	 * document is updated in place, so further reads and updates can be done
+	 * without parsing again.
+	 * 
+	 * @param document
+	 * @param path
+	 * @param key
+	 * @param value
+	 * @return Updated {@link DocumentContext}, or null if the update failed
+	 */
+	public static DocumentContext addPropertyValue(DocumentContext document, String path, String key, Object value) {
+		try {
+			return document.put(compilePath(path), key, value);
 		} catch (Exception e) {
 			return null;
 		}
 	}
 
+	/**
+	 * Returns the shared {@link ObjectReader} of given type. Readers are
+	 * immutable and cached per type, so decoding doesn't look up the type's
+	 * deserializer again.
+	 * 
+	 * @param <T>  Decoded type (e.g. a record)
+	 * @param type
+	 * @return {@link ObjectReader}
+	 */
+	public static <T> ObjectReader readerFor(Class<T> type) {
+		return READERS.computeIfAbsent(type, STREAM_MAPPER::readerFor);
+	}
+
+	/**
+	 * Decodes a JSON string into given type
+	 * 
+	 * @param <T>        Decoded type (e.g. a record)
+	 * @param jsonString
+	 * @param type
+	 * @return Decoded value, or null if jsonString is not valid JSON of the type
+	 */
+	public static <T> T readValue(String jsonString, Class<T> type) {
+		try {
+			return readerFor(type).readValue(jsonString);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Decodes JSON bytes into given type, without building a String or a tree
+	 * first
+	 * 
+	 * @param <T>  Decoded type (e.g. a record)
+	 * @param json - UTF-8 JSON
+	 * @param type
+	 * @return Decoded value, or null if json is not valid JSON of the type
+	 */
+	public static <T> T readValue(byte[] json, Class<T> type) {
+		try {
+			return readerFor(type).readValue(json);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Decodes a JSON input stream into given type
+	 * 
+	 * @param <T>   Decoded type (e.g. a record)
+	 * @param input - JSON input stream, closed by this method
+	 * @param type
+	 * @return Decoded value, or null if input is not valid JSON of the type
+	 */
+	public static <T> T readValue(InputStream input, Class<T> type) {
+		try (InputStream in = input) {
+			return readerFor(type).readValue(in);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Returns compact JSON of given value
+	 * 
+	 * @param value - e.g. a record
+	 * @return JSON string, or null if the value can't be written as JSON
+	 */
+	public static String toJSONString(Object value) {
+		try {
+			return STREAM_MAPPER.writeValueAsString(value);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
 	/**
 	 * Returns {@link JSONObject} for a given jsonString
 	 * 
 	 * @param jsonString
 	 * @return {@link JSONObject}
+	 * @deprecated decode into a record with {@link #readValue(String, Class)}
 	 */
+	@Deprecated
 	public static JSONObject getJSONObject(String jsonString) {
 		JSONObject jsonObject = null;
 		try {
@@ -109,7 +349,10 @@ public class JSONUtil {
 	 * 
 	 * @param input
 	 * @return {@link JSONObject}
+	 * @deprecated decode into a record with
+	 *             {@link #readValue(InputStream, Class)}
 	 */
+	@Deprecated
 	public static JSONObject getJSONObject(Reader input) {
 		JSONObject jsonObject = null;
 		try {
@@ -123,4 +366,179 @@ public class JSONUtil {
 		return jsonObject;
 	}
 
+	/**
+	 * Streams the elements of a JSON array to given action, one element at a
+	 * time, without building the whole document in memory. Only dotted field
+	 * paths are supported. Example of path: $.data or $.data[*]
+	 * 
+	 * @param input  - JSON input stream, closed by this method
+	 * @param path
+	 * @param action - Called for every object element of the array
+	 * @return Number of elements streamed, or -1 if the path doesn't point to an
+	 *         array or the input is not valid JSON
+	 * @deprecated stream typed elements with
+	 *             {@link #forEachArrayElement(InputStream, String, Class, Consumer)}
+	 */
+	@Deprecated
+	public static long forEachArrayElement(InputStream input, String path, Consumer<JSONObject> action) {
+		return forEachArrayElement(input, path, JSONObject.class, action);
+	}
+
+	/**
+	 * Streams the object elements of a JSON array to given action, one element
+	 * at a time, each decoded into given type without building the whole
+	 * document in memory. Only dotted field paths are supported. Example of
+	 * path: $.data or $.data[*]
+	 * 
+	 * @param <T>    Element type (e.g. a record)
+	 * @param input  - JSON input stream, closed by this method
+	 * @param path
+	 * @param type
+	 * @param action - Called for every object element of the array
+	 * @return Number of elements streamed, or -1 if the path doesn't point to an
+	 *         array or the input is not valid JSON
+	 */
+	public static <T> long forEachArrayElement(InputStream input, String path, Class<T> type,
+			Consumer<? super T> action) {
+		ObjectReader reader = readerFor(type);
+		try (JsonParser parser = STREAM_FACTORY.createParser(input)) {
+			if (!moveToPath(parser, path) || parser.currentToken() != JsonToken.START_ARRAY) {
+				return -1;
+			}
+			long count = 0;
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				if (parser.currentToken() == JsonToken.START_OBJECT) {
+					action.accept(reader.readValue(parser));
+					count++;
+				} else {
+					parser.skipChildren();
+				}
+			}
+			return count;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return -1;
+		}
+	}
+
+	/**
+	 * Streams the object elements of a JSON array to given action as compact
+	 * JSON, one element at a time, without building the whole document in
+	 * memory. Elements can be filtered by field values and projected to a subset
+	 * of their fields. Only dotted field paths are supported. Example of path:
+	 * $.data or $.data[*]
+	 * 
+	 * @param input   - JSON input stream, closed by this method
+	 * @param path
+	 * @param fields  - Fields to keep in each element (null or empty for all)
+	 * @param matches - Field values an element must have to be streamed,
+	 *                compared as text (null or empty for all elements)
+	 * @param action  - Called with the JSON of every streamed element
+	 * @return Number of elements streamed, or -1 if the path doesn't point to an
+	 *         array or the input is not valid JSON
+	 */
+	public static long forEachArrayElement(InputStream input, String path, Set<String> fields,
+			Map<String, String> matches, Consumer<String> action) {
+		try (JsonParser parser = STREAM_FACTORY.createParser(input)) {
+			if (!moveToPath(parser, path) || parser.currentToken() != JsonToken.START_ARRAY) {
+				return -1;
+			}
+			long count = 0;
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				if (parser.currentToken() != JsonToken.START_OBJECT) {
+					parser.skipChildren();
+					continue;
+				}
+				ObjectNode element = STREAM_MAPPER.readTree(parser);
+				if (!matches(element, matches)) {
+					continue;
+				}
+				if (fields != null && !fields.isEmpty()) {
+					element.retain(fields);
+				}
+				action.accept(STREAM_MAPPER.writeValueAsString(element));
+				count++;
+			}
+			return count;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return -1;
+		}
+	}
+
+	private static boolean matches(ObjectNode element, Map<String, String> matches) {
+		if (matches == null) {
+			return true;
+		}
+		for (Map.Entry<String, String> match : matches.entrySet()) {
+			JsonNode value = element.get(match.getKey());
+			if (value == null || !value.isValueNode() || !value.asText().equals(match.getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Method to retrieve a JSON property value from an input stream, reading only
+	 * as much of the stream as needed. Only dotted field paths are supported.
+	 * Example of path: $.data.attributes.organizationType.code
+	 * 
+	 * @param input - JSON input stream, closed by this method
+	 * @param path
+	 * @return {@link Object}
+	 */
+	public static Object getPropertyValue(InputStream input, String path) {
+		try (JsonParser parser = STREAM_FACTORY.createParser(input)) {
+			if (!moveToPath(parser, path)) {
+				return null;
+			}
+			return STREAM_MAPPER.readValue(parser, Object.class);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Advances the parser to the value at given dotted field path, skipping every
+	 * other value without materializing it
+	 * 
+	 * @param parser
+	 * @param path
+	 * @return true if the parser is positioned on the value
+	 * @throws IOException
+	 */
+	private static boolean moveToPath(JsonParser parser, String path) throws IOException {
+		if (parser.nextToken() == null) {
+			return false;
+		}
+		String fieldPath = path.startsWith("$") ? path.substring(1) : path;
+		if (fieldPath.endsWith("[*]")) {
+			fieldPath = fieldPath.substring(0, fieldPath.length() - 3);
+		}
+		for (String field : fieldPath.split("\\.")) {
+			if (field.isEmpty()) {
+				continue;
+			}
+			if (parser.currentToken() != JsonToken.START_OBJECT) {
+				return false;
+			}
+			boolean found = false;
+			while (!found && parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+				parser.nextToken();
+				if (field.equals(name)) {
+					found = true;
+				} else {
+					parser.skipChildren();
+				}
+			}
+			if (!found) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package giri.apurba.apps.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map with primitive long keys, so that lookups don't box the key. Uses
+ * open addressing with linear probing. Not thread safe; publish a fully built
+ * map to other threads through a volatile reference.
+ *
+ * @author AGIRI6
+ *
+ * @param <V> Value type
+ */
+public final class LongObjectHashMap<V> {
+
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private long[] keys;
+	private Object[] values;
+	private boolean[] used;
+	private int size;
+
+	/**
+	 * Creates a map sized for expected number of entries
+	 *
+	 * @param expectedSize
+	 */
+	public LongObjectHashMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		keys = new long[capacity];
+		values = new Object[capacity];
+		used = new boolean[capacity];
+	}
+
+	/**
+	 * Returns value mapped to given key
+	 *
+	 * @param key
+	 * @return Value or null if key is not mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int mask = keys.length - 1;
+		for (int i = index(key, mask); used[i]; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return (V) values[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Maps given key to value
+	 *
+	 * @param key
+	 * @param value
+	 * @return Previous value or null if key was not mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		int mask = keys.length - 1;
+		int i = index(key, mask);
+		for (; used[i]; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				V previous = (V) values[i];
+				values[i] = value;
+				return previous;
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		used[i] = true;
+		if (++size > keys.length * LOAD_FACTOR) {
+			resize();
+		}
+		return null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		boolean[] oldUsed = used;
+		keys = new long[oldKeys.length << 1];
+		values = new Object[oldKeys.length << 1];
+		used = new boolean[oldKeys.length << 1];
+		int mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldUsed[j]) {
+				int i = index(oldKeys[j], mask);
+				while (used[i]) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+				used[i] = true;
+			}
+		}
+		Arrays.fill(oldValues, null);
+	}
+
+	private static int index(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+}
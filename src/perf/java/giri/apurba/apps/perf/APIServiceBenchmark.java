@@ -0,0 +1,110 @@
+package giri.apurba.apps.perf;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import giri.apurba.apps.service.core.APIService;
+import giri.apurba.apps.service.core.HttpClientRegistry;
+import giri.apurba.apps.service.core.RequestCoalescer;
+
+/**
+ * Compares building a new {@link HttpClient} (and trust-all SSLContext) per
+ * call, as APIServiceBase used to, with the shared client used by
+ * {@link APIService}. Calls go to an in-process {@link StubServer}.
+ *
+ * @author AGIRI6
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class APIServiceBenchmark {
+
+	private StubServer stub;
+	private String serviceUrl;
+	private APIService apiService;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		stub = new StubServer(20, 0);
+		serviceUrl = stub.baseUrl() + "employees";
+		RequestCoalescer.getInstance().setEnabled(false);
+		apiService = new APIService();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		HttpClientRegistry.getInstance().shutdown();
+		stub.close();
+	}
+
+	@Benchmark
+	public String perCallClient() throws Exception {
+		try (HttpClient httpClient = HttpClient.newBuilder().sslContext(insecureSSLContext()).build()) {
+			HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(serviceUrl)).GET().build();
+			return httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString()).body();
+		}
+	}
+
+	@Benchmark
+	public String sharedClient() {
+		return apiService.invokeAPI(serviceUrl).body();
+	}
+
+	@Benchmark
+	public HttpClient clientConstruction() throws Exception {
+		HttpClient httpClient = HttpClient.newBuilder().sslContext(insecureSSLContext()).build();
+		// release the selector right away, otherwise the run exhausts file descriptors
+		httpClient.shutdownNow();
+		return httpClient;
+	}
+
+	@Benchmark
+	public HttpRequest requestConstruction() {
+		return HttpRequest.newBuilder(URI.create(serviceUrl)).header("Content-Type", "application/json")
+				.header("Authorization", "Bearer token").GET().build();
+	}
+
+	private static SSLContext insecureSSLContext() throws Exception {
+		TrustManager[] trustAllTm = new TrustManager[] { new X509TrustManager() {
+			public X509Certificate[] getAcceptedIssuers() {
+				return null;
+			}
+
+			public void checkClientTrusted(X509Certificate[] certs, String authType) {
+			}
+
+			public void checkServerTrusted(X509Certificate[] certs, String authType) {
+			}
+		} };
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(null, trustAllTm, new SecureRandom());
+		return sslContext;
+	}
+
+}
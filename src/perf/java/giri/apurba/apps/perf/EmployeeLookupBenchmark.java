@@ -0,0 +1,69 @@
+package giri.apurba.apps.perf;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import giri.apurba.apps.entities.Employee;
+import giri.apurba.apps.entities.EmployeeList;
+import giri.apurba.apps.service.api.EmployeeIndex;
+import giri.apurba.apps.util.JSONUtil;
+
+/**
+ * Single employee lookup: parse and linear filter of the whole list (the
+ * previous RestAPIExample.getEmployeeById path) versus {@link EmployeeIndex}
+ *
+ * @author AGIRI6
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class EmployeeLookupBenchmark {
+
+	@Param({ "100", "10000" })
+	private int employees;
+
+	private String json;
+	private String id;
+
+	@Setup
+	public void setUp() {
+		json = StubServer.employeesJson(employees);
+		id = String.valueOf(employees / 2);
+		EmployeeIndex.getInstance().update(JSONUtil.readValue(json, EmployeeList.class));
+	}
+
+	@Benchmark
+	@SuppressWarnings({ "unchecked", "deprecation" })
+	public String parseAndFilter() {
+		JSONObject responseObj = JSONUtil.getJSONObject(json);
+		long employeeId = Long.parseLong(id);
+		ArrayList<JSONObject> filteredObj = (ArrayList<JSONObject>) (((JSONArray) responseObj.get("data")).stream()
+				.filter(emp -> ((Long) ((JSONObject) emp).get("id")) == employeeId).collect(Collectors.toList()));
+		return filteredObj.isEmpty() ? null : filteredObj.get(0).toJSONString();
+	}
+
+	@Benchmark
+	public Employee indexLookup() {
+		return EmployeeIndex.getInstance().get(Long.parseLong(id));
+	}
+
+}
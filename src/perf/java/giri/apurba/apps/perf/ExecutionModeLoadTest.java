@@ -0,0 +1,92 @@
+package giri.apurba.apps.perf;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import giri.apurba.apps.config.ExecutionMode;
+import giri.apurba.apps.service.core.APIService;
+import giri.apurba.apps.service.core.HttpClientRegistry;
+import giri.apurba.apps.service.core.RequestCoalescer;
+
+/**
+ * Local load test comparing throughput and p99 latency of blocking
+ * {@link APIService#invokeAPI(String)} calls in {@link ExecutionMode#PLATFORM}
+ * and {@link ExecutionMode#VIRTUAL} mode against a slow {@link StubServer}.
+ * 
+ * Run with: mvn -Pperf compile exec:java
+ * -Dexec.mainClass=giri.apurba.apps.perf.ExecutionModeLoadTest
+ * -Dexec.args="[requests concurrency delayMillis platformThreads]"
+ *
+ * @author AGIRI6
+ *
+ */
+public final class ExecutionModeLoadTest {
+
+	public static void main(String[] args) throws Exception {
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		long delayMillis = args.length > 2 ? Long.parseLong(args[2]) : 200;
+		// Tomcat's default maximum worker thread count
+		int platformThreads = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+		// every call must reach the stub, not join an identical call in flight
+		RequestCoalescer.getInstance().setEnabled(false);
+		try (StubServer stub = new StubServer(20, delayMillis)) {
+			String serviceUrl = stub.baseUrl() + "employees";
+			for (ExecutionMode mode : ExecutionMode.values()) {
+				run(mode, serviceUrl, requests, concurrency, platformThreads);
+			}
+		}
+		HttpClientRegistry.getInstance().shutdown();
+	}
+
+	private static void run(ExecutionMode mode, String serviceUrl, int requests, int concurrency,
+			int platformThreads) throws InterruptedException {
+		ExecutorService clientExecutor = null;
+		ExecutorService workers;
+		if (mode == ExecutionMode.VIRTUAL) {
+			clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+			workers = Executors.newVirtualThreadPerTaskExecutor();
+		} else {
+			workers = Executors.newFixedThreadPool(platformThreads);
+		}
+		HttpClientRegistry.getInstance().setDefaultExecutor(clientExecutor);
+
+		APIService apiService = new APIService();
+		// warm up the shared client and connections
+		apiService.invokeAPI(serviceUrl);
+
+		long[] latencies = new long[requests];
+		Semaphore inFlight = new Semaphore(concurrency);
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			final int index = i;
+			inFlight.acquire();
+			// latency includes time queued for a worker thread, as seen by a client
+			long begin = System.nanoTime();
+			workers.execute(() -> {
+				try {
+					apiService.invokeAPI(serviceUrl);
+				} finally {
+					latencies[index] = System.nanoTime() - begin;
+					inFlight.release();
+				}
+			});
+		}
+		workers.shutdown();
+		workers.awaitTermination(10, TimeUnit.MINUTES);
+		long elapsed = System.nanoTime() - start;
+		if (clientExecutor != null) {
+			clientExecutor.shutdown();
+		}
+
+		Arrays.sort(latencies);
+		System.out.printf("%-8s requests=%d concurrency=%d throughput=%.1f req/s p50=%.1f ms p99=%.1f ms%n", mode,
+				requests, concurrency, requests / (elapsed / 1e9), latencies[requests / 2] / 1e6,
+				latencies[(int) (requests * 0.99)] / 1e6);
+	}
+
+}
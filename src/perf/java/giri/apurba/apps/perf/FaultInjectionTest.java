@@ -0,0 +1,93 @@
+package giri.apurba.apps.perf;
+
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import giri.apurba.apps.service.core.APIService;
+import giri.apurba.apps.service.core.HttpClientRegistry;
+import giri.apurba.apps.service.core.RequestCoalescer;
+import giri.apurba.apps.service.core.Resilience;
+import giri.apurba.apps.service.core.Resilience.CircuitBreakerSettings;
+import giri.apurba.apps.service.core.Resilience.HedgeSettings;
+import giri.apurba.apps.service.core.Resilience.RetrySettings;
+
+/**
+ * Local test of {@link Resilience} against a fault-injecting
+ * {@link StubServer}. Runs the same GET load without resilience, with
+ * retries, with retries and hedging, and against a failing host with a
+ * circuit breaker, and prints success rate, p50/p99 latency and number of
+ * upstream requests.
+ * 
+ * Run with: mvn -Pperf compile exec:java
+ * -Dexec.mainClass=giri.apurba.apps.perf.FaultInjectionTest
+ * -Dexec.args="[requests concurrency errorRate dropRate slowRate slowMillis]"
+ *
+ * @author AGIRI6
+ *
+ */
+public final class FaultInjectionTest {
+
+	public static void main(String[] args) throws Exception {
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		double errorRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+		double dropRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.02;
+		double slowRate = args.length > 4 ? Double.parseDouble(args[4]) : 0.05;
+		long slowMillis = args.length > 5 ? Long.parseLong(args[5]) : 500;
+
+		RetrySettings retries = new RetrySettings(3, 20, 200, 0.2, 20);
+		// every call should reach the stub
+		RequestCoalescer.getInstance().setEnabled(false);
+		try (StubServer stub = new StubServer(20, 5)) {
+			String serviceUrl = stub.baseUrl() + "employees";
+			stub.injectFaults(errorRate, dropRate, slowRate, slowMillis);
+			run("no resilience", stub, serviceUrl, requests, concurrency, RetrySettings.DISABLED,
+					HedgeSettings.DISABLED, CircuitBreakerSettings.DISABLED);
+			run("retries", stub, serviceUrl, requests, concurrency, retries, HedgeSettings.DISABLED,
+					CircuitBreakerSettings.DISABLED);
+			run("retries + hedging", stub, serviceUrl, requests, concurrency, retries,
+					new HedgeSettings(true, 20), CircuitBreakerSettings.DISABLED);
+
+			stub.injectFaults(1.0, 0, 0, 0);
+			run("failing host + circuit breaker", stub, serviceUrl, requests, concurrency, retries,
+					HedgeSettings.DISABLED, new CircuitBreakerSettings(true, 5, 60000));
+		}
+		Resilience.getInstance().configure(RetrySettings.DISABLED, HedgeSettings.DISABLED,
+				CircuitBreakerSettings.DISABLED);
+		HttpClientRegistry.getInstance().shutdown();
+	}
+
+	private static void run(String name, StubServer stub, String serviceUrl, int requests, int concurrency,
+			RetrySettings retrySettings, HedgeSettings hedgeSettings, CircuitBreakerSettings circuitBreakerSettings)
+			throws InterruptedException {
+		Resilience.getInstance().configure(retrySettings, hedgeSettings, circuitBreakerSettings);
+		APIService apiService = new APIService();
+		long[] latencies = new long[requests];
+		AtomicInteger succeeded = new AtomicInteger();
+		long upstreamBefore = stub.getRequestCount();
+		ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+		for (int i = 0; i < requests; i++) {
+			final int index = i;
+			workers.execute(() -> {
+				long begin = System.nanoTime();
+				HttpResponse<String> response = apiService.invokeAPI(serviceUrl);
+				latencies[index] = System.nanoTime() - begin;
+				if (response.statusCode() == 200) {
+					succeeded.incrementAndGet();
+				}
+			});
+		}
+		workers.shutdown();
+		workers.awaitTermination(10, TimeUnit.MINUTES);
+
+		Arrays.sort(latencies);
+		System.out.printf("%-32s success %6.2f%%  p50 %6.1f ms  p99 %7.1f ms  upstream requests %d%n", name,
+				succeeded.get() * 100.0 / requests, latencies[requests / 2] / 1e6,
+				latencies[(int) (requests * 0.99)] / 1e6, stub.getRequestCount() - upstreamBefore);
+	}
+
+}
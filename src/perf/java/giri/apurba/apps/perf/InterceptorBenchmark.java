@@ -0,0 +1,164 @@
+package giri.apurba.apps.perf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import giri.apurba.apps.service.core.APIService;
+import giri.apurba.apps.service.core.APIServiceBase.HttpMethod;
+import giri.apurba.apps.service.core.HttpClientRegistry;
+import giri.apurba.apps.service.core.Interceptor;
+import giri.apurba.apps.service.core.InterceptorChain;
+import giri.apurba.apps.service.core.RecordReplay;
+import giri.apurba.apps.service.core.RequestCoalescer;
+
+/**
+ * Overhead of an {@link InterceptorChain} of five interceptors, compared to no
+ * interceptors. {@code dispatch} measures passing a call along the chain to a
+ * constant response, {@code invokeAPI} a complete {@link APIService} call
+ * answered by {@link RecordReplay}, so that no network time hides the
+ * overhead.
+ *
+ * @author AGIRI6
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(3)
+public class InterceptorBenchmark {
+
+	private static final String SERVICE_URL = "http://localhost/api/v1/employees";
+
+	@Param({ "0", "5" })
+	public int interceptors;
+
+	private InterceptorChain chain;
+	private HttpRequest request;
+	private InterceptorChain.Exchange<String> exchange;
+	private Path recording;
+	private APIService apiService;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, InterruptedException {
+		LongAdder calls = new LongAdder();
+		LongAdder failures = new LongAdder();
+		LongAdder nanos = new LongAdder();
+		Interceptor tracing = new Interceptor() {
+
+			@Override
+			public void onRequest(HttpRequest.Builder requestBuilder, HttpMethod httpMethod, URI uri) {
+				requestBuilder.header("X-Request-Source", "benchmark");
+			}
+		};
+		Interceptor counting = new Interceptor() {
+
+			@Override
+			public <T> HttpResponse<T> intercept(HttpRequest request, InterceptorChain next,
+					InterceptorChain.Exchange<T> exchange) throws IOException, InterruptedException {
+				calls.increment();
+				return next.proceed(request, exchange);
+			}
+		};
+		Interceptor timing = new Interceptor() {
+
+			@Override
+			public <T> HttpResponse<T> intercept(HttpRequest request, InterceptorChain next,
+					InterceptorChain.Exchange<T> exchange) throws IOException, InterruptedException {
+				long start = System.nanoTime();
+				try {
+					return next.proceed(request, exchange);
+				} finally {
+					nanos.add(System.nanoTime() - start);
+				}
+			}
+		};
+		Interceptor failureCounting = new Interceptor() {
+
+			@Override
+			public <T> HttpResponse<T> intercept(HttpRequest request, InterceptorChain next,
+					InterceptorChain.Exchange<T> exchange) throws IOException, InterruptedException {
+				HttpResponse<T> response = next.proceed(request, exchange);
+				if (response.statusCode() >= 500) {
+					failures.increment();
+				}
+				return response;
+			}
+		};
+		Interceptor passThrough = new Interceptor() {
+		};
+		chain = interceptors == 0 ? InterceptorChain.EMPTY
+				: InterceptorChain.of(tracing, counting, timing, failureCounting, passThrough);
+
+		request = HttpRequest.newBuilder(URI.create(SERVICE_URL)).GET().build();
+		byte[] body = StubServer.employeesJson(20).getBytes(StandardCharsets.UTF_8);
+		recording = Files.createTempFile("api-recording", ".bin");
+		RecordReplay recordReplay = RecordReplay.getInstance();
+		recordReplay.configure(RecordReplay.Mode.RECORD, recording, RecordReplay.Latency.NONE);
+		recordReplay.record(request, 200,
+				HttpHeaders.of(Map.of("Content-Type", List.of("application/json")), (name, value) -> true), body);
+		recordReplay.configure(RecordReplay.Mode.REPLAY, recording, RecordReplay.Latency.NONE);
+		HttpResponse<String> response = recordReplay.replay(request, HttpResponse.BodyHandlers.ofString());
+		exchange = new InterceptorChain.Exchange<String>() {
+
+			@Override
+			public HttpResponse<String> send(HttpRequest request) {
+				return response;
+			}
+
+			@Override
+			public CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request) {
+				return CompletableFuture.completedFuture(response);
+			}
+		};
+
+		RequestCoalescer.getInstance().setEnabled(false);
+		APIService.setInterceptorChain(chain);
+		apiService = new APIService();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		APIService.setInterceptorChain(null);
+		RecordReplay.getInstance().close();
+		Files.deleteIfExists(recording);
+		HttpClientRegistry.getInstance().shutdown();
+	}
+
+	@Benchmark
+	public HttpResponse<String> dispatch() throws Exception {
+		return chain.proceed(request, exchange);
+	}
+
+	@Benchmark
+	public String invokeAPI() {
+		return apiService.invokeAPI(SERVICE_URL).body();
+	}
+
+}
@@ -0,0 +1,87 @@
+package giri.apurba.apps.perf;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jayway.jsonpath.DocumentContext;
+
+import giri.apurba.apps.util.JSONUtil;
+
+/**
+ * JSONUtil parsing and path reads on employee list payloads of realistic
+ * sizes
+ *
+ * @author AGIRI6
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JSONUtilBenchmark {
+
+	private static final String[] PATHS = { "$.status", "$.message", "$.data[0].employee_name", "$.data[1].id",
+			"$.data[2].employee_salary" };
+
+	@Param({ "10", "1000", "10000" })
+	private int employees;
+
+	private String json;
+	private byte[] jsonBytes;
+
+	@Setup
+	public void setUp() {
+		json = StubServer.employeesJson(employees);
+		jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	@SuppressWarnings("deprecation")
+	public JSONObject getJSONObject() {
+		return JSONUtil.getJSONObject(json);
+	}
+
+	@Benchmark
+	public Object getPropertyValue() {
+		return JSONUtil.getPropertyValue(json, "$.data[1].employee_name");
+	}
+
+	@Benchmark
+	public void getPropertyValuesParsedPerPath(Blackhole blackhole) {
+		for (String path : PATHS) {
+			blackhole.consume(JSONUtil.getPropertyValue(json, path));
+		}
+	}
+
+	@Benchmark
+	public void getPropertyValuesParsedOnce(Blackhole blackhole) {
+		DocumentContext document = JSONUtil.parse(json);
+		for (String path : PATHS) {
+			blackhole.consume(JSONUtil.getPropertyValue(document, path));
+		}
+	}
+
+	@Benchmark
+	@SuppressWarnings("deprecation")
+	public long forEachArrayElementStreaming(Blackhole blackhole) {
+		return JSONUtil.forEachArrayElement(new ByteArrayInputStream(jsonBytes), "$.data[*]", blackhole::consume);
+	}
+
+}
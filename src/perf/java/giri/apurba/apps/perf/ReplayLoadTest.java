@@ -0,0 +1,134 @@
+package giri.apurba.apps.perf;
+
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import giri.apurba.apps.service.api.RestAPIExample;
+import giri.apurba.apps.service.core.HttpClientRegistry;
+import giri.apurba.apps.service.core.RecordReplay;
+import giri.apurba.apps.service.core.RecordReplay.Distribution;
+import giri.apurba.apps.service.core.RecordReplay.Latency;
+import giri.apurba.apps.service.core.RecordReplay.Mode;
+import giri.apurba.apps.service.core.RequestCoalescer;
+
+/**
+ * Offline load test of the employee endpoints against a recorded upstream. A
+ * recording of the employee list is seeded and replayed by
+ * {@link RecordReplay} with a simulated latency, so that
+ * {@link RestAPIExample} can be driven at high QPS without network access and
+ * without upstream variance. Request coalescing is disabled so that every call
+ * goes through the replay.
+ *
+ * Run with: mvn -Pperf compile exec:java
+ * -Dexec.mainClass=giri.apurba.apps.perf.ReplayLoadTest
+ * -Dexec.args="[requests concurrency employees latency medianMillis spread]"
+ *
+ * @author AGIRI6
+ *
+ */
+public final class ReplayLoadTest {
+
+	private static final String EMPLOYEES_URL = "https://dummy.restapiexample.com/api/v1/employees";
+
+	public static void main(String[] args) throws Exception {
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+		int employees = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		Distribution distribution = args.length > 3 ? Distribution.valueOf(args[3]) : Distribution.LOG_NORMAL;
+		double medianMillis = args.length > 4 ? Double.parseDouble(args[4]) : 20;
+		double spread = args.length > 5 ? Double.parseDouble(args[5]) : 0.5;
+
+		Path recording = Files.createTempFile("api-recording", ".bin");
+		String employeesBody = StubServer.employeesJson(employees);
+		RecordReplay recordReplay = RecordReplay.getInstance();
+		try {
+			recordReplay.configure(Mode.RECORD, recording, Latency.NONE);
+			recordReplay.record(HttpRequest.newBuilder(URI.create(EMPLOYEES_URL)).GET().build(), 200,
+					HttpHeaders.of(Map.of("Content-Type", List.of("application/json")), (name, value) -> true),
+					employeesBody.getBytes(StandardCharsets.UTF_8));
+			recordReplay.configure(Mode.REPLAY, recording, new Latency(distribution, medianMillis, spread));
+			RequestCoalescer.getInstance().setEnabled(false);
+
+			run("getEmployees", requests, concurrency, employeesBody, RestAPIExample::getEmployees);
+			runAsync("getEmployeesAsync", requests, concurrency, employeesBody);
+		} finally {
+			recordReplay.close();
+			Files.deleteIfExists(recording);
+			HttpClientRegistry.getInstance().shutdown();
+		}
+	}
+
+	private static void run(String name, int requests, int concurrency, String expectedBody,
+			Supplier<String> call) throws InterruptedException {
+		ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+		long[] latencies = new long[requests];
+		AtomicInteger mismatches = new AtomicInteger();
+		Semaphore inFlight = new Semaphore(concurrency);
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			final int index = i;
+			inFlight.acquire();
+			long begin = System.nanoTime();
+			workers.execute(() -> {
+				try {
+					if (!expectedBody.equals(call.get())) {
+						mismatches.incrementAndGet();
+					}
+				} finally {
+					latencies[index] = System.nanoTime() - begin;
+					inFlight.release();
+				}
+			});
+		}
+		workers.shutdown();
+		workers.awaitTermination(10, TimeUnit.MINUTES);
+		report(name, requests, concurrency, latencies, System.nanoTime() - start, mismatches.get());
+	}
+
+	private static void runAsync(String name, int requests, int concurrency, String expectedBody)
+			throws InterruptedException {
+		long[] latencies = new long[requests];
+		AtomicInteger mismatches = new AtomicInteger();
+		Semaphore inFlight = new Semaphore(concurrency);
+		CompletableFuture<?>[] calls = new CompletableFuture<?>[requests];
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			final int index = i;
+			inFlight.acquire();
+			long begin = System.nanoTime();
+			calls[i] = RestAPIExample.getEmployeesAsync().whenComplete((body, e) -> {
+				if (!expectedBody.equals(body)) {
+					mismatches.incrementAndGet();
+				}
+				latencies[index] = System.nanoTime() - begin;
+				inFlight.release();
+			});
+		}
+		CompletableFuture.allOf(calls).exceptionally(e -> null).join();
+		report(name, requests, concurrency, latencies, System.nanoTime() - start, mismatches.get());
+	}
+
+	private static void report(String name, int requests, int concurrency, long[] latencies, long elapsed,
+			int mismatches) {
+		Arrays.sort(latencies);
+		System.out.printf(
+				"%-18s requests=%d concurrency=%d throughput=%.1f req/s p50=%.1f ms p99=%.1f ms mismatches=%d%n",
+				name, requests, concurrency, requests / (elapsed / 1e9), latencies[requests / 2] / 1e6,
+				latencies[(int) (requests * 0.99)] / 1e6, mismatches);
+	}
+
+}
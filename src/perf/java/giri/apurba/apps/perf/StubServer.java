@@ -0,0 +1,287 @@
+package giri.apurba.apps.perf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * In-process HTTP stub of the employee API used by load tests and benchmarks,
+ * so they can run offline without hitting the real upstream.
+ *
+ * @author AGIRI6
+ *
+ */
+public final class StubServer implements AutoCloseable {
+
+	static {
+		// headers and body are written separately; without TCP_NODELAY every
+		// keep-alive exchange waits for the client's delayed ACK
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+	private final byte[] employees;
+	private final byte[] gzippedEmployees;
+	private final long delayMillis;
+	private final LongAdder requests = new LongAdder();
+
+	private volatile double errorRate;
+	private volatile double dropRate;
+	private volatile double slowRate;
+	private volatile long slowMillis;
+	private volatile boolean closeConnections;
+
+	/**
+	 * Starts a stub server on a random local port
+	 *
+	 * @param employeeCount - Number of employees in the /employees payload
+	 * @param delayMillis   - Simulated upstream latency per request
+	 *
+	 * @throws IOException
+	 */
+	public StubServer(int employeeCount, long delayMillis) throws IOException {
+		this(employeeCount, delayMillis, null);
+	}
+
+	/**
+	 * Starts a stub server on a random local port, serving https if an SSL
+	 * context is given
+	 *
+	 * @param employeeCount - Number of employees in the /employees payload
+	 * @param delayMillis   - Simulated upstream latency per request
+	 * @param sslContext    - Server SSL context (null for plain http), see
+	 *                      {@link #sslContext(Path, String)}
+	 *
+	 * @throws IOException
+	 */
+	public StubServer(int employeeCount, long delayMillis, SSLContext sslContext) throws IOException {
+		this.employees = employeesJson(employeeCount).getBytes(StandardCharsets.UTF_8);
+		this.gzippedEmployees = gzip(employees);
+		this.delayMillis = delayMillis;
+		InetSocketAddress address = new InetSocketAddress("127.0.0.1", 0);
+		if (sslContext != null) {
+			HttpsServer httpsServer = HttpsServer.create(address, 1024);
+			httpsServer.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+			this.server = httpsServer;
+		} else {
+			this.server = HttpServer.create(address, 1024);
+		}
+		this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		this.server.createContext("/api/v1/employees", this::handleEmployees);
+		this.server.createContext("/api/v1/echo", StubServer::handleEcho);
+		this.server.start();
+	}
+
+	/**
+	 * Returns base URL of the stub, in the format of
+	 * http://127.0.0.1:port/api/v1/
+	 *
+	 * @return Base URL
+	 */
+	public String baseUrl() {
+		return (server instanceof HttpsServer ? "https" : "http") + "://127.0.0.1:" + server.getAddress().getPort()
+				+ "/api/v1/";
+	}
+
+	/**
+	 * Generates a PKCS12 keystore with a self-signed certificate for 127.0.0.1
+	 * and localhost, using the JDK's keytool
+	 *
+	 * @param keystore - File to create, must not exist
+	 * @param password - Keystore and key password
+	 *
+	 * @throws IOException if keytool failed
+	 */
+	public static void generateKeystore(Path keystore, String password) throws IOException {
+		Path keytool = Path.of(System.getProperty("java.home"), "bin", "keytool");
+		Process process = new ProcessBuilder(keytool.toString(), "-genkeypair", "-alias", "stub", "-keyalg", "EC",
+				"-groupname", "secp256r1", "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+				"-validity", "30", "-storetype", "PKCS12", "-keystore", keystore.toString(), "-storepass", password)
+				.redirectErrorStream(true).start();
+		try {
+			String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+			if (!process.waitFor(30, TimeUnit.SECONDS) || process.exitValue() != 0) {
+				throw new IOException("keytool failed: " + output);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for keytool", e);
+		}
+	}
+
+	/**
+	 * Builds a server SSL context from a PKCS12 keystore
+	 *
+	 * @param keystore - e.g. generated by {@link #generateKeystore(Path, String)}
+	 * @param password - Keystore and key password
+	 *
+	 * @return {@link SSLContext}
+	 *
+	 * @throws Exception
+	 */
+	public static SSLContext sslContext(Path keystore, String password) throws Exception {
+		KeyStore keyStore = KeyStore.getInstance("PKCS12");
+		try (InputStream in = Files.newInputStream(keystore)) {
+			keyStore.load(in, password.toCharArray());
+		}
+		KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagerFactory.init(keyStore, password.toCharArray());
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+		return sslContext;
+	}
+
+	/**
+	 * Closes connections after every response, so that every request opens a
+	 * new connection (and performs a TLS handshake)
+	 *
+	 * @param closeConnections
+	 */
+	public void setCloseConnections(boolean closeConnections) {
+		this.closeConnections = closeConnections;
+	}
+
+	/**
+	 * Returns the JSON payload served by /employees
+	 *
+	 * @return JSON string
+	 */
+	public String employeesBody() {
+		return new String(employees, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Injects faults into subsequent responses. Each request independently
+	 * fails, gets dropped or is slowed down with the given probabilities.
+	 *
+	 * @param errorRate  - Share of requests answered with 503
+	 * @param dropRate   - Share of connections closed without a response
+	 * @param slowRate   - Share of requests delayed by slowMillis
+	 * @param slowMillis - Extra latency of slow requests
+	 */
+	public void injectFaults(double errorRate, double dropRate, double slowRate, long slowMillis) {
+		this.errorRate = errorRate;
+		this.dropRate = dropRate;
+		this.slowRate = slowRate;
+		this.slowMillis = slowMillis;
+	}
+
+	/**
+	 * Returns number of requests received
+	 *
+	 * @return Request count
+	 */
+	public long getRequestCount() {
+		return requests.sum();
+	}
+
+	/**
+	 * Builds an employee list payload in the format of the real upstream
+	 *
+	 * @param employeeCount
+	 *
+	 * @return JSON string
+	 */
+	public static String employeesJson(int employeeCount) {
+		StringBuilder json = new StringBuilder(employeeCount * 120 + 64);
+		json.append("{\"status\":\"success\",\"data\":[");
+		for (int i = 1; i <= employeeCount; i++) {
+			if (i > 1) {
+				json.append(',');
+			}
+			json.append("{\"id\":").append(i).append(",\"employee_name\":\"Employee ").append(i)
+					.append("\",\"employee_salary\":").append(50000 + i * 10).append(",\"employee_age\":")
+					.append(20 + i % 40).append(",\"profile_image\":\"\"}");
+		}
+		json.append("],\"message\":\"Successfully! All records has been fetched.\"}");
+		return json.toString();
+	}
+
+	private void handleEmployees(HttpExchange exchange) throws IOException {
+		requests.increment();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (random.nextDouble() < dropRate) {
+			// closing before the response headers are sent drops the connection
+			exchange.close();
+			return;
+		}
+		try (exchange) {
+			long delay = delayMillis + (random.nextDouble() < slowRate ? slowMillis : 0);
+			if (delay > 0) {
+				Thread.sleep(delay);
+			}
+			if (random.nextDouble() < errorRate) {
+				exchange.sendResponseHeaders(503, -1);
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			if (closeConnections) {
+				exchange.getResponseHeaders().set("Connection", "close");
+			}
+			String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+			byte[] payload = employees;
+			if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+				exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+				payload = gzippedEmployees;
+			}
+			exchange.sendResponseHeaders(200, payload.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(payload);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Streams the request body back with the request 'Content-Type' and
+	 * 'Content-Encoding'
+	 */
+	private static void handleEcho(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			for (String header : new String[] { "Content-Type", "Content-Encoding" }) {
+				String value = exchange.getRequestHeaders().getFirst(header);
+				if (value != null) {
+					exchange.getResponseHeaders().set(header, value);
+				}
+			}
+			exchange.sendResponseHeaders(200, 0);
+			try (InputStream body = exchange.getRequestBody(); OutputStream echo = exchange.getResponseBody()) {
+				body.transferTo(echo);
+			}
+		}
+	}
+
+	private static byte[] gzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(bytes);
+		}
+		return compressed.toByteArray();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+}
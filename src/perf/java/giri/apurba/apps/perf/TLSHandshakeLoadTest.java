@@ -0,0 +1,97 @@
+package giri.apurba.apps.perf;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import giri.apurba.apps.service.core.APIMetrics;
+import giri.apurba.apps.service.core.APIService;
+import giri.apurba.apps.service.core.HttpClientRegistry;
+import giri.apurba.apps.service.core.SSLProfile;
+import giri.apurba.apps.service.core.SSLProfiles;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Local load test of TLS handshake cost against an https {@link StubServer}
+ * with a self-signed certificate that closes the connection after every
+ * response, so that every call performs a handshake. Compares building a new
+ * {@link SSLProfile} per call, which always performs a full handshake, with a
+ * shared profile whose session cache lets new connections resume the TLS
+ * session. The certificate is validated against a truststore holding the
+ * stub's certificate.
+ *
+ * Run with: mvn -Pperf compile exec:java
+ * -Dexec.mainClass=giri.apurba.apps.perf.TLSHandshakeLoadTest
+ * -Dexec.args="[requests protocol]"
+ *
+ * @author AGIRI6
+ *
+ */
+public final class TLSHandshakeLoadTest {
+
+	private static final String PASSWORD = "changeit";
+
+	public static void main(String[] args) throws Exception {
+		int requests = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		String protocol = args.length > 1 ? args[1] : "TLSv1.3";
+
+		Path directory = Files.createTempDirectory("tls-stub");
+		Path keystore = directory.resolve("stub.p12");
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		APIMetrics.getInstance().setMeterRegistry(meterRegistry);
+		try {
+			StubServer.generateKeystore(keystore, PASSWORD);
+			SSLProfile.Settings settings = new SSLProfile.Settings(false, keystore.toString(), PASSWORD, null, null,
+					null, null, List.of(protocol), List.of(), 0, 0);
+			try (StubServer stub = new StubServer(20, 0, StubServer.sslContext(keystore, PASSWORD))) {
+				stub.setCloseConnections(true);
+				String serviceUrl = stub.baseUrl() + "employees";
+				run("per-call", requests, serviceUrl, () -> {
+					SSLProfile profile = SSLProfile.build("per-call", settings);
+					SSLProfiles.getInstance().configure(profile, Map.of());
+					return profile;
+				});
+				SSLProfile shared = SSLProfile.build("shared", settings);
+				SSLProfiles.getInstance().configure(shared, Map.of());
+				run("shared", requests, serviceUrl, () -> shared);
+				System.out.printf("shared   resumption ratio=%.3f%n", shared.getResumptionRatio());
+			}
+			for (Timer timer : meterRegistry.find(APIMetrics.TLS_HANDSHAKES).timers()) {
+				System.out.printf("handshakes profile=%-8s resumed=%-5s count=%d mean=%.3f ms max=%.3f ms%n",
+						timer.getId().getTag("profile"), timer.getId().getTag("resumed"), timer.count(),
+						timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS));
+			}
+		} finally {
+			APIMetrics.getInstance().setMeterRegistry(null);
+			HttpClientRegistry.getInstance().shutdown();
+			Files.deleteIfExists(keystore);
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	private static void run(String name, int requests, String serviceUrl, Supplier<SSLProfile> profiles) {
+		APIService apiService = new APIService();
+		// warm up class loading and JIT of the TLS stack
+		for (int i = 0; i < Math.min(50, requests); i++) {
+			profiles.get();
+			apiService.invokeAPI(serviceUrl);
+		}
+		int failures = 0;
+		long elapsed = 0;
+		for (int i = 0; i < requests; i++) {
+			long start = System.nanoTime();
+			profiles.get();
+			if (apiService.invokeAPI(serviceUrl).statusCode() != 200) {
+				failures++;
+			}
+			elapsed += System.nanoTime() - start;
+		}
+		System.out.printf("%-8s requests=%d mean=%.3f ms throughput=%.1f req/s failures=%d%n", name, requests,
+				elapsed / 1e6 / requests, requests / (elapsed / 1e9), failures);
+	}
+
+}
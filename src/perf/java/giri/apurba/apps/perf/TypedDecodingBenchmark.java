@@ -0,0 +1,76 @@
+package giri.apurba.apps.perf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import giri.apurba.apps.entities.EmployeeList;
+import giri.apurba.apps.util.JSONUtil;
+
+/**
+ * Per request cost of serving an upstream employee list: the response bytes
+ * decoded into a String, parsed into a json-simple tree and written back to a
+ * String, versus the bytes decoded straight into {@link EmployeeList} and the
+ * record written to the client stream. Run with -prof gc to compare allocation
+ * per operation.
+ *
+ * @author AGIRI6
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TypedDecodingBenchmark {
+
+	@Param({ "10", "1000" })
+	private int employees;
+
+	private byte[] body;
+	private ObjectMapper writer;
+
+	@Setup
+	public void setUp() {
+		body = StubServer.employeesJson(employees).getBytes(StandardCharsets.UTF_8);
+		// stands in for the mapper Spring writes controller return values with
+		writer = new ObjectMapper();
+	}
+
+	@Benchmark
+	@SuppressWarnings("deprecation")
+	public byte[] stringTreeString() {
+		JSONObject employeeList = JSONUtil.getJSONObject(new String(body, StandardCharsets.UTF_8));
+		return employeeList.toJSONString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public EmployeeList typedDecode() {
+		return JSONUtil.readValue(body, EmployeeList.class);
+	}
+
+	@Benchmark
+	public EmployeeList typedDecodeAndWrite() throws IOException {
+		EmployeeList employeeList = JSONUtil.readValue(body, EmployeeList.class);
+		writer.writeValue(OutputStream.nullOutputStream(), employeeList);
+		return employeeList;
+	}
+
+}